@@ -0,0 +1,43 @@
+package com.example.s3demo.benchmarks;
+
+import org.openjdk.jmh.Main;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of benchmarks.jar. Accepts the usual JMH command line; on top of
+ * that it attaches the GC profiler (bytes allocated per op) unless another
+ * profiler is chosen, and without an explicit {@code -t} runs every selected
+ * benchmark at each concurrency level in {@link #CONCURRENCY_LEVELS}.
+ */
+public final class BenchmarkMain {
+
+    static final int[] CONCURRENCY_LEVELS = {1, 8, 32};
+
+    private BenchmarkMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions cmd = new CommandLineOptions(args);
+        if (cmd.shouldHelp() || cmd.shouldList() || cmd.shouldListWithParams() || cmd.shouldListProfilers()
+                || cmd.shouldListResultFormats()) {
+            Main.main(args);
+            return;
+        }
+        int[] levels = cmd.getThreads().hasValue() ? new int[]{cmd.getThreads().get()} : CONCURRENCY_LEVELS;
+        for (int threads : levels) {
+            OptionsBuilder options = new OptionsBuilder();
+            options.parent(cmd).threads(threads);
+            if (cmd.getProfilers().isEmpty()) {
+                options.addProfiler(GCProfiler.class);
+            }
+            if (cmd.getResult().hasValue() && levels.length > 1) {
+                options.result(cmd.getResult().get().replaceFirst("(\\.[^.]*)?$", "-t" + threads + "$1"));
+            }
+            System.out.println("# Concurrency level: " + threads + " thread(s)");
+            new Runner(options.build()).run();
+        }
+    }
+}
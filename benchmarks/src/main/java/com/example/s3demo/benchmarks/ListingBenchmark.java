@@ -0,0 +1,72 @@
+package com.example.s3demo.benchmarks;
+
+import com.example.s3demo.model.ObjectPage;
+import com.example.s3demo.service.S3Service;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Listing through {@link S3Service}: one 1,000-key page, and a full scan of
+ * the bucket page by page, sequentially and fanned out over the 16 top-level
+ * prefixes. With {@code indexed} the bucket is loaded into the metadata index
+ * first, so every operation is answered from memory.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Benchmark)
+public class ListingBenchmark {
+
+    private static final int PREFIXES = 16;
+
+    @Param({"10000", "100000"})
+    public int objects;
+
+    @Param({"false", "true"})
+    public boolean indexed;
+
+    private StubbedS3Service app;
+    private S3Service s3Service;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        app = StubbedS3Service.start("aws.s3.index.enabled=" + indexed);
+        s3Service = app.s3Service();
+        for (int i = 0; i < objects; i++) {
+            app.stub().putObject(StubbedS3Service.BUCKET,
+                    String.format("p%02d/object-%08d.json", i % PREFIXES, i), 1024);
+        }
+        if (indexed) {
+            s3Service.reconcileIndex("");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        app.close();
+    }
+
+    @Benchmark
+    public ObjectPage listPage() {
+        return s3Service.listObjects(null, null, 1000, null);
+    }
+
+    @Benchmark
+    public long scanSequential() throws IOException {
+        AtomicLong count = new AtomicLong();
+        s3Service.streamObjects(null, false, page -> count.addAndGet(page.size()));
+        return count.get();
+    }
+
+    @Benchmark
+    public long scanParallel() throws IOException {
+        AtomicLong count = new AtomicLong();
+        s3Service.streamObjects(null, true, page -> count.addAndGet(page.size()));
+        return count.get();
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.s3demo.benchmarks;
+
+import com.example.s3demo.service.S3Service;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.springframework.util.unit.DataSize;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Upload and download through {@link S3Service} against the in-process stub,
+ * from 1KB to 1GB:
+ * <ul>
+ *   <li>{@code downloadBuffered}: {@code downloadObject(key)}, the whole object as a byte[]</li>
+ *   <li>{@code downloadStreaming}: {@code openObject} then {@code downloadObject(key, object, out)}, parallel ranged GETs above the threshold</li>
+ *   <li>{@code uploadPut}: single streaming PUT from a spooled file</li>
+ *   <li>{@code uploadMultipart}: pipelined multipart upload from a spooled file</li>
+ * </ul>
+ * Buffered downloads whose working set would not fit in the fork's heap
+ * fail their trial setup instead of thrashing the GC.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(value = 1, jvmArgsAppend = {"-Xms3g", "-Xmx3g"})
+@State(Scope.Benchmark)
+public class ObjectTransferBenchmark {
+
+    @Param({"1KB", "1MB", "64MB", "1GB"})
+    public String size;
+
+    private StubbedS3Service app;
+    private S3Service s3Service;
+    private String downloadKey;
+    private Path uploadFile;
+    private FileMultipartFile upload;
+
+    @Setup(Level.Trial)
+    public void setUp(BenchmarkParams params) throws IOException {
+        long bytes = DataSize.parse(size).toBytes();
+        if (params.getBenchmark().endsWith("downloadBuffered")
+                && 2 * bytes * params.getThreads() > Runtime.getRuntime().maxMemory()) {
+            throw new IllegalStateException("Skipping: " + params.getThreads() + " concurrent buffered "
+                    + size + " downloads do not fit in a " + Runtime.getRuntime().maxMemory() + " byte heap");
+        }
+        app = StubbedS3Service.start();
+        s3Service = app.s3Service();
+        downloadKey = "download/" + size;
+        app.stub().putObject(StubbedS3Service.BUCKET, downloadKey, bytes);
+        uploadFile = Files.createTempFile("s3-bench-", ".bin");
+        try (RandomAccessFile file = new RandomAccessFile(uploadFile.toFile(), "rw")) {
+            file.setLength(bytes);
+        }
+        upload = new FileMultipartFile(uploadFile);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        if (app != null) {
+            app.close();
+        }
+        if (uploadFile != null) {
+            Files.deleteIfExists(uploadFile);
+        }
+    }
+
+    @Benchmark
+    public int downloadBuffered() {
+        return s3Service.downloadObject(downloadKey).length;
+    }
+
+    @Benchmark
+    public GetObjectResponse downloadStreaming() throws IOException {
+        ResponseInputStream<GetObjectResponse> object = s3Service.openObject(downloadKey, null);
+        s3Service.downloadObject(downloadKey, object, OutputStream.nullOutputStream());
+        return object.response();
+    }
+
+    @Benchmark
+    public String uploadPut() throws IOException {
+        return s3Service.uploadObject("upload/put-" + size, upload);
+    }
+
+    @Benchmark
+    public String uploadMultipart() throws IOException {
+        return s3Service.multipartUpload("upload/multipart-" + size, upload);
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.s3demo.benchmarks;
+
+import com.example.s3demo.service.PresignedUrlCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Configuration;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of producing a presigned GET URL with and without the presigned URL
+ * cache, for a single hot key and for a working set of 10,000 keys. Signing
+ * is pure CPU, so no S3 endpoint is needed.
+ */
+@BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PresignBenchmark {
+
+    @Param({"true", "false"})
+    public boolean cached;
+
+    @Param({"1", "10000"})
+    public int hotKeys;
+
+    private S3Presigner presigner;
+    private PresignedUrlCache urls;
+    private String[] keys;
+
+    @Setup
+    public void setUp() {
+        presigner = S3Presigner.builder()
+                .region(Region.US_EAST_1)
+                .endpointOverride(URI.create("http://localhost:4566"))
+                .serviceConfiguration(S3Configuration.builder().pathStyleAccessEnabled(true).build())
+                .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create("test", "test")))
+                .build();
+        urls = new PresignedUrlCache(presigner, new SimpleMeterRegistry(), Duration.ofMinutes(10), cached,
+                Duration.ofMinutes(2), 100_000);
+        keys = new String[hotKeys];
+        for (int i = 0; i < hotKeys; i++) {
+            keys[i] = "objects/2024/key-" + i + ".json";
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        presigner.close();
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int next;
+
+        int next(int bound) {
+            next = next + 1 == bound ? 0 : next + 1;
+            return next;
+        }
+    }
+
+    @Benchmark
+    public String presignGet(Cursor cursor) {
+        return urls.presignGet("bench-bucket", keys[cursor.next(keys.length)], null).url();
+    }
+}
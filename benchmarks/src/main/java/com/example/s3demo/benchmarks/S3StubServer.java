@@ -0,0 +1,468 @@
+package com.example.s3demo.benchmarks;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Minimal path-style S3 stand-in on the JDK HTTP server, bound to loopback.
+ * It keeps only object metadata: uploaded bodies are drained and discarded,
+ * and GETs stream a fixed pseudo-random pattern of the recorded length. That
+ * keeps 1GB objects cheap on the stub side so the numbers reflect the client.
+ * <p>
+ * Supported: PutObject, GetObject (Range, If-Match, If-None-Match), HeadObject,
+ * GetObjectAttributes, DeleteObject, ListObjectsV2 (prefix, delimiter,
+ * max-keys, continuation), CreateMultipartUpload / UploadPart /
+ * CompleteMultipartUpload / AbortMultipartUpload, and CreateBucket. ETags use
+ * the multipart form ({@code "<hex>-<n>"}) so the SDK skips its whole-body MD5
+ * comparison. Since bodies are not kept, no object has a stored checksum:
+ * GetObjectAttributes answers with the ETag and size only, and downloads pay
+ * for that lookup but skip verification.
+ */
+public final class S3StubServer implements AutoCloseable {
+
+    private static final int PATTERN_SIZE = 64 * 1024;
+    private static final DateTimeFormatter HTTP_DATE = DateTimeFormatter.RFC_1123_DATE_TIME.withZone(ZoneOffset.UTC);
+    private static final Pattern PART_NUMBER = Pattern.compile("<PartNumber>(\\d+)</PartNumber>");
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final byte[] pattern = new byte[PATTERN_SIZE];
+    private final Map<String, ConcurrentSkipListMap<String, StubObject>> buckets = new ConcurrentHashMap<>();
+    private final Map<String, ConcurrentMap<Integer, Long>> uploads = new ConcurrentHashMap<>();
+    private final AtomicLong ids = new AtomicLong();
+
+    private S3StubServer(HttpServer server) {
+        this.server = server;
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "s3-stub");
+            thread.setDaemon(true);
+            return thread;
+        });
+        new Random(42).nextBytes(pattern);
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+    }
+
+    public static S3StubServer start() throws IOException {
+        // Headers and body go out in separate writes; without TCP_NODELAY, Nagle plus delayed ACK adds ~40ms per response.
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 512);
+        S3StubServer stub = new S3StubServer(server);
+        server.start();
+        return stub;
+    }
+
+    public String endpoint() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    /**
+     * Registers an object directly, without an upload round-trip.
+     */
+    public void putObject(String bucket, String key, long size) {
+        bucket(bucket).put(key, new StubObject(size, etag(1), Instant.now()));
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            try {
+                route(exchange);
+            } catch (RuntimeException e) {
+                error(exchange, 500, "InternalError", String.valueOf(e.getMessage()));
+            }
+        }
+    }
+
+    private void route(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        int slash = path.indexOf('/', 1);
+        String bucket = slash < 0 ? path.substring(1) : path.substring(1, slash);
+        String key = slash < 0 ? "" : path.substring(slash + 1);
+        Map<String, String> query = query(exchange.getRequestURI().getRawQuery());
+        String method = exchange.getRequestMethod();
+
+        if (key.isEmpty()) {
+            switch (method) {
+                case "PUT" -> {
+                    drain(exchange);
+                    bucket(bucket);
+                    empty(exchange, 200);
+                }
+                case "GET" -> listObjects(exchange, bucket, query);
+                default -> error(exchange, 501, "NotImplemented", method + " on a bucket");
+            }
+            return;
+        }
+        switch (method) {
+            case "PUT" -> {
+                boolean part = query.containsKey("uploadId");
+                MessageDigest md5 = part ? null : md5();
+                long size = drain(exchange, md5);
+                String eTag = part ? etag(1) : "\"" + HexFormat.of().formatHex(md5.digest()) + "\"";
+                if (part) {
+                    ConcurrentMap<Integer, Long> parts = uploads.get(query.get("uploadId"));
+                    if (parts == null) {
+                        error(exchange, 404, "NoSuchUpload", "Unknown upload");
+                        return;
+                    }
+                    parts.put(Integer.parseInt(query.get("partNumber")), size);
+                    exchange.getResponseHeaders().set("ETag", etag(1));
+                } else {
+                    StubObject object = new StubObject(size, eTag, Instant.now());
+                    bucket(bucket).put(key, object);
+                    exchange.getResponseHeaders().set("ETag", object.eTag());
+                }
+                empty(exchange, 200);
+            }
+            case "POST" -> multipart(exchange, bucket, key, query);
+            case "GET" -> {
+                if (query.containsKey("attributes")) {
+                    objectAttributes(exchange, bucket, key);
+                } else {
+                    getObject(exchange, bucket, key, false);
+                }
+            }
+            case "HEAD" -> getObject(exchange, bucket, key, true);
+            case "DELETE" -> {
+                if (query.containsKey("uploadId")) {
+                    uploads.remove(query.get("uploadId"));
+                } else {
+                    bucket(bucket).remove(key);
+                }
+                empty(exchange, 204);
+            }
+            default -> error(exchange, 501, "NotImplemented", method);
+        }
+    }
+
+    private void multipart(HttpExchange exchange, String bucket, String key, Map<String, String> query)
+            throws IOException {
+        if (query.containsKey("uploads")) {
+            drain(exchange);
+            String uploadId = "upload-" + ids.incrementAndGet();
+            uploads.put(uploadId, new ConcurrentHashMap<>());
+            xml(exchange, 200, "<InitiateMultipartUploadResult xmlns=\"http://s3.amazonaws.com/doc/2006-03-01/\">"
+                    + "<Bucket>" + escape(bucket) + "</Bucket><Key>" + escape(key) + "</Key>"
+                    + "<UploadId>" + uploadId + "</UploadId></InitiateMultipartUploadResult>");
+            return;
+        }
+        String uploadId = query.get("uploadId");
+        if (uploadId == null) {
+            error(exchange, 501, "NotImplemented", "POST without uploads or uploadId");
+            return;
+        }
+        String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+        ConcurrentMap<Integer, Long> parts = uploads.remove(uploadId);
+        if (parts == null) {
+            error(exchange, 404, "NoSuchUpload", "Unknown upload");
+            return;
+        }
+        long size = 0;
+        int count = 0;
+        Matcher matcher = PART_NUMBER.matcher(body);
+        while (matcher.find()) {
+            Long partSize = parts.get(Integer.parseInt(matcher.group(1)));
+            if (partSize == null) {
+                error(exchange, 400, "InvalidPart", "Part " + matcher.group(1) + " was not uploaded");
+                return;
+            }
+            size += partSize;
+            count++;
+        }
+        StubObject object = new StubObject(size, etag(count), Instant.now());
+        bucket(bucket).put(key, object);
+        xml(exchange, 200, "<CompleteMultipartUploadResult xmlns=\"http://s3.amazonaws.com/doc/2006-03-01/\">"
+                + "<Bucket>" + escape(bucket) + "</Bucket><Key>" + escape(key) + "</Key>"
+                + "<ETag>" + escape(object.eTag()) + "</ETag></CompleteMultipartUploadResult>");
+    }
+
+    private void getObject(HttpExchange exchange, String bucket, String key, boolean head) throws IOException {
+        StubObject object = bucket(bucket).get(key);
+        if (object == null) {
+            error(exchange, 404, "NoSuchKey", "The specified key does not exist.");
+            return;
+        }
+        Headers request = exchange.getRequestHeaders();
+        String ifMatch = request.getFirst("If-Match");
+        if (ifMatch != null && !ifMatch.equals(object.eTag())) {
+            error(exchange, 412, "PreconditionFailed", "At least one of the preconditions you specified did not hold.");
+            return;
+        }
+        Headers headers = exchange.getResponseHeaders();
+        headers.set("ETag", object.eTag());
+        headers.set("Last-Modified", HTTP_DATE.format(object.lastModified()));
+        headers.set("Accept-Ranges", "bytes");
+        headers.set("Content-Type", "application/octet-stream");
+        if (object.eTag().equals(request.getFirst("If-None-Match"))) {
+            empty(exchange, 304);
+            return;
+        }
+
+        long start = 0;
+        long end = object.size() - 1;
+        int status = 200;
+        String range = request.getFirst("Range");
+        if (range != null && range.startsWith("bytes=") && object.size() > 0) {
+            String[] bounds = range.substring("bytes=".length()).split("-", 2);
+            if (bounds[0].isEmpty()) {
+                start = Math.max(0, object.size() - Long.parseLong(bounds[1]));
+            } else {
+                start = Long.parseLong(bounds[0]);
+                if (!bounds[1].isEmpty()) {
+                    end = Math.min(end, Long.parseLong(bounds[1]));
+                }
+            }
+            if (start > end) {
+                error(exchange, 416, "InvalidRange", "The requested range is not satisfiable");
+                return;
+            }
+            headers.set("Content-Range", "bytes " + start + "-" + end + "/" + object.size());
+            status = 206;
+        }
+        long length = end - start + 1;
+        if (head) {
+            headers.set("Content-Length", Long.toString(object.size()));
+            empty(exchange, 200);
+            return;
+        }
+        exchange.sendResponseHeaders(status, length == 0 ? -1 : length);
+        OutputStream out = exchange.getResponseBody();
+        long position = start;
+        while (position <= end) {
+            int offset = (int) (position % PATTERN_SIZE);
+            int n = (int) Math.min(PATTERN_SIZE - offset, end - position + 1);
+            out.write(pattern, offset, n);
+            position += n;
+        }
+    }
+
+    private void objectAttributes(HttpExchange exchange, String bucket, String key) throws IOException {
+        StubObject object = bucket(bucket).get(key);
+        if (object == null) {
+            error(exchange, 404, "NoSuchKey", "The specified key does not exist.");
+            return;
+        }
+        exchange.getResponseHeaders().set("Last-Modified", HTTP_DATE.format(object.lastModified()));
+        xml(exchange, 200, "<GetObjectAttributesResponse xmlns=\"http://s3.amazonaws.com/doc/2006-03-01/\">"
+                + "<ETag>" + escape(object.eTag().replace("\"", "")) + "</ETag>"
+                + "<ObjectSize>" + object.size() + "</ObjectSize></GetObjectAttributesResponse>");
+    }
+
+    private void listObjects(HttpExchange exchange, String bucketName, Map<String, String> query)
+            throws IOException {
+        ConcurrentSkipListMap<String, StubObject> bucket = bucket(bucketName);
+        String prefix = query.getOrDefault("prefix", "");
+        String delimiter = query.get("delimiter");
+        int maxKeys = Integer.parseInt(query.getOrDefault("max-keys", "1000"));
+        String after = query.getOrDefault("continuation-token", query.getOrDefault("start-after", ""));
+
+        StringBuilder contents = new StringBuilder();
+        StringBuilder prefixes = new StringBuilder();
+        String lastCommonPrefix = null;
+        String last = null;
+        int count = 0;
+        boolean truncated = false;
+        for (Map.Entry<String, StubObject> entry : bucket.tailMap(prefix, true).entrySet()) {
+            String key = entry.getKey();
+            if (!key.startsWith(prefix)) {
+                break;
+            }
+            if (key.compareTo(after) <= 0 || lastCommonPrefix != null && key.startsWith(lastCommonPrefix)) {
+                continue;
+            }
+            if (count == maxKeys) {
+                truncated = true;
+                break;
+            }
+            int split = delimiter == null ? -1 : key.indexOf(delimiter, prefix.length());
+            if (split >= 0) {
+                lastCommonPrefix = key.substring(0, split + delimiter.length());
+                if (lastCommonPrefix.compareTo(after) <= 0) {
+                    continue;
+                }
+                prefixes.append("<CommonPrefixes><Prefix>").append(escape(lastCommonPrefix))
+                        .append("</Prefix></CommonPrefixes>");
+                last = lastCommonPrefix + Character.MAX_VALUE;
+            } else {
+                StubObject object = entry.getValue();
+                contents.append("<Contents><Key>").append(escape(key))
+                        .append("</Key><LastModified>").append(object.lastModified())
+                        .append("</LastModified><ETag>").append(escape(object.eTag()))
+                        .append("</ETag><Size>").append(object.size())
+                        .append("</Size><StorageClass>STANDARD</StorageClass></Contents>");
+                last = key;
+            }
+            count++;
+        }
+        StringBuilder xml = new StringBuilder("<ListBucketResult xmlns=\"http://s3.amazonaws.com/doc/2006-03-01/\">")
+                .append("<Name>").append(escape(bucketName)).append("</Name>")
+                .append("<Prefix>").append(escape(prefix)).append("</Prefix>")
+                .append("<KeyCount>").append(count).append("</KeyCount>")
+                .append("<MaxKeys>").append(maxKeys).append("</MaxKeys>")
+                .append("<IsTruncated>").append(truncated).append("</IsTruncated>");
+        if (delimiter != null) {
+            xml.append("<Delimiter>").append(escape(delimiter)).append("</Delimiter>");
+        }
+        if (truncated) {
+            xml.append("<NextContinuationToken>").append(escape(last)).append("</NextContinuationToken>");
+        }
+        xml.append(contents).append(prefixes).append("</ListBucketResult>");
+        xml(exchange, 200, xml.toString());
+    }
+
+    private ConcurrentSkipListMap<String, StubObject> bucket(String name) {
+        return buckets.computeIfAbsent(name, n -> new ConcurrentSkipListMap<>());
+    }
+
+    private static long drain(HttpExchange exchange) throws IOException {
+        return drain(exchange, null);
+    }
+
+    /**
+     * Drains the request body and returns the object size, honouring the
+     * decoded length of aws-chunked uploads. When {@code md5} is given it is
+     * fed the decoded payload, because the SDK checks a PutObject ETag against
+     * the MD5 of what it sent.
+     */
+    private static long drain(HttpExchange exchange, MessageDigest md5) throws IOException {
+        String sha256 = exchange.getRequestHeaders().getFirst("x-amz-content-sha256");
+        boolean chunked = sha256 != null && sha256.startsWith("STREAMING-");
+        byte[] buffer = new byte[PATTERN_SIZE];
+        long total = 0;
+        try (InputStream in = new BufferedInputStream(exchange.getRequestBody(), PATTERN_SIZE)) {
+            if (md5 == null || !chunked) {
+                int n;
+                while ((n = in.read(buffer)) > 0) {
+                    total += n;
+                    if (md5 != null) {
+                        md5.update(buffer, 0, n);
+                    }
+                }
+            } else {
+                long chunk;
+                while ((chunk = chunkSize(in)) > 0) {
+                    for (long remaining = chunk; remaining > 0; ) {
+                        int n = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                        if (n < 0) {
+                            throw new EOFException("Truncated aws-chunked body");
+                        }
+                        md5.update(buffer, 0, n);
+                        remaining -= n;
+                    }
+                    total += chunk;
+                    line(in);
+                }
+                in.transferTo(OutputStream.nullOutputStream());
+                return total;
+            }
+        }
+        String decoded = exchange.getRequestHeaders().getFirst("x-amz-decoded-content-length");
+        return decoded != null ? Long.parseLong(decoded) : total;
+    }
+
+    /** Parses an aws-chunked header line: {@code <hex-size>;chunk-signature=...}. */
+    private static long chunkSize(InputStream in) throws IOException {
+        String header = line(in);
+        int semicolon = header.indexOf(';');
+        return Long.parseLong(semicolon < 0 ? header.trim() : header.substring(0, semicolon), 16);
+    }
+
+    private static String line(InputStream in) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int c;
+        while ((c = in.read()) >= 0 && c != '\n') {
+            if (c != '\r') {
+                line.append((char) c);
+            }
+        }
+        return line.toString();
+    }
+
+    private static MessageDigest md5() {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Sends a bodiless response. The request body is closed first: the JDK
+     * server finishes a bodiless exchange inside sendResponseHeaders and drops
+     * the keep-alive connection if the request stream has not reached EOF.
+     */
+    private static void empty(HttpExchange exchange, int status) throws IOException {
+        exchange.getRequestBody().close();
+        exchange.sendResponseHeaders(status, -1);
+    }
+
+    private static void xml(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = ("<?xml version=\"1.0\" encoding=\"UTF-8\"?>" + body).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/xml");
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+    }
+
+    private static void error(HttpExchange exchange, int status, String code, String message) throws IOException {
+        if (exchange.getResponseCode() != -1) {
+            return;
+        }
+        if (exchange.getRequestMethod().equals("HEAD")) {
+            empty(exchange, status);
+            return;
+        }
+        xml(exchange, status, "<Error><Code>" + code + "</Code><Message>" + escape(message) + "</Message></Error>");
+    }
+
+    private static Map<String, String> query(String rawQuery) {
+        Map<String, String> params = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return params;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            String name = URLDecoder.decode(eq < 0 ? pair : pair.substring(0, eq), StandardCharsets.UTF_8);
+            String value = eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+            params.put(name, value);
+        }
+        return params;
+    }
+
+    private String etag(int parts) {
+        return "\"" + Long.toHexString(ids.incrementAndGet()) + "0000000000000000-" + parts + "\"";
+    }
+
+    private static String escape(String value) {
+        return value.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+    }
+
+    private record StubObject(long size, String eTag, Instant lastModified) {
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.s3demo.benchmarks;
+
+import com.example.s3demo.S3DemoApplication;
+import com.example.s3demo.service.S3Service;
+import org.springframework.boot.Banner;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The application context, without the web layer, wired to an in-process
+ * {@link S3StubServer}. {@link S3Service} and everything behind it (HTTP pool,
+ * retry policy, transfer engines) are the real beans configured from
+ * application.properties; {@code overrides} are extra {@code name=value}
+ * properties for a trial.
+ */
+final class StubbedS3Service implements AutoCloseable {
+
+    static final String BUCKET = "bench-bucket";
+
+    private final S3StubServer stub;
+    private final ConfigurableApplicationContext context;
+
+    private StubbedS3Service(S3StubServer stub, ConfigurableApplicationContext context) {
+        this.stub = stub;
+        this.context = context;
+    }
+
+    static StubbedS3Service start(String... overrides) throws IOException {
+        S3StubServer stub = S3StubServer.start();
+        // Passed as command-line arguments so they win over application.properties.
+        List<String> args = new ArrayList<>(List.of(
+                "--aws.s3.endpoint=" + stub.endpoint(),
+                "--aws.s3.bucket=" + BUCKET,
+                "--aws.accessKeyId=bench",
+                "--aws.secretAccessKey=bench",
+                "--aws.s3.cache.enabled=false",
+                "--logging.level.root=WARN"));
+        for (String override : overrides) {
+            args.add("--" + override);
+        }
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(S3DemoApplication.class)
+                .web(WebApplicationType.NONE)
+                .bannerMode(Banner.Mode.OFF)
+                .run(args.toArray(String[]::new));
+        return new StubbedS3Service(stub, context);
+    }
+
+    S3Service s3Service() {
+        return context.getBean(S3Service.class);
+    }
+
+    S3StubServer stub() {
+        return stub;
+    }
+
+    @Override
+    public void close() {
+        context.close();
+        stub.close();
+    }
+}
@@ -2,8 +2,10 @@ package com.example.s3demo;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class S3DemoApplication {
     public static void main(String[] args) {
         SpringApplication.run(S3DemoApplication.class, args);
@@ -0,0 +1,22 @@
+package com.example.s3demo.config;
+
+import java.time.Duration;
+
+/**
+ * Thrown in place of an S3 call that {@link S3ConcurrencyLimiter} refused to
+ * admit because its bucket and prefix are already at their concurrency limit.
+ * Nothing was sent to S3; the caller may retry after {@link #retryAfter()}.
+ */
+public class ConcurrencyLimitExceededException extends RuntimeException {
+
+        private final Duration retryAfter;
+
+        public ConcurrencyLimitExceededException(String limiter, Duration retryAfter) {
+                super("S3 concurrency limit reached for " + limiter);
+                this.retryAfter = retryAfter;
+        }
+
+        public Duration retryAfter() {
+                return retryAfter;
+        }
+}
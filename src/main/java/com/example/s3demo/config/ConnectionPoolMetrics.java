@@ -0,0 +1,92 @@
+package com.example.s3demo.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.http.HttpMetric;
+import software.amazon.awssdk.metrics.MetricCollection;
+import software.amazon.awssdk.metrics.MetricPublisher;
+import software.amazon.awssdk.metrics.SdkMetric;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * SDK {@link MetricPublisher} that turns the per-attempt HTTP client metrics into
+ * Micrometer meters tagged by client ("Apache", "NettyNio", ...):
+ * <ul>
+ *   <li>{@code s3.http.pool.leased} / {@code available} / {@code max} / {@code pending} gauges</li>
+ *   <li>{@code s3.http.pool.acquire} timer for time spent waiting on a connection</li>
+ * </ul>
+ * The gauges hold the value reported by the most recent request attempt, so a
+ * rising {@code pending} count is the signal that requests are queueing on the pool.
+ */
+@Component
+public class ConnectionPoolMetrics implements MetricPublisher {
+
+        private final MeterRegistry meterRegistry;
+        private final Map<String, PoolState> pools = new ConcurrentHashMap<>();
+
+        public ConnectionPoolMetrics(MeterRegistry meterRegistry) {
+                this.meterRegistry = meterRegistry;
+        }
+
+        @Override
+        public void publish(MetricCollection metricCollection) {
+                record(metricCollection);
+        }
+
+        private void record(MetricCollection collection) {
+                var clientNames = collection.metricValues(HttpMetric.HTTP_CLIENT_NAME);
+                if (!clientNames.isEmpty()) {
+                        PoolState pool = pools.computeIfAbsent(clientNames.get(0), this::register);
+                        update(pool.leased, collection, HttpMetric.LEASED_CONCURRENCY);
+                        update(pool.available, collection, HttpMetric.AVAILABLE_CONCURRENCY);
+                        update(pool.max, collection, HttpMetric.MAX_CONCURRENCY);
+                        update(pool.pending, collection, HttpMetric.PENDING_CONCURRENCY_ACQUIRES);
+                        for (Duration wait : collection.metricValues(HttpMetric.CONCURRENCY_ACQUIRE_DURATION)) {
+                                pool.acquire.record(wait);
+                        }
+                }
+                collection.children().forEach(this::record);
+        }
+
+        private static void update(AtomicInteger gauge, MetricCollection collection,
+                        SdkMetric<Integer> metric) {
+                var values = collection.metricValues(metric);
+                if (!values.isEmpty()) {
+                        gauge.set(values.get(values.size() - 1));
+                }
+        }
+
+        private PoolState register(String client) {
+                PoolState pool = new PoolState(new AtomicInteger(), new AtomicInteger(), new AtomicInteger(),
+                                new AtomicInteger(), Timer.builder("s3.http.pool.acquire")
+                                                .description("Time spent waiting to lease an HTTP connection")
+                                                .tag("client", client)
+                                                .register(meterRegistry));
+                gauge("s3.http.pool.leased", "Connections currently leased", client, pool.leased);
+                gauge("s3.http.pool.available", "Idle connections available for reuse", client, pool.available);
+                gauge("s3.http.pool.max", "Configured maximum connections", client, pool.max);
+                gauge("s3.http.pool.pending", "Requests waiting for a connection", client, pool.pending);
+                return pool;
+        }
+
+        private void gauge(String name, String description, String client, AtomicInteger value) {
+                Gauge.builder(name, value, AtomicInteger::get)
+                                .description(description)
+                                .tag("client", client)
+                                .register(meterRegistry);
+        }
+
+        @Override
+        public void close() {
+        }
+
+        private record PoolState(AtomicInteger leased, AtomicInteger available, AtomicInteger max,
+                        AtomicInteger pending, Timer acquire) {
+        }
+}
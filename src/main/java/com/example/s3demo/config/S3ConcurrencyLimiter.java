@@ -0,0 +1,316 @@
+package com.example.s3demo.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestContextHolder;
+import software.amazon.awssdk.core.SdkRequest;
+import software.amazon.awssdk.core.exception.AbortedException;
+import software.amazon.awssdk.core.interceptor.Context;
+import software.amazon.awssdk.core.interceptor.ExecutionAttribute;
+import software.amazon.awssdk.core.interceptor.ExecutionAttributes;
+import software.amazon.awssdk.core.interceptor.ExecutionInterceptor;
+import software.amazon.awssdk.core.interceptor.SdkExecutionAttribute;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SDK {@link ExecutionInterceptor} that caps how many calls run against each
+ * bucket and key prefix at once, and adapts each cap to what S3 sustains
+ * (AIMD):
+ * <ul>
+ *   <li>every successful call while the cap is in use raises it by
+ *       {@code 1/limit}, i.e. by one per round trip's worth of calls</li>
+ *   <li>a 503 SlowDown or 429 response, or a bodiless attempt slower than
+ *       {@code latencyThreshold}, multiplies it by {@code backoffRatio}, at
+ *       most once per round trip so a burst of throttles counts once</li>
+ * </ul>
+ * The permit is held across the SDK's retries and backoff, so retries of a
+ * throttled call do not add load on top of it. S3 partitions request rate by
+ * key prefix, so calls are grouped by bucket plus the first
+ * {@code prefixDepth} {@code /}-separated segments of the key (or listing
+ * prefix); depth 0 limits per bucket.
+ * <p>
+ * Calls made while serving an HTTP request wait at most {@code maxWait}, and
+ * only while fewer than {@code maxQueue} others are waiting, before failing
+ * with {@link ConcurrencyLimitExceededException}, which the controller turns
+ * into 429 with Retry-After. Calls from the transfer engines' worker threads
+ * queue until admitted, so a running bulk transfer slows down instead of
+ * failing part-way.
+ * <p>
+ * A streaming GetObject completes when its headers arrive, so the permit
+ * covers the request, not the body read.
+ */
+@Component
+public class S3ConcurrencyLimiter implements ExecutionInterceptor {
+
+        private static final ExecutionAttribute<Permit> PERMIT = new ExecutionAttribute<>("S3ConcurrencyLimiter.permit");
+        private static final ExecutionAttribute<Long> ATTEMPT_START =
+                        new ExecutionAttribute<>("S3ConcurrencyLimiter.attemptStart");
+
+        private final boolean enabled;
+        private final int prefixDepth;
+        private final int initialLimit;
+        private final int minLimit;
+        private final int maxLimit;
+        private final double backoffRatio;
+        private final long latencyThreshold;
+        private final long maxWait;
+        private final int maxQueue;
+        private final Cache<String, Limit> limits;
+        private final MeterRegistry meterRegistry;
+        private final Timer waits;
+
+        public S3ConcurrencyLimiter(MeterRegistry meterRegistry,
+                        @Value("${aws.s3.limiter.enabled:true}") boolean enabled,
+                        @Value("${aws.s3.limiter.prefix-depth:1}") int prefixDepth,
+                        @Value("${aws.s3.limiter.initial-limit:50}") int initialLimit,
+                        @Value("${aws.s3.limiter.min-limit:1}") int minLimit,
+                        @Value("${aws.s3.limiter.max-limit:200}") int maxLimit,
+                        @Value("${aws.s3.limiter.backoff-ratio:0.7}") double backoffRatio,
+                        @Value("${aws.s3.limiter.latency-threshold:5s}") Duration latencyThreshold,
+                        @Value("${aws.s3.limiter.max-wait:1s}") Duration maxWait,
+                        @Value("${aws.s3.limiter.max-queue:100}") int maxQueue) {
+                if (minLimit < 1 || minLimit > maxLimit || backoffRatio <= 0 || backoffRatio >= 1) {
+                        throw new IllegalArgumentException(
+                                        "aws.s3.limiter needs 1 <= min-limit <= max-limit and 0 < backoff-ratio < 1");
+                }
+                this.meterRegistry = meterRegistry;
+                this.enabled = enabled;
+                this.prefixDepth = prefixDepth;
+                this.initialLimit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+                this.minLimit = minLimit;
+                this.maxLimit = maxLimit;
+                this.backoffRatio = backoffRatio;
+                this.latencyThreshold = latencyThreshold.toNanos();
+                this.maxWait = maxWait.toNanos();
+                this.maxQueue = maxQueue;
+                // Idle prefixes are dropped; one still in use keeps its learned limit.
+                this.limits = Caffeine.newBuilder().expireAfterAccess(Duration.ofMinutes(10)).build();
+                this.waits = Timer.builder("s3.limiter.wait")
+                                .description("Time S3 calls spent queued for a concurrency permit")
+                                .register(meterRegistry);
+        }
+
+        @Override
+        public void beforeExecution(Context.BeforeExecution context, ExecutionAttributes executionAttributes) {
+                if (!enabled) {
+                        return;
+                }
+                Optional<String> name = limiterName(context.request());
+                if (name.isEmpty()) {
+                        // Account-level calls such as ListBuckets are not partitioned by prefix.
+                        return;
+                }
+                Limit limit = limits.get(name.get(), ignored -> new Limit());
+                boolean edge = RequestContextHolder.getRequestAttributes() != null;
+                long start = System.nanoTime();
+                boolean admitted;
+                try {
+                        admitted = limit.acquire(edge);
+                } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw AbortedException.builder().message("Interrupted waiting for an S3 concurrency permit")
+                                        .cause(e).build();
+                }
+                waits.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                if (!admitted) {
+                        counter("s3.limiter.rejected", "S3 calls refused because their prefix was at its limit",
+                                        executionAttributes);
+                        throw new ConcurrencyLimitExceededException(name.get(), limit.retryAfter());
+                }
+                executionAttributes.putAttribute(PERMIT, new Permit(limit, System.nanoTime()));
+        }
+
+        @Override
+        public void beforeTransmission(Context.BeforeTransmission context, ExecutionAttributes executionAttributes) {
+                executionAttributes.putAttribute(ATTEMPT_START, System.nanoTime());
+        }
+
+        @Override
+        public void afterTransmission(Context.AfterTransmission context, ExecutionAttributes executionAttributes) {
+                Permit permit = executionAttributes.getAttribute(PERMIT);
+                if (permit == null) {
+                        return;
+                }
+                int status = context.httpResponse().statusCode();
+                if (status == 503 || status == 429) {
+                        counter("s3.limiter.throttled", "S3 attempts answered with SlowDown or 429", executionAttributes);
+                        permit.limit.decrease(permit.started);
+                } else if (context.requestBody().isEmpty()
+                                && System.nanoTime() - executionAttributes.getAttribute(ATTEMPT_START) > latencyThreshold) {
+                        // Only bodiless calls: an upload's round trip grows with its size, not with S3's load.
+                        permit.limit.decrease(permit.started);
+                }
+        }
+
+        @Override
+        public void afterExecution(Context.AfterExecution context, ExecutionAttributes executionAttributes) {
+                Permit permit = executionAttributes.getAttribute(PERMIT);
+                if (permit != null && permit.release()) {
+                        permit.limit.increase(System.nanoTime() - permit.started);
+                }
+        }
+
+        @Override
+        public void onExecutionFailure(Context.FailedExecution context, ExecutionAttributes executionAttributes) {
+                Permit permit = executionAttributes.getAttribute(PERMIT);
+                if (permit != null) {
+                        permit.release();
+                }
+        }
+
+        /**
+         * Bucket plus the leading {@code prefixDepth} key segments, or empty for
+         * calls that name no bucket. CopyObject and UploadPartCopy are counted
+         * against their destination.
+         */
+        Optional<String> limiterName(SdkRequest request) {
+                Optional<String> bucket = request.getValueForField("DestinationBucket", String.class)
+                                .or(() -> request.getValueForField("Bucket", String.class));
+                if (bucket.isEmpty()) {
+                        return Optional.empty();
+                }
+                String key = request.getValueForField("DestinationKey", String.class)
+                                .or(() -> request.getValueForField("Key", String.class))
+                                .or(() -> request.getValueForField("Prefix", String.class))
+                                .orElse("");
+                int end = 0;
+                for (int depth = 0; depth < prefixDepth; depth++) {
+                        int slash = key.indexOf('/', end);
+                        if (slash < 0) {
+                                break;
+                        }
+                        end = slash + 1;
+                }
+                return Optional.of(bucket.get() + "/" + key.substring(0, end));
+        }
+
+        /**
+         * Current whole-number limit for a limiter name, or -1 if it has none yet.
+         */
+        int currentLimit(String name) {
+                Limit limit = limits.getIfPresent(name);
+                if (limit == null) {
+                        return -1;
+                }
+                synchronized (limit) {
+                        return (int) limit.limit;
+                }
+        }
+
+        private void counter(String name, String description, ExecutionAttributes executionAttributes) {
+                String operation = executionAttributes.getAttribute(SdkExecutionAttribute.OPERATION_NAME);
+                Counter.builder(name)
+                                .description(description)
+                                .tag("operation", operation != null ? operation : "unknown")
+                                .register(meterRegistry)
+                                .increment();
+        }
+
+        /**
+         * One prefix's adaptive limit. All state is guarded by the monitor.
+         */
+        private final class Limit {
+
+                private double limit = initialLimit;
+                private int inFlight;
+                private int waiting;
+                private long lastDecrease = System.nanoTime();
+                private double latency;
+
+                synchronized boolean acquire(boolean edge) throws InterruptedException {
+                        if (inFlight >= (int) limit) {
+                                if (edge && waiting >= maxQueue) {
+                                        return false;
+                                }
+                                long deadline = System.nanoTime() + maxWait;
+                                waiting++;
+                                try {
+                                        while (inFlight >= (int) limit) {
+                                                if (!edge) {
+                                                        wait();
+                                                        continue;
+                                                }
+                                                long remaining = deadline - System.nanoTime();
+                                                if (remaining <= 0) {
+                                                        return false;
+                                                }
+                                                TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                                        }
+                                } finally {
+                                        waiting--;
+                                }
+                        }
+                        inFlight++;
+                        return true;
+                }
+
+                synchronized void release() {
+                        inFlight--;
+                        notifyAll();
+                }
+
+                synchronized void increase(long elapsed) {
+                        latency = latency == 0 ? elapsed : latency * 0.9 + elapsed * 0.1;
+                        // Only grow a limit that is actually being used, or an idle prefix would drift to the max.
+                        if ((inFlight + 1) * 2 >= limit) {
+                                int before = (int) limit;
+                                limit = Math.min(maxLimit, limit + 1 / limit);
+                                if ((int) limit > before) {
+                                        notifyAll();
+                                }
+                        }
+                }
+
+                /**
+                 * Backs off once per congestion event: only calls admitted after
+                 * the previous decrease can trigger the next one.
+                 */
+                synchronized void decrease(long started) {
+                        if (started - lastDecrease > 0) {
+                                limit = Math.max(minLimit, limit * backoffRatio);
+                                lastDecrease = System.nanoTime();
+                        }
+                }
+
+                /**
+                 * Roughly how long until the callers already queued have been
+                 * served, given the current limit and recent call latency.
+                 */
+                synchronized Duration retryAfter() {
+                        long nanos = (long) (latency * (waiting + 1) / Math.max(1, (int) limit));
+                        return Duration.ofSeconds(Math.max(1, TimeUnit.NANOSECONDS.toSeconds(nanos) + 1));
+                }
+        }
+
+        private static final class Permit {
+
+                private final Limit limit;
+                private final long started;
+                private boolean released;
+
+                Permit(Limit limit, long started) {
+                        this.limit = limit;
+                        this.started = started;
+                }
+
+                /**
+                 * Returns the permit, once; false if it was already returned.
+                 */
+                boolean release() {
+                        if (released) {
+                                return false;
+                        }
+                        released = true;
+                        limit.release();
+                        return true;
+                }
+        }
+}
@@ -1,14 +1,32 @@
 package com.example.s3demo.config;
 
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
 import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.client.config.ClientOverrideConfiguration;
+import software.amazon.awssdk.core.retry.RetryMode;
+import software.amazon.awssdk.core.retry.RetryPolicy;
+import software.amazon.awssdk.core.retry.backoff.EqualJitterBackoffStrategy;
+import software.amazon.awssdk.core.retry.backoff.FullJitterBackoffStrategy;
+import software.amazon.awssdk.http.SdkHttpClient;
+import software.amazon.awssdk.http.SdkHttpConfigurationOption;
+import software.amazon.awssdk.http.SdkHttpService;
+import software.amazon.awssdk.http.apache.ApacheHttpClient;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
 import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.S3Configuration;
 import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.utils.AttributeMap;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ServiceLoader;
 
 @Configuration
 public class S3Config {
@@ -25,35 +43,205 @@ public class S3Config {
         @Value("${aws.s3.endpoint:}")
         private String endpoint;
 
+        // --- HTTP connection pool ---
+
+        @Value("${aws.s3.http.client:apache}")
+        private String httpClientType;
+
+        @Value("${aws.s3.http.max-connections:200}")
+        private int maxConnections;
+
+        @Value("${aws.s3.http.connection-acquisition-timeout:10s}")
+        private Duration connectionAcquisitionTimeout;
+
+        @Value("${aws.s3.http.connection-timeout:2s}")
+        private Duration connectionTimeout;
+
+        @Value("${aws.s3.http.socket-timeout:30s}")
+        private Duration socketTimeout;
+
+        @Value("${aws.s3.http.connection-ttl:5m}")
+        private Duration connectionTimeToLive;
+
+        @Value("${aws.s3.http.connection-max-idle-time:60s}")
+        private Duration connectionMaxIdleTime;
+
+        @Value("${aws.s3.http.idle-reaper:true}")
+        private boolean useIdleConnectionReaper;
+
+        @Value("${aws.s3.http.tcp-keep-alive:true}")
+        private boolean tcpKeepAlive;
+
+        // --- Retries ---
+
+        @Value("${aws.s3.retry.max-retries:3}")
+        private int maxRetries;
+
+        @Value("${aws.s3.retry.base-delay:100ms}")
+        private Duration retryBaseDelay;
+
+        @Value("${aws.s3.retry.throttling-base-delay:500ms}")
+        private Duration throttlingBaseDelay;
+
+        @Value("${aws.s3.retry.max-backoff:20s}")
+        private Duration maxBackoff;
+
+        // --- Async client ---
+
+        @Value("${aws.s3.async.client:netty}")
+        private String asyncClientType;
+
+        @Value("${aws.s3.async.max-concurrency:200}")
+        private int asyncMaxConcurrency;
+
+        /**
+         * One credentials provider shared by the sync client, async client and
+         * presigner.
+         */
+        @Bean
+        public AwsCredentialsProvider awsCredentialsProvider() {
+                return StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKey, secretKey));
+        }
+
         @Bean
-        public S3Client s3Client() {
+        public S3Client s3Client(AwsCredentialsProvider awsCredentialsProvider,
+                        ConnectionPoolMetrics connectionPoolMetrics, S3RequestMetrics s3RequestMetrics,
+                        S3ConcurrencyLimiter s3ConcurrencyLimiter) {
+                SdkHttpClient.Builder<?> httpClientBuilder = syncHttpClientBuilder();
                 var builder = S3Client.builder()
                                 .region(Region.of(region))
                                 .forcePathStyle(true)
-                                .credentialsProvider(StaticCredentialsProvider.create(
-                                                AwsBasicCredentials.create(accessKey, secretKey)));
+                                .httpClientBuilder(serviceDefaults -> httpClientBuilder
+                                                .buildWithDefaults(httpOptions(maxConnections).merge(serviceDefaults)))
+                                .overrideConfiguration(overrideConfiguration(connectionPoolMetrics, s3RequestMetrics)
+                                                .toBuilder()
+                                                // Registered after the metrics so queueing shows up in s3.client.requests.
+                                                .addExecutionInterceptor(s3ConcurrencyLimiter)
+                                                .build())
+                                .credentialsProvider(awsCredentialsProvider);
+
+                if (endpoint != null && !endpoint.isEmpty()) {
+                        builder.endpointOverride(URI.create(endpoint));
+                }
+
+                return builder.build();
+        }
+
+        /**
+         * Non-blocking client for the opt-in async endpoints. "netty" uses the SDK's
+         * Netty NIO client with automatic multipart; "crt" uses the CRT-based S3
+         * client, which also parallelises large GETs and PUTs natively.
+         */
+        @Bean
+        @ConditionalOnProperty(name = "aws.s3.async.enabled", havingValue = "true")
+        public S3AsyncClient s3AsyncClient(AwsCredentialsProvider awsCredentialsProvider,
+                        ConnectionPoolMetrics connectionPoolMetrics, S3RequestMetrics s3RequestMetrics) {
+                if ("crt".equalsIgnoreCase(asyncClientType)) {
+                        var builder = S3AsyncClient.crtBuilder()
+                                        .region(Region.of(region))
+                                        .forcePathStyle(true)
+                                        .maxConcurrency(asyncMaxConcurrency)
+                                        .httpConfiguration(http -> http.connectionTimeout(connectionTimeout))
+                                        .retryConfiguration(retry -> retry.numRetries(maxRetries))
+                                        .credentialsProvider(awsCredentialsProvider);
+                        if (endpoint != null && !endpoint.isEmpty()) {
+                                builder.endpointOverride(URI.create(endpoint));
+                        }
+                        return builder.build();
+                }
+
+                var builder = S3AsyncClient.builder()
+                                .region(Region.of(region))
+                                .forcePathStyle(true)
+                                .multipartEnabled(true)
+                                .httpClientBuilder(serviceDefaults -> NettyNioAsyncHttpClient.builder()
+                                                .buildWithDefaults(httpOptions(asyncMaxConcurrency).merge(serviceDefaults)))
+                                .overrideConfiguration(overrideConfiguration(connectionPoolMetrics, s3RequestMetrics))
+                                .credentialsProvider(awsCredentialsProvider);
 
                 if (endpoint != null && !endpoint.isEmpty()) {
-                        builder.endpointOverride(java.net.URI.create(endpoint));
+                        builder.endpointOverride(URI.create(endpoint));
                 }
 
                 return builder.build();
         }
 
         @Bean
-        public S3Presigner s3Presigner() {
+        public S3Presigner s3Presigner(AwsCredentialsProvider awsCredentialsProvider) {
                 var builder = S3Presigner.builder()
                                 .region(Region.of(region))
                                 .serviceConfiguration(S3Configuration.builder()
                                                 .pathStyleAccessEnabled(true)
                                                 .build())
-                                .credentialsProvider(StaticCredentialsProvider.create(
-                                                AwsBasicCredentials.create(accessKey, secretKey)));
+                                .credentialsProvider(awsCredentialsProvider);
 
                 if (endpoint != null && !endpoint.isEmpty()) {
-                        builder.endpointOverride(java.net.URI.create(endpoint));
+                        builder.endpointOverride(URI.create(endpoint));
                 }
 
                 return builder.build();
         }
+
+        /**
+         * "apache" is the tuned default. "url-connection" and "crt" are looked up
+         * through the SDK's HTTP service SPI, so their artifacts
+         * (url-connection-client / aws-crt-client) only need to be on the runtime
+         * classpath when selected.
+         */
+        private SdkHttpClient.Builder<?> syncHttpClientBuilder() {
+                return switch (httpClientType.toLowerCase()) {
+                        case "apache" -> ApacheHttpClient.builder();
+                        case "url-connection" -> httpServiceBuilder(
+                                        "software.amazon.awssdk.http.urlconnection.UrlConnectionSdkHttpService");
+                        case "crt" -> httpServiceBuilder("software.amazon.awssdk.http.crt.AwsCrtSdkHttpService");
+                        default -> throw new IllegalArgumentException(
+                                        "Unsupported aws.s3.http.client: " + httpClientType);
+                };
+        }
+
+        private static SdkHttpClient.Builder<?> httpServiceBuilder(String serviceClass) {
+                return ServiceLoader.load(SdkHttpService.class).stream()
+                                .filter(provider -> provider.type().getName().equals(serviceClass))
+                                .findFirst()
+                                .map(provider -> provider.get().createHttpClientBuilder())
+                                .orElseThrow(() -> new IllegalStateException(serviceClass
+                                                + " is not on the classpath; add the matching AWS SDK HTTP client dependency"));
+        }
+
+        /**
+         * Pool and socket settings in the SDK's client-neutral form, so the same
+         * properties apply whichever HTTP client implementation is selected.
+         */
+        private AttributeMap httpOptions(int maxConcurrency) {
+                return AttributeMap.builder()
+                                .put(SdkHttpConfigurationOption.MAX_CONNECTIONS, maxConcurrency)
+                                .put(SdkHttpConfigurationOption.CONNECTION_ACQUIRE_TIMEOUT, connectionAcquisitionTimeout)
+                                .put(SdkHttpConfigurationOption.CONNECTION_TIMEOUT, connectionTimeout)
+                                .put(SdkHttpConfigurationOption.READ_TIMEOUT, socketTimeout)
+                                .put(SdkHttpConfigurationOption.WRITE_TIMEOUT, socketTimeout)
+                                .put(SdkHttpConfigurationOption.CONNECTION_TIME_TO_LIVE, connectionTimeToLive)
+                                .put(SdkHttpConfigurationOption.CONNECTION_MAX_IDLE_TIMEOUT, connectionMaxIdleTime)
+                                .put(SdkHttpConfigurationOption.REAP_IDLE_CONNECTIONS, useIdleConnectionReaper)
+                                .put(SdkHttpConfigurationOption.TCP_KEEPALIVE, tcpKeepAlive)
+                                .build();
+        }
+
+        private ClientOverrideConfiguration overrideConfiguration(ConnectionPoolMetrics connectionPoolMetrics,
+                        S3RequestMetrics s3RequestMetrics) {
+                return ClientOverrideConfiguration.builder()
+                                .retryPolicy(RetryPolicy.builder(RetryMode.STANDARD)
+                                                .numRetries(maxRetries)
+                                                .backoffStrategy(FullJitterBackoffStrategy.builder()
+                                                                .baseDelay(retryBaseDelay)
+                                                                .maxBackoffTime(maxBackoff)
+                                                                .build())
+                                                .throttlingBackoffStrategy(EqualJitterBackoffStrategy.builder()
+                                                                .baseDelay(throttlingBaseDelay)
+                                                                .maxBackoffTime(maxBackoff)
+                                                                .build())
+                                                .build())
+                                .addMetricPublisher(connectionPoolMetrics)
+                                .addExecutionInterceptor(s3RequestMetrics)
+                                .build();
+        }
 }
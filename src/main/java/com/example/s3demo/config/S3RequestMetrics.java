@@ -0,0 +1,124 @@
+package com.example.s3demo.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.awscore.exception.AwsServiceException;
+import software.amazon.awssdk.core.interceptor.Context;
+import software.amazon.awssdk.core.interceptor.ExecutionAttribute;
+import software.amazon.awssdk.core.interceptor.ExecutionAttributes;
+import software.amazon.awssdk.core.interceptor.ExecutionInterceptor;
+import software.amazon.awssdk.core.interceptor.SdkExecutionAttribute;
+import software.amazon.awssdk.http.SdkHttpHeaders;
+import software.amazon.awssdk.http.SdkHttpMethod;
+import software.amazon.awssdk.http.SdkHttpResponse;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SDK {@link ExecutionInterceptor} that times every S3 API call as seen by the
+ * caller, retries and backoff included:
+ * <ul>
+ *   <li>{@code s3.client.requests} timer tagged by operation, final HTTP status
+ *       and S3 error code ("none" on success)</li>
+ *   <li>{@code s3.client.retries} counter of attempts beyond the first</li>
+ *   <li>{@code s3.client.bytes} counter of payload bytes sent and received,
+ *       taken from the request and response lengths of each attempt</li>
+ * </ul>
+ * A streaming GetObject completes when the response headers arrive, so its
+ * timer is time-to-first-byte; the body read is covered by the transfer
+ * engines' own meters. Throughput is {@code rate(s3_client_bytes_total)}.
+ */
+@Component
+public class S3RequestMetrics implements ExecutionInterceptor {
+
+        private static final ExecutionAttribute<Long> START = new ExecutionAttribute<>("S3RequestMetrics.start");
+        private static final ExecutionAttribute<Integer> ATTEMPTS = new ExecutionAttribute<>("S3RequestMetrics.attempts");
+
+        private final MeterRegistry meterRegistry;
+
+        public S3RequestMetrics(MeterRegistry meterRegistry) {
+                this.meterRegistry = meterRegistry;
+        }
+
+        @Override
+        public void beforeExecution(Context.BeforeExecution context, ExecutionAttributes executionAttributes) {
+                executionAttributes.putAttribute(START, System.nanoTime());
+                executionAttributes.putAttribute(ATTEMPTS, 0);
+        }
+
+        @Override
+        public void beforeTransmission(Context.BeforeTransmission context, ExecutionAttributes executionAttributes) {
+                executionAttributes.putAttribute(ATTEMPTS, executionAttributes.getAttribute(ATTEMPTS) + 1);
+                bytes(executionAttributes, "sent", context.httpRequest());
+        }
+
+        @Override
+        public void afterTransmission(Context.AfterTransmission context, ExecutionAttributes executionAttributes) {
+                // HEAD and 304 responses carry the object's Content-Length without a body.
+                if (context.httpRequest().method() != SdkHttpMethod.HEAD && context.httpResponse().statusCode() != 304) {
+                        bytes(executionAttributes, "received", context.httpResponse());
+                }
+        }
+
+        @Override
+        public void afterExecution(Context.AfterExecution context, ExecutionAttributes executionAttributes) {
+                record(executionAttributes, context.httpResponse().statusCode(), "none");
+        }
+
+        @Override
+        public void onExecutionFailure(Context.FailedExecution context, ExecutionAttributes executionAttributes) {
+                Throwable failure = context.exception();
+                int status = context.httpResponse().map(SdkHttpResponse::statusCode).orElse(0);
+                String errorCode = failure instanceof AwsServiceException service && service.awsErrorDetails() != null
+                                ? service.awsErrorDetails().errorCode()
+                                : failure.getClass().getSimpleName();
+                record(executionAttributes, status, errorCode);
+        }
+
+        private void record(ExecutionAttributes executionAttributes, int status, String errorCode) {
+                Long start = executionAttributes.getAttribute(START);
+                if (start == null) {
+                        return;
+                }
+                String operation = operation(executionAttributes);
+                Timer.builder("s3.client.requests")
+                                .description("S3 API calls, including retries and backoff")
+                                .tag("operation", operation)
+                                .tag("status", status == 0 ? "none" : Integer.toString(status))
+                                .tag("error", errorCode != null ? errorCode : "unknown")
+                                .register(meterRegistry)
+                                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                int retries = executionAttributes.getAttribute(ATTEMPTS) - 1;
+                if (retries > 0) {
+                        Counter.builder("s3.client.retries")
+                                        .description("Request attempts beyond the first")
+                                        .tag("operation", operation)
+                                        .register(meterRegistry)
+                                        .increment(retries);
+                }
+        }
+
+        private void bytes(ExecutionAttributes executionAttributes, String direction, SdkHttpHeaders headers) {
+                // aws-chunked uploads carry the payload length separately from the framed body length.
+                Optional<String> length = headers.firstMatchingHeader("x-amz-decoded-content-length")
+                                .or(() -> headers.firstMatchingHeader("Content-Length"));
+                long bytes = length.map(Long::parseLong).orElse(0L);
+                if (bytes > 0) {
+                        Counter.builder("s3.client.bytes")
+                                        .description("Payload bytes sent to and received from S3")
+                                        .baseUnit("bytes")
+                                        .tag("operation", operation(executionAttributes))
+                                        .tag("direction", direction)
+                                        .register(meterRegistry)
+                                        .increment(bytes);
+                }
+        }
+
+        private static String operation(ExecutionAttributes executionAttributes) {
+                String operation = executionAttributes.getAttribute(SdkExecutionAttribute.OPERATION_NAME);
+                return operation != null ? operation : "unknown";
+        }
+}
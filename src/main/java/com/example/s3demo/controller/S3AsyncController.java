@@ -0,0 +1,125 @@
+package com.example.s3demo.controller;
+
+import com.example.s3demo.model.ObjectPage;
+import com.example.s3demo.service.CompressionCodec;
+import com.example.s3demo.service.S3AsyncService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Async variants of the core {@link S3Controller} endpoints. Each handler returns
+ * a {@link CompletableFuture}, so the servlet thread is released while the S3
+ * call is in flight.
+ */
+@RestController
+@RequestMapping("/api/s3/async")
+@ConditionalOnProperty(name = "aws.s3.async.enabled", havingValue = "true")
+public class S3AsyncController {
+
+    private final S3AsyncService s3AsyncService;
+
+    public S3AsyncController(S3AsyncService s3AsyncService) {
+        this.s3AsyncService = s3AsyncService;
+    }
+
+    // --- BUCKET ENDPOINTS ---
+
+    @PostMapping("/buckets/{name}")
+    public CompletableFuture<ResponseEntity<String>> createBucket(@PathVariable String name) {
+        return s3AsyncService.createBucket(name)
+                .thenApply(ignored -> ResponseEntity.ok("Bucket created: " + name));
+    }
+
+    @GetMapping("/buckets")
+    public CompletableFuture<ResponseEntity<List<String>>> listBuckets() {
+        return s3AsyncService.listBuckets().thenApply(ResponseEntity::ok);
+    }
+
+    @DeleteMapping("/buckets/{name}")
+    public CompletableFuture<ResponseEntity<String>> deleteBucket(@PathVariable String name) {
+        return s3AsyncService.deleteBucket(name)
+                .thenApply(ignored -> ResponseEntity.ok("Bucket deleted: " + name));
+    }
+
+    // --- OBJECT ENDPOINTS ---
+
+    @PostMapping("/upload")
+    public CompletableFuture<ResponseEntity<String>> upload(@RequestParam String key,
+            @RequestParam MultipartFile file) throws IOException {
+        return s3AsyncService.uploadObject(key, file).thenApply(ResponseEntity::ok);
+    }
+
+    /**
+     * Streams the object, handling objects stored compressed as
+     * {@link S3Controller#download} does: passed through with their
+     * {@code Content-Encoding} when Accept-Encoding admits the codec, otherwise
+     * decoded, with any Range ignored.
+     */
+    @GetMapping("/download/{key}")
+    public CompletableFuture<ResponseEntity<StreamingResponseBody>> download(@PathVariable String key,
+            @RequestHeader(value = HttpHeaders.RANGE, required = false) String range,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return s3AsyncService.openObject(key, range).thenCompose(object -> {
+            Optional<CompressionCodec> codec = s3AsyncService.storedCodec(object.response());
+            if (codec.isEmpty() || codec.get().isAcceptedBy(acceptEncoding)) {
+                return CompletableFuture.completedFuture(stored(object, codec));
+            }
+            if (range == null) {
+                return CompletableFuture.completedFuture(decoded(object, codec.get()));
+            }
+            // A byte range of the compressed form cannot be decoded on its own.
+            object.abort();
+            return s3AsyncService.openObject(key, null).thenApply(whole -> decoded(whole, codec.get()));
+        });
+    }
+
+    private static ResponseEntity<StreamingResponseBody> stored(ResponseInputStream<GetObjectResponse> object,
+            Optional<CompressionCodec> codec) {
+        GetObjectResponse response = object.response();
+        StreamingResponseBody body = out -> {
+            try (object) {
+                object.transferTo(out);
+            }
+        };
+        return ResponseEntity.status(response.contentRange() != null ? HttpStatus.PARTIAL_CONTENT : HttpStatus.OK)
+                .headers(S3Controller.storedHeaders(response, codec))
+                .body(body);
+    }
+
+    private ResponseEntity<StreamingResponseBody> decoded(ResponseInputStream<GetObjectResponse> object,
+            CompressionCodec codec) {
+        StreamingResponseBody body = out -> {
+            try (object; InputStream in = s3AsyncService.decompress(object, codec)) {
+                in.transferTo(out);
+            }
+        };
+        return ResponseEntity.ok().headers(S3Controller.decodedHeaders(object.response())).body(body);
+    }
+
+    @GetMapping("/objects")
+    public CompletableFuture<ResponseEntity<ObjectPage>> listObjects(@RequestParam(required = false) String prefix,
+            @RequestParam(required = false) String delimiter,
+            @RequestParam(required = false) Integer maxKeys,
+            @RequestParam(required = false) String continuationToken) {
+        return s3AsyncService.listObjects(prefix, delimiter, maxKeys, continuationToken).thenApply(ResponseEntity::ok);
+    }
+
+    @DeleteMapping("/objects/{key}")
+    public CompletableFuture<ResponseEntity<String>> deleteObject(@PathVariable String key) {
+        return s3AsyncService.deleteObject(key)
+                .thenApply(ignored -> ResponseEntity.ok("Object deleted: " + key));
+    }
+}
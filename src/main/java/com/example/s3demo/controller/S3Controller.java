@@ -1,23 +1,67 @@
 package com.example.s3demo.controller;
 
+import com.example.s3demo.config.ConcurrencyLimitExceededException;
+import com.example.s3demo.model.BulkDeleteRequest;
+import com.example.s3demo.model.CopyOutcome;
+import com.example.s3demo.model.DeleteOutcome;
+import com.example.s3demo.model.ObjectPage;
+import com.example.s3demo.model.ObjectSummary;
+import com.example.s3demo.model.PresignBatchRequest;
+import com.example.s3demo.model.PresignedUrl;
+import com.example.s3demo.model.ResumableUpload;
+import com.example.s3demo.model.UploadOutcome;
+import com.example.s3demo.model.UploadedPart;
+import com.example.s3demo.model.VerifyOutcome;
+import com.example.s3demo.model.VersionPage;
+import com.example.s3demo.service.BulkUploader.ArchiveFormat;
+import com.example.s3demo.service.CompressionCodec;
+import com.example.s3demo.service.ObjectCompressor;
 import com.example.s3demo.service.S3Service;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
-import software.amazon.awssdk.services.s3.model.ObjectVersion;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
 
 @RestController
 @RequestMapping("/api/s3")
 public class S3Controller {
 
+    static final int MAX_PRESIGN_BATCH = 1000;
+    static final int MAX_UPLOAD_PARTS = 10_000;
+
     private final S3Service s3Service;
+    private final ObjectMapper objectMapper;
 
-    public S3Controller(S3Service s3Service) {
+    public S3Controller(S3Service s3Service, ObjectMapper objectMapper) {
         this.s3Service = s3Service;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Load shed by the S3 concurrency limiter: nothing was sent to S3, so the
+     * client can safely retry once the prefix has drained.
+     */
+    @ExceptionHandler(ConcurrencyLimitExceededException.class)
+    public ResponseEntity<String> tooManyRequests(ConcurrencyLimitExceededException e) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(e.retryAfter().toSeconds()))
+                .body(e.getMessage());
     }
 
     // --- BUCKET ENDPOINTS ---
@@ -39,6 +83,15 @@ public class S3Controller {
         return ResponseEntity.ok("Bucket deleted: " + name);
     }
 
+    /**
+     * Empties the bucket, including every object version, then deletes it.
+     * Per-key results stream back as NDJSON.
+     */
+    @DeleteMapping(value = "/buckets/{name}", params = "recursive=true", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> deleteBucketRecursively(@PathVariable String name) {
+        return ndjson(DeleteOutcome.class, sink -> s3Service.deleteBucketRecursively(name, sink));
+    }
+
     // --- OBJECT ENDPOINTS ---
 
     @PostMapping("/upload")
@@ -47,14 +100,239 @@ public class S3Controller {
         return ResponseEntity.ok(s3Service.uploadObject(key, file));
     }
 
+    /**
+     * Uploads every {@code files} part as {@code prefix + filename} and returns
+     * a per-file result manifest.
+     */
+    @PostMapping("/upload/bulk")
+    public ResponseEntity<List<UploadOutcome>> bulkUpload(@RequestParam(defaultValue = "") String prefix,
+            @RequestParam List<MultipartFile> files) throws IOException {
+        return ResponseEntity.ok(s3Service.uploadObjects(prefix, files));
+    }
+
+    /**
+     * Expands a zip, tar or tar.gz request body as it streams in and uploads
+     * each file entry under {@code prefix}. The format comes from the
+     * {@code format} parameter or, failing that, the Content-Type.
+     */
+    @PostMapping("/upload/archive")
+    public ResponseEntity<List<UploadOutcome>> archiveUpload(@RequestParam(defaultValue = "") String prefix,
+            @RequestParam(required = false) String format,
+            @RequestHeader(value = HttpHeaders.CONTENT_TYPE, required = false) String contentType,
+            InputStream body) throws IOException {
+        Optional<ArchiveFormat> archiveFormat = ArchiveFormat.of(format != null ? format : contentType);
+        if (archiveFormat.isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(s3Service.uploadArchive(prefix, body, archiveFormat.get()));
+    }
+
+    /**
+     * Streams the object. An object stored compressed goes out as stored, with
+     * its {@code Content-Encoding}, when the client's Accept-Encoding admits the
+     * codec; otherwise it is decoded on the fly, and a Range on it is ignored in
+     * favour of the whole decoded body.
+     */
     @GetMapping("/download/{key}")
-    public ResponseEntity<byte[]> download(@PathVariable String key) {
-        return ResponseEntity.ok(s3Service.downloadObject(key));
+    public ResponseEntity<StreamingResponseBody> download(@PathVariable String key,
+            @RequestHeader(value = HttpHeaders.RANGE, required = false) String range,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        ResponseInputStream<GetObjectResponse> object = s3Service.openObject(key, range);
+        Optional<CompressionCodec> codec = s3Service.storedCodec(object.response());
+        if (codec.isPresent() && !codec.get().isAcceptedBy(acceptEncoding)) {
+            return decoded(key, range, object, codec.get());
+        }
+
+        GetObjectResponse response = object.response();
+        // Large objects switch to parallel ranged GETs here, sized by this GET rather than a HEAD.
+        StreamingResponseBody body = out -> s3Service.downloadObject(key, object, out);
+        return ResponseEntity.status(response.contentRange() != null ? HttpStatus.PARTIAL_CONTENT : HttpStatus.OK)
+                .headers(storedHeaders(response, codec))
+                .body(body);
+    }
+
+    private ResponseEntity<StreamingResponseBody> decoded(String key, String range,
+            ResponseInputStream<GetObjectResponse> object, CompressionCodec codec) {
+        if (range != null) {
+            // A byte range of the compressed form cannot be decoded on its own.
+            object.abort();
+            object = s3Service.openObject(key, null);
+        }
+        ResponseInputStream<GetObjectResponse> stored = object;
+        HttpHeaders headers = decodedHeaders(stored.response());
+        StreamingResponseBody body = out -> {
+            try (stored; InputStream in = s3Service.decompress(stored, codec)) {
+                in.transferTo(out);
+            }
+        };
+        return ResponseEntity.ok().headers(headers).body(body);
+    }
+
+    /**
+     * Streams the producer's batches as newline-delimited JSON, flushing after
+     * each batch so clients see results while the operation is still running.
+     */
+    private <T> ResponseEntity<StreamingResponseBody> ndjson(Class<T> type, BatchProducer<T> producer) {
+        StreamingResponseBody body = out -> {
+            try (SequenceWriter lines = objectMapper.writerFor(type)
+                    .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                    .withRootValueSeparator("\n")
+                    .writeValues(out)) {
+                producer.produce(batch -> {
+                    try {
+                        lines.writeAll(batch).flush();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    @FunctionalInterface
+    private interface BatchProducer<T> {
+        void produce(Consumer<List<T>> sink) throws IOException;
+    }
+
+    /**
+     * Headers for the object's bytes as stored, labelled with the codec they
+     * are compressed with, if any.
+     */
+    static HttpHeaders storedHeaders(GetObjectResponse response, Optional<CompressionCodec> codec) {
+        HttpHeaders headers = objectHeaders(response.contentType(), response.contentLength(), response.eTag());
+        codec.ifPresent(stored -> {
+            headers.set(HttpHeaders.CONTENT_ENCODING, stored.contentEncoding());
+            headers.setVary(List.of(HttpHeaders.ACCEPT_ENCODING));
+        });
+        if (response.contentRange() != null) {
+            headers.set(HttpHeaders.CONTENT_RANGE, response.contentRange());
+        }
+        return headers;
+    }
+
+    /**
+     * Headers for a compressed object decoded on the fly: the original length
+     * when it was recorded, and no ranges.
+     */
+    static HttpHeaders decodedHeaders(GetObjectResponse response) {
+        // The decoded body is a different representation of the stored bytes, so its ETag is weak.
+        HttpHeaders headers = objectHeaders(response.contentType(),
+                ObjectCompressor.uncompressedLength(response.metadata()),
+                response.eTag() != null ? "W/" + response.eTag() : null);
+        headers.set(HttpHeaders.ACCEPT_RANGES, "none");
+        headers.setVary(List.of(HttpHeaders.ACCEPT_ENCODING));
+        return headers;
+    }
+
+    static HttpHeaders objectHeaders(String contentType, Long contentLength, String eTag) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+        headers.setContentType(MediaType.parseMediaType(
+                contentType != null ? contentType : MediaType.APPLICATION_OCTET_STREAM_VALUE));
+        if (contentLength != null) {
+            headers.setContentLength(contentLength);
+        }
+        if (eTag != null) {
+            headers.setETag(eTag);
+        }
+        return headers;
     }
 
     @GetMapping("/objects")
-    public ResponseEntity<List<String>> listObjects() {
-        return ResponseEntity.ok(s3Service.listObjects());
+    public ResponseEntity<ObjectPage> listObjects(@RequestParam(required = false) String prefix,
+            @RequestParam(required = false) String delimiter,
+            @RequestParam(required = false) Integer maxKeys,
+            @RequestParam(required = false) String continuationToken) {
+        return ResponseEntity.ok(s3Service.listObjects(prefix, delimiter, maxKeys, continuationToken));
+    }
+
+    /**
+     * Full listing as NDJSON, one object per line, flushed page by page.
+     */
+    @GetMapping(value = "/objects/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamObjects(@RequestParam(required = false) String prefix,
+            @RequestParam(defaultValue = "false") boolean parallel) {
+        return ndjson(ObjectSummary.class, sink -> s3Service.streamObjects(prefix, parallel, sink));
+    }
+
+    /**
+     * Size, ETag and last-modified of one object; 404 if it does not exist.
+     */
+    @GetMapping("/objects/metadata")
+    public ResponseEntity<ObjectSummary> objectMetadata(@RequestParam String key) {
+        return ResponseEntity.of(s3Service.findObject(key));
+    }
+
+    /**
+     * Re-lists {@code prefix} into the metadata index so it is served from
+     * memory from then on. 400 when the index is disabled.
+     */
+    @PostMapping("/index/reconcile")
+    public ResponseEntity<String> reconcileIndex(@RequestParam(defaultValue = "") String prefix) throws IOException {
+        if (!s3Service.isMetadataIndexEnabled()) {
+            return ResponseEntity.badRequest().build();
+        }
+        s3Service.reconcileIndex(prefix);
+        return ResponseEntity.ok("Index reconciled: " + prefix);
+    }
+
+    /**
+     * Bulk delete by key list or prefix, streaming one NDJSON result per key.
+     */
+    @PostMapping(value = "/objects/delete", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> deleteObjects(@RequestBody BulkDeleteRequest request) {
+        boolean hasKeys = request.keys() != null && !request.keys().isEmpty();
+        boolean hasPrefix = request.prefix() != null && !request.prefix().isEmpty();
+        if (hasKeys == hasPrefix) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (hasKeys) {
+            return ndjson(DeleteOutcome.class, sink -> s3Service.deleteObjects(request.keys(), sink));
+        }
+        return ndjson(DeleteOutcome.class, sink -> s3Service.deletePrefix(request.prefix(), sink));
+    }
+
+    /**
+     * Server-side copy within S3; the object's bytes never pass through this
+     * service. Objects above the multipart threshold are copied in parallel parts.
+     */
+    @PostMapping("/objects/copy")
+    public ResponseEntity<String> copyObject(@RequestParam String sourceKey, @RequestParam String destinationKey,
+            @RequestParam(required = false) String destinationBucket) throws IOException {
+        String eTag = s3Service.copyObject(sourceKey, destinationKey, destinationBucket);
+        return ResponseEntity.ok().eTag(eTag).body("Object copied: " + sourceKey + " -> " + destinationKey);
+    }
+
+    @PostMapping("/objects/move")
+    public ResponseEntity<String> moveObject(@RequestParam String sourceKey, @RequestParam String destinationKey,
+            @RequestParam(required = false) String destinationBucket) throws IOException {
+        String eTag = s3Service.moveObject(sourceKey, destinationKey, destinationBucket);
+        return ResponseEntity.ok().eTag(eTag).body("Object moved: " + sourceKey + " -> " + destinationKey);
+    }
+
+    /**
+     * Copies or moves every object under {@code sourcePrefix}, streaming one
+     * NDJSON result per object as it completes.
+     */
+    @PostMapping(value = "/objects/copy-prefix", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> copyPrefix(@RequestParam String sourcePrefix,
+            @RequestParam String destinationPrefix, @RequestParam(required = false) String destinationBucket,
+            @RequestParam(defaultValue = "false") boolean move) {
+        if (!s3Service.isValidPrefixCopy(sourcePrefix, destinationPrefix, destinationBucket)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ndjson(CopyOutcome.class,
+                sink -> s3Service.copyPrefix(sourcePrefix, destinationPrefix, destinationBucket, move, sink));
+    }
+
+    /**
+     * Checks every object under {@code prefix} against its stored checksums,
+     * streaming one NDJSON result per object as it completes.
+     */
+    @PostMapping(value = "/objects/verify", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> verifyPrefix(@RequestParam(defaultValue = "") String prefix) {
+        return ndjson(VerifyOutcome.class, sink -> s3Service.verifyPrefix(prefix, sink));
     }
 
     @DeleteMapping("/objects/{key}")
@@ -66,8 +344,9 @@ public class S3Controller {
     // --- ADVANCED CONCEPTS ---
 
     @GetMapping("/presigned-download/{key}")
-    public ResponseEntity<String> getPresignedDownload(@PathVariable String key) {
-        return ResponseEntity.ok(s3Service.generatePresignedDownloadUrl(key));
+    public ResponseEntity<String> getPresignedDownload(@PathVariable String key,
+            @RequestParam(required = false) String versionId) {
+        return ResponseEntity.ok(s3Service.generatePresignedDownloadUrl(key, versionId));
     }
 
     @GetMapping("/presigned-upload/{key}")
@@ -75,15 +354,35 @@ public class S3Controller {
         return ResponseEntity.ok(s3Service.generatePresignedUploadUrl(key));
     }
 
+    /**
+     * Presigns one method ("GET" or "PUT") for up to {@value #MAX_PRESIGN_BATCH}
+     * keys in a single call.
+     */
+    @PostMapping("/presigned/batch")
+    public ResponseEntity<List<PresignedUrl>> getPresignedBatch(@RequestBody PresignBatchRequest request) {
+        String method = request.method() != null ? request.method().toUpperCase() : "GET";
+        if (!method.equals("GET") && !method.equals("PUT")
+                || request.keys() == null || request.keys().isEmpty() || request.keys().size() > MAX_PRESIGN_BATCH) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(s3Service.generatePresignedUrls(method, request.keys()));
+    }
+
     @PostMapping("/versioning/{bucketName}")
     public ResponseEntity<String> enableVersioning(@PathVariable String bucketName) {
         s3Service.enableVersioning(bucketName);
         return ResponseEntity.ok("Versioning enabled for " + bucketName);
     }
 
+    /**
+     * One page of versions. Pass the returned markers back to fetch the next page.
+     */
     @GetMapping("/versions/{key}")
-    public ResponseEntity<List<ObjectVersion>> listVersions(@PathVariable String key) {
-        return ResponseEntity.ok(s3Service.listObjectVersions(key));
+    public ResponseEntity<VersionPage> listVersions(@PathVariable String key,
+            @RequestParam(required = false) Integer maxKeys,
+            @RequestParam(required = false) String keyMarker,
+            @RequestParam(required = false) String versionIdMarker) {
+        return ResponseEntity.ok(s3Service.listObjectVersions(key, maxKeys, keyMarker, versionIdMarker));
     }
 
     @PostMapping("/multipart")
@@ -92,6 +391,50 @@ public class S3Controller {
         return ResponseEntity.ok(s3Service.multipartUpload(key, file));
     }
 
+    /**
+     * Starts a resumable upload. Parts are then PUT individually, in any order
+     * and in parallel, and survive dropped connections and app restarts.
+     */
+    @PostMapping("/uploads")
+    public ResponseEntity<ResumableUpload> initiateUpload(@RequestParam String key,
+            @RequestParam(required = false) String contentType) {
+        return ResponseEntity.ok(s3Service.initiateResumableUpload(key, contentType));
+    }
+
+    /**
+     * Streams the raw request body to S3 as one part. Parts other than the last
+     * must be at least 5MB; sending a part number again replaces it.
+     */
+    @PutMapping("/uploads/{uploadId}/parts/{partNumber}")
+    public ResponseEntity<UploadedPart> uploadPart(@PathVariable String uploadId, @PathVariable int partNumber,
+            @RequestHeader(HttpHeaders.CONTENT_LENGTH) long contentLength, InputStream body) {
+        if (partNumber < 1 || partNumber > MAX_UPLOAD_PARTS) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.of(s3Service.uploadPart(uploadId, partNumber, body, contentLength));
+    }
+
+    @GetMapping("/uploads/{uploadId}")
+    public ResponseEntity<ResumableUpload> getUpload(@PathVariable String uploadId) {
+        return ResponseEntity.of(s3Service.getResumableUpload(uploadId));
+    }
+
+    @PostMapping("/uploads/{uploadId}/complete")
+    public ResponseEntity<ResumableUpload> completeUpload(@PathVariable String uploadId) {
+        Optional<ResumableUpload> upload = s3Service.getResumableUpload(uploadId);
+        if (upload.isPresent() && upload.get().parts().isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.of(s3Service.completeResumableUpload(uploadId));
+    }
+
+    @DeleteMapping("/uploads/{uploadId}")
+    public ResponseEntity<String> abortUpload(@PathVariable String uploadId) {
+        return s3Service.abortResumableUpload(uploadId)
+                ? ResponseEntity.ok("Upload aborted: " + uploadId)
+                : ResponseEntity.notFound().build();
+    }
+
     @PostMapping("/lifecycle/{bucketName}")
     public ResponseEntity<String> setLifecycle(@PathVariable String bucketName) {
         s3Service.setLifecycleConfiguration(bucketName);
@@ -0,0 +1,9 @@
+package com.example.s3demo.model;
+
+import java.util.List;
+
+/**
+ * Body of a bulk delete: either an explicit list of keys or a prefix to clear.
+ */
+public record BulkDeleteRequest(List<String> keys, String prefix) {
+}
@@ -0,0 +1,18 @@
+package com.example.s3demo.model;
+
+/**
+ * Per-object result of a server-side copy or move. {@code errorCode} and
+ * {@code errorMessage} are null when the object was copied.
+ */
+public record CopyOutcome(String sourceKey, String destinationKey, long size, boolean copied, String eTag,
+        String errorCode, String errorMessage) {
+
+    public static CopyOutcome copied(String sourceKey, String destinationKey, long size, String eTag) {
+        return new CopyOutcome(sourceKey, destinationKey, size, true, eTag, null, null);
+    }
+
+    public static CopyOutcome failed(String sourceKey, String destinationKey, long size, String errorCode,
+            String errorMessage) {
+        return new CopyOutcome(sourceKey, destinationKey, size, false, null, errorCode, errorMessage);
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.s3demo.model;
+
+/**
+ * Per-key result of a bulk delete. {@code errorCode} and {@code errorMessage}
+ * are null when the key was deleted.
+ */
+public record DeleteOutcome(String key, String versionId, boolean deleted, String errorCode, String errorMessage) {
+
+    public static DeleteOutcome deleted(String key, String versionId) {
+        return new DeleteOutcome(key, versionId, true, null, null);
+    }
+
+    public static DeleteOutcome failed(String key, String versionId, String errorCode, String errorMessage) {
+        return new DeleteOutcome(key, versionId, false, errorCode, errorMessage);
+    }
+}
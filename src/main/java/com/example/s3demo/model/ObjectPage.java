@@ -0,0 +1,11 @@
+package com.example.s3demo.model;
+
+import java.util.List;
+
+/**
+ * One page of a ListObjectsV2 call. Pass {@code nextContinuationToken} back to
+ * fetch the following page; it is null once the listing is exhausted.
+ */
+public record ObjectPage(List<ObjectSummary> objects, List<String> commonPrefixes, String nextContinuationToken,
+        boolean truncated) {
+}
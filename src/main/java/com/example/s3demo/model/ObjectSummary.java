@@ -0,0 +1,16 @@
+package com.example.s3demo.model;
+
+import software.amazon.awssdk.services.s3.model.S3Object;
+
+import java.time.Instant;
+
+/**
+ * JSON-friendly view of an {@link S3Object} listing entry.
+ */
+public record ObjectSummary(String key, Long size, String eTag, Instant lastModified, String storageClass) {
+
+    public static ObjectSummary from(S3Object object) {
+        return new ObjectSummary(object.key(), object.size(), object.eTag(), object.lastModified(),
+                object.storageClassAsString());
+    }
+}
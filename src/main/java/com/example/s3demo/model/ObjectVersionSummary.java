@@ -0,0 +1,17 @@
+package com.example.s3demo.model;
+
+import software.amazon.awssdk.services.s3.model.ObjectVersion;
+
+import java.time.Instant;
+
+/**
+ * JSON-friendly view of an {@link ObjectVersion} listing entry.
+ */
+public record ObjectVersionSummary(String key, String versionId, Long size, String eTag, Instant lastModified,
+        boolean latest) {
+
+    public static ObjectVersionSummary from(ObjectVersion version) {
+        return new ObjectVersionSummary(version.key(), version.versionId(), version.size(), version.eTag(),
+                version.lastModified(), Boolean.TRUE.equals(version.isLatest()));
+    }
+}
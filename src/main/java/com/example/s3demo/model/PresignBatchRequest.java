@@ -0,0 +1,10 @@
+package com.example.s3demo.model;
+
+import java.util.List;
+
+/**
+ * Body of a batch presign call: one HTTP method ("GET" or "PUT") applied to
+ * every key.
+ */
+public record PresignBatchRequest(String method, List<String> keys) {
+}
@@ -0,0 +1,9 @@
+package com.example.s3demo.model;
+
+import java.time.Instant;
+
+/**
+ * A presigned URL and the instant its signature stops being accepted.
+ */
+public record PresignedUrl(String key, String method, String url, Instant expiresAt) {
+}
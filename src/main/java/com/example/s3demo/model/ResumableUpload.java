@@ -0,0 +1,12 @@
+package com.example.s3demo.model;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Checkpointed state of a resumable multipart upload: where it is going and
+ * which parts S3 has already acknowledged, ordered by part number.
+ */
+public record ResumableUpload(String uploadId, String bucket, String key, String contentType,
+        Instant createdAt, Instant updatedAt, List<UploadedPart> parts) {
+}
@@ -0,0 +1,18 @@
+package com.example.s3demo.model;
+
+/**
+ * Per-object result of a bulk upload. {@code eTag} is null for entries that
+ * went through multipart upload; {@code errorCode} and {@code errorMessage} are
+ * null when the object was uploaded.
+ */
+public record UploadOutcome(String key, long size, boolean uploaded, String eTag, String errorCode,
+        String errorMessage) {
+
+    public static UploadOutcome uploaded(String key, long size, String eTag) {
+        return new UploadOutcome(key, size, true, eTag, null, null);
+    }
+
+    public static UploadOutcome failed(String key, long size, String errorCode, String errorMessage) {
+        return new UploadOutcome(key, size, false, null, errorCode, errorMessage);
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.s3demo.model;
+
+/**
+ * One part of a resumable multipart upload as acknowledged by S3.
+ */
+public record UploadedPart(int partNumber, String eTag, long size) {
+}
@@ -0,0 +1,19 @@
+package com.example.s3demo.model;
+
+/**
+ * Per-object result of a checksum verification. {@code parts} is the number
+ * of part checksums checked, or 0 when the whole-object checksum was used;
+ * {@code errorCode} and {@code errorMessage} are null when the object verified.
+ */
+public record VerifyOutcome(String key, long size, String algorithm, int parts, boolean verified, String errorCode,
+        String errorMessage) {
+
+    public static VerifyOutcome verified(String key, long size, String algorithm, int parts) {
+        return new VerifyOutcome(key, size, algorithm, parts, true, null, null);
+    }
+
+    public static VerifyOutcome failed(String key, long size, String algorithm, String errorCode,
+            String errorMessage) {
+        return new VerifyOutcome(key, size, algorithm, 0, false, errorCode, errorMessage);
+    }
+}
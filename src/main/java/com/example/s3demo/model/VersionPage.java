@@ -0,0 +1,12 @@
+package com.example.s3demo.model;
+
+import java.util.List;
+
+/**
+ * One page of a ListObjectVersions call. Pass {@code nextKeyMarker} and
+ * {@code nextVersionIdMarker} back to fetch the following page; both are null
+ * once the listing is exhausted.
+ */
+public record VersionPage(List<ObjectVersionSummary> versions, String nextKeyMarker, String nextVersionIdMarker,
+        boolean truncated) {
+}
@@ -0,0 +1,148 @@
+package com.example.s3demo.service;
+
+import com.example.s3demo.model.DeleteOutcome;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Bulk deletes through DeleteObjects. Keys are grouped into 1,000-key batches
+ * (the API maximum) and up to {@code concurrency} batches run at once. The
+ * producer blocks while that many are in flight, so a prefix of any size is
+ * deleted with one page of keys buffered per batch. Results are handed to the
+ * sink one batch at a time.
+ */
+@Component
+public class BatchDeleter {
+
+        static final int MAX_BATCH_SIZE = 1000;
+
+        private final S3Client s3Client;
+        private final int concurrency;
+        private final ExecutorService executor;
+
+        public BatchDeleter(S3Client s3Client, @Value("${aws.s3.delete.concurrency:8}") int concurrency) {
+                this.s3Client = s3Client;
+                this.concurrency = Math.max(1, concurrency);
+                this.executor = Executors.newFixedThreadPool(this.concurrency, Transfers.daemonThreads("s3-delete-"));
+        }
+
+        public void deleteKeys(String bucket, List<String> keys, Consumer<List<DeleteOutcome>> sink) throws IOException {
+                delete(bucket, keys.stream().map(key -> ObjectIdentifier.builder().key(key).build()).iterator(), sink);
+        }
+
+        public void deletePrefix(String bucket, String prefix, Consumer<List<DeleteOutcome>> sink) throws IOException {
+                ListObjectsV2Request request = ListObjectsV2Request.builder()
+                                .bucket(bucket)
+                                .prefix(prefix)
+                                .build();
+                delete(bucket, s3Client.listObjectsV2Paginator(request).contents().stream()
+                                .map(object -> ObjectIdentifier.builder().key(object.key()).build())
+                                .iterator(), sink);
+        }
+
+        /**
+         * Deletes every object version and delete marker in the bucket, leaving it
+         * empty for DeleteBucket even when versioning has been enabled.
+         */
+        public void deleteAllVersions(String bucket, Consumer<List<DeleteOutcome>> sink) throws IOException {
+                ListObjectVersionsRequest request = ListObjectVersionsRequest.builder().bucket(bucket).build();
+                delete(bucket, s3Client.listObjectVersionsPaginator(request).stream()
+                                .flatMap(page -> Stream.concat(
+                                                page.versions().stream().map(v -> identifier(v.key(), v.versionId())),
+                                                page.deleteMarkers().stream().map(m -> identifier(m.key(), m.versionId()))))
+                                .iterator(), sink);
+        }
+
+        private void delete(String bucket, Iterator<ObjectIdentifier> identifiers, Consumer<List<DeleteOutcome>> sink)
+                        throws IOException {
+                Object lock = new Object();
+                Consumer<List<DeleteOutcome>> serialSink = outcomes -> {
+                        synchronized (lock) {
+                                sink.accept(outcomes);
+                        }
+                };
+                Semaphore inFlight = new Semaphore(concurrency);
+                List<Future<?>> futures = new ArrayList<>();
+                try {
+                        List<ObjectIdentifier> batch = new ArrayList<>(MAX_BATCH_SIZE);
+                        while (identifiers.hasNext()) {
+                                batch.add(identifiers.next());
+                                if (batch.size() == MAX_BATCH_SIZE || !identifiers.hasNext()) {
+                                        inFlight.acquire();
+                                        List<ObjectIdentifier> submitted = batch;
+                                        futures.add(executor.submit(() -> {
+                                                try {
+                                                        deleteBatch(bucket, submitted, serialSink);
+                                                } finally {
+                                                        inFlight.release();
+                                                }
+                                        }));
+                                        batch = new ArrayList<>(MAX_BATCH_SIZE);
+                                }
+                        }
+                        for (Future<?> future : futures) {
+                                future.get();
+                        }
+                } catch (Exception e) {
+                        futures.forEach(f -> f.cancel(true));
+                        throw Transfers.rethrow(e);
+                }
+        }
+
+        private void deleteBatch(String bucket, List<ObjectIdentifier> batch, Consumer<List<DeleteOutcome>> sink) {
+                DeleteObjectsResponse response;
+                try {
+                        response = s3Client.deleteObjects(DeleteObjectsRequest.builder()
+                                        .bucket(bucket)
+                                        .delete(Delete.builder().objects(batch).build())
+                                        .build());
+                } catch (SdkException e) {
+                        // The whole call failed after SDK retries, so report it against every key in the batch.
+                        String code = Transfers.errorCode(e);
+                        sink.accept(batch.stream()
+                                        .map(id -> DeleteOutcome.failed(id.key(), id.versionId(), code, e.getMessage()))
+                                        .toList());
+                        return;
+                }
+                List<DeleteOutcome> outcomes = new ArrayList<>(batch.size());
+                response.deleted().forEach(d -> outcomes.add(DeleteOutcome.deleted(d.key(), d.versionId())));
+                response.errors().forEach(err -> outcomes.add(
+                                DeleteOutcome.failed(err.key(), err.versionId(), err.code(), err.message())));
+                sink.accept(outcomes);
+        }
+
+        /**
+         * Aborts every incomplete multipart upload in the bucket so no orphaned
+         * parts outlive it.
+         */
+        public void abortMultipartUploads(String bucket) {
+                s3Client.listMultipartUploadsPaginator(ListMultipartUploadsRequest.builder().bucket(bucket).build())
+                                .uploads()
+                                .forEach(upload -> s3Client.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+                                                .bucket(bucket)
+                                                .key(upload.key())
+                                                .uploadId(upload.uploadId())
+                                                .build()));
+        }
+
+        private static ObjectIdentifier identifier(String key, String versionId) {
+                return ObjectIdentifier.builder().key(key).versionId(versionId).build();
+        }
+
+        @PreDestroy
+        public void shutdown() {
+                executor.shutdownNow();
+        }
+}
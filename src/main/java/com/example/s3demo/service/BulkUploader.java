@@ -0,0 +1,322 @@
+package com.example.s3demo.service;
+
+import com.example.s3demo.model.UploadOutcome;
+import jakarta.annotation.PreDestroy;
+import org.apache.commons.compress.archivers.ArchiveEntry;
+import org.apache.commons.compress.archivers.ArchiveInputStream;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.compress.archivers.zip.ZipArchiveInputStream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MultipartFile;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.http.ContentStreamProvider;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+
+import java.io.*;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Bulk ingest of many objects in one call, from either a multi-file request or
+ * an archive expanded as it streams in. Entries are uploaded on a shared worker
+ * pool with at most {@code concurrency} PUTs and {@code maxBuffered} bytes of
+ * archive content in flight per call; the reader blocks when either limit is
+ * reached, which pushes back on the client's request stream.
+ */
+@Component
+public class BulkUploader {
+
+        public enum ArchiveFormat {
+                ZIP, TAR, TAR_GZ;
+
+                /**
+                 * Resolves a format name ("zip", "tar", "tar.gz", "tgz") or an archive
+                 * media type such as {@code application/zip}.
+                 */
+                public static Optional<ArchiveFormat> of(String name) {
+                        if (name == null) {
+                                return Optional.empty();
+                        }
+                        return switch (name.split(";")[0].trim().toLowerCase()) {
+                                case "zip", "application/zip", "application/x-zip-compressed" -> Optional.of(ZIP);
+                                case "tar", "application/x-tar" -> Optional.of(TAR);
+                                case "tar.gz", "tgz", "application/gzip", "application/x-gzip" -> Optional.of(TAR_GZ);
+                                default -> Optional.empty();
+                        };
+                }
+        }
+
+        private final S3Client s3Client;
+        private final MultipartUploader multipartUploader;
+        private final int concurrency;
+        private final int maxBuffered;
+        private final int multipartThreshold;
+        private final ExecutorService executor;
+
+        public BulkUploader(S3Client s3Client, MultipartUploader multipartUploader,
+                        @Value("${aws.s3.bulk.concurrency:16}") int concurrency,
+                        @Value("${aws.s3.bulk.threads:16}") int threads,
+                        @Value("${aws.s3.bulk.max-buffered:128MB}") DataSize maxBuffered,
+                        @Value("${aws.s3.bulk.multipart-threshold:16MB}") DataSize multipartThreshold) {
+                this.s3Client = s3Client;
+                this.multipartUploader = multipartUploader;
+                this.concurrency = Math.max(1, concurrency);
+                this.multipartThreshold = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(1, multipartThreshold.toBytes()));
+                this.maxBuffered = (int) Math.min(Integer.MAX_VALUE, Math.max(this.multipartThreshold, maxBuffered.toBytes()));
+                this.executor = Executors.newFixedThreadPool(Math.max(1, threads), Transfers.daemonThreads("s3-bulk-"));
+        }
+
+        /**
+         * Uploads each file as {@code prefix + original filename}. Results come
+         * back in request order, one per file.
+         */
+        public List<UploadOutcome> uploadFiles(String bucket, String prefix, List<MultipartFile> files)
+                        throws IOException {
+                Pipeline pipeline = new Pipeline();
+                try {
+                        for (MultipartFile file : files) {
+                                String original = file.getOriginalFilename() != null ? file.getOriginalFilename() : "";
+                                String name = normalize(original);
+                                if (name == null) {
+                                        pipeline.add(UploadOutcome.failed(prefix + original, file.getSize(), "InvalidName",
+                                                        "Filename climbs above the upload prefix"));
+                                        continue;
+                                }
+                                if (name.isEmpty()) {
+                                        pipeline.add(UploadOutcome.failed(prefix, file.getSize(), "MissingFilename",
+                                                        "File part '" + file.getName() + "' has no filename"));
+                                        continue;
+                                }
+                                // Multipart files are already spooled by the servlet container, so they don't count against the byte budget.
+                                pipeline.reserve(0);
+                                pipeline.submit(0, 0, () -> uploadFile(bucket, prefix + name, file));
+                        }
+                        return pipeline.await();
+                } catch (Exception e) {
+                        pipeline.cancel();
+                        throw Transfers.rethrow(e);
+                }
+        }
+
+        /**
+         * Expands {@code archive} entry by entry and uploads each regular file as
+         * {@code prefix + entry path}. Entries below the multipart threshold are
+         * buffered and PUT concurrently; larger ones are streamed straight from the
+         * archive through the multipart engine, since an archive can only be read
+         * in order. Results come back in archive order, one per file entry.
+         * Entries whose path climbs above {@code prefix} with ".." are reported as
+         * failed and not uploaded.
+         */
+        public List<UploadOutcome> uploadArchive(String bucket, String prefix, InputStream archive,
+                        ArchiveFormat format) throws IOException {
+                Pipeline pipeline = new Pipeline();
+                try (ArchiveInputStream<?> entries = open(archive, format)) {
+                        ArchiveEntry entry;
+                        while ((entry = entries.getNextEntry()) != null) {
+                                if (entry.isDirectory() || entry instanceof TarArchiveEntry tar && !tar.isFile()) {
+                                        continue;
+                                }
+                                String name = normalize(entry.getName());
+                                if (name == null) {
+                                        pipeline.add(UploadOutcome.failed(prefix + entry.getName(), entry.getSize(),
+                                                        "InvalidName", "Entry path climbs above the upload prefix"));
+                                        continue;
+                                }
+                                String key = prefix + name;
+                                String contentType = contentTypeOf(entry.getName());
+                                if (!entries.canReadEntryData(entry)) {
+                                        pipeline.add(UploadOutcome.failed(key, entry.getSize(), "UnsupportedEntry",
+                                                        "Entry uses an unsupported compression method or encryption"));
+                                        continue;
+                                }
+                                // Reserve before reading, so the budget bounds what is buffered, not just what is queued.
+                                pipeline.reserve(multipartThreshold);
+                                byte[] head = entries.readNBytes(multipartThreshold);
+                                if (head.length < multipartThreshold) {
+                                        pipeline.submit(multipartThreshold, head.length, () -> put(bucket, key, contentType,
+                                                        head.length, () -> new ByteArrayInputStream(head)));
+                                } else {
+                                        InputStream rest = new SequenceInputStream(new ByteArrayInputStream(head),
+                                                        new FilterInputStream(entries) {
+                                                                @Override
+                                                                public void close() {
+                                                                        // Leave the archive open for the next entry.
+                                                                }
+                                                        });
+                                        try {
+                                                pipeline.add(uploadMultipart(bucket, key, contentType, rest, entry.getSize()));
+                                        } finally {
+                                                // The head stays referenced until the multipart upload has read it.
+                                                pipeline.release(multipartThreshold);
+                                        }
+                                }
+                        }
+                        return pipeline.await();
+                } catch (Exception e) {
+                        pipeline.cancel();
+                        throw Transfers.rethrow(e);
+                }
+        }
+
+        private UploadOutcome uploadFile(String bucket, String key, MultipartFile file) {
+                String contentType = file.getContentType() != null ? file.getContentType() : contentTypeOf(key);
+                if (file.getSize() >= multipartThreshold) {
+                        try (InputStream in = file.getInputStream()) {
+                                return uploadMultipart(bucket, key, contentType, in, file.getSize());
+                        } catch (IOException e) {
+                                return UploadOutcome.failed(key, file.getSize(), Transfers.errorCode(e), e.getMessage());
+                        }
+                }
+                return put(bucket, key, contentType, file.getSize(), () -> {
+                        try {
+                                return file.getInputStream();
+                        } catch (IOException e) {
+                                throw new UncheckedIOException(e);
+                        }
+                });
+        }
+
+        private UploadOutcome put(String bucket, String key, String contentType, long size,
+                        ContentStreamProvider content) {
+                try {
+                        PutObjectRequest request = PutObjectRequest.builder()
+                                        .bucket(bucket)
+                                        .key(key)
+                                        .contentType(contentType)
+                                        .checksumAlgorithm(multipartUploader.checksumAlgorithm().orElse(null))
+                                        .build();
+                        String eTag = s3Client.putObject(request, RequestBody.fromContentProvider(content, size, contentType))
+                                        .eTag();
+                        return UploadOutcome.uploaded(key, size, eTag);
+                } catch (SdkException | UncheckedIOException e) {
+                        return UploadOutcome.failed(key, size, Transfers.errorCode(e), e.getMessage());
+                }
+        }
+
+        /**
+         * S3 failures become a failed outcome (the uploader has already aborted);
+         * I/O failures reading the source propagate to the caller.
+         */
+        private UploadOutcome uploadMultipart(String bucket, String key, String contentType, InputStream source,
+                        long size) throws IOException {
+                try {
+                        multipartUploader.upload(bucket, key, contentType, source, size);
+                        return UploadOutcome.uploaded(key, size, null);
+                } catch (SdkException e) {
+                        return UploadOutcome.failed(key, size, Transfers.errorCode(e), e.getMessage());
+                }
+        }
+
+        private static ArchiveInputStream<?> open(InputStream archive, ArchiveFormat format) throws IOException {
+                InputStream in = new BufferedInputStream(archive);
+                return switch (format) {
+                        case ZIP -> new ZipArchiveInputStream(in, "UTF-8", true, true);
+                        case TAR -> new TarArchiveInputStream(in);
+                        case TAR_GZ -> new TarArchiveInputStream(new GZIPInputStream(in));
+                };
+        }
+
+        /**
+         * The path relative to the upload prefix: separators unified, empty and
+         * "." segments dropped and ".." collapsed. Null when a ".." would climb
+         * above the prefix.
+         */
+        static String normalize(String name) {
+                Deque<String> segments = new ArrayDeque<>();
+                for (String segment : name.replace('\\', '/').split("/")) {
+                        if (segment.isEmpty() || segment.equals(".")) {
+                                continue;
+                        }
+                        if (segment.equals("..")) {
+                                if (segments.pollLast() == null) {
+                                        return null;
+                                }
+                                continue;
+                        }
+                        segments.addLast(segment);
+                }
+                return String.join("/", segments);
+        }
+
+        private static String contentTypeOf(String name) {
+                return MediaTypeFactory.getMediaType(name)
+                                .orElse(MediaType.APPLICATION_OCTET_STREAM)
+                                .toString();
+        }
+
+        /**
+         * Per-call admission control: {@link #reserve} blocks until both a PUT
+         * slot and enough of the byte budget are free, and the reservation is
+         * then either handed to a task by {@link #submit} or given back with
+         * {@link #release}.
+         */
+        private final class Pipeline {
+
+                private final Semaphore inFlight = new Semaphore(concurrency);
+                private final Semaphore buffered = new Semaphore(maxBuffered);
+                private final List<Future<UploadOutcome>> results = new ArrayList<>();
+
+                void reserve(int bytes) throws InterruptedException {
+                        inFlight.acquire();
+                        try {
+                                buffered.acquire(bytes);
+                        } catch (InterruptedException e) {
+                                inFlight.release();
+                                throw e;
+                        }
+                }
+
+                void release(int bytes) {
+                        buffered.release(bytes);
+                        inFlight.release();
+                }
+
+                /**
+                 * Runs {@code task} under a reservation of {@code reserved} bytes,
+                 * keeping only the {@code bytes} it actually holds until it ends.
+                 */
+                void submit(int reserved, int bytes, Callable<UploadOutcome> task) {
+                        buffered.release(reserved - bytes);
+                        results.add(executor.submit(() -> {
+                                try {
+                                        return task.call();
+                                } finally {
+                                        release(bytes);
+                                }
+                        }));
+                }
+
+                void add(UploadOutcome outcome) {
+                        results.add(CompletableFuture.completedFuture(outcome));
+                }
+
+                List<UploadOutcome> await() throws InterruptedException, ExecutionException {
+                        List<UploadOutcome> outcomes = new ArrayList<>(results.size());
+                        for (Future<UploadOutcome> result : results) {
+                                outcomes.add(result.get());
+                        }
+                        return outcomes;
+                }
+
+                void cancel() {
+                        results.forEach(f -> f.cancel(true));
+                }
+        }
+
+        @PreDestroy
+        public void shutdown() {
+                executor.shutdownNow();
+        }
+}
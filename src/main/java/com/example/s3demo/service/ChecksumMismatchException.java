@@ -0,0 +1,34 @@
+package com.example.s3demo.service;
+
+import software.amazon.awssdk.services.s3.model.ChecksumAlgorithm;
+
+import java.io.IOException;
+
+/**
+ * Bytes read from S3 did not match the checksum S3 stored for them, so the
+ * transfer was corrupted somewhere between S3 and this process.
+ */
+public class ChecksumMismatchException extends IOException {
+
+        private final String key;
+        private final int partNumber;
+
+        public ChecksumMismatchException(String key, int partNumber, ChecksumAlgorithm algorithm, String expected,
+                        String actual) {
+                super(algorithm + " mismatch for " + key + (partNumber > 0 ? " part " + partNumber : "")
+                                + ": expected " + expected + ", got " + actual);
+                this.key = key;
+                this.partNumber = partNumber;
+        }
+
+        public String key() {
+                return key;
+        }
+
+        /**
+         * The corrupt part, or 0 when the whole-object checksum failed.
+         */
+        public int partNumber() {
+                return partNumber;
+        }
+}
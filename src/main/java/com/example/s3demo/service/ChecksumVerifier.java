@@ -0,0 +1,113 @@
+package com.example.s3demo.service;
+
+import com.example.s3demo.model.VerifyOutcome;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.S3Object;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+
+/**
+ * Scrubs stored objects against the checksums S3 recorded at upload. Each
+ * object is read once, start to end, through a streaming verifier: per part
+ * when it was uploaded in parts with checksums, otherwise as a whole. Nothing
+ * is kept but the running digest, so objects of any size verify in constant
+ * memory. Up to {@code concurrency} objects are read at once.
+ */
+@Component
+public class ChecksumVerifier {
+
+        private static final int DISCARD_BUFFER_SIZE = 64 * 1024;
+
+        private final S3Client s3Client;
+        private final int concurrency;
+        private final ExecutorService executor;
+
+        public ChecksumVerifier(S3Client s3Client,
+                        @Value("${aws.s3.checksum.verify-concurrency:8}") int concurrency) {
+                this.s3Client = s3Client;
+                this.concurrency = Math.max(1, concurrency);
+                this.executor = Executors.newFixedThreadPool(this.concurrency, Transfers.daemonThreads("s3-verify-"));
+        }
+
+        /**
+         * Verifies every object under {@code prefix}. Results go to {@code sink}
+         * as each object finishes; a failed object does not stop the others.
+         */
+        public void verifyPrefix(String bucket, String prefix, Consumer<List<VerifyOutcome>> sink) throws IOException {
+                Object lock = new Object();
+                Semaphore inFlight = new Semaphore(concurrency);
+                List<Future<?>> futures = new ArrayList<>();
+                ListObjectsV2Request request = ListObjectsV2Request.builder()
+                                .bucket(bucket)
+                                .prefix(prefix)
+                                .build();
+                try {
+                        for (S3Object object : s3Client.listObjectsV2Paginator(request).contents()) {
+                                inFlight.acquire();
+                                futures.add(executor.submit(() -> {
+                                        try {
+                                                VerifyOutcome outcome = verifyListed(bucket, object);
+                                                synchronized (lock) {
+                                                        sink.accept(List.of(outcome));
+                                                }
+                                        } finally {
+                                                inFlight.release();
+                                        }
+                                }));
+                        }
+                        for (Future<?> future : futures) {
+                                future.get();
+                        }
+                } catch (Exception e) {
+                        futures.forEach(f -> f.cancel(true));
+                        throw Transfers.rethrow(e);
+                }
+        }
+
+        private VerifyOutcome verifyListed(String bucket, S3Object object) {
+                String algorithm = null;
+                try {
+                        Optional<Checksums.Expected> expected = Checksums.expected(s3Client, bucket, object.key(),
+                                        object.eTag());
+                        if (expected.isEmpty()) {
+                                return VerifyOutcome.failed(object.key(), object.size(), null, "NoStoredChecksum",
+                                                "Object was stored without a checksum");
+                        }
+                        algorithm = expected.get().algorithm().toString();
+                        GetObjectRequest get = GetObjectRequest.builder()
+                                        .bucket(bucket)
+                                        .key(object.key())
+                                        .ifMatch(object.eTag())
+                                        .build();
+                        byte[] discard = new byte[DISCARD_BUFFER_SIZE];
+                        try (InputStream in = Checksums.verifying(s3Client.getObject(get), expected.get(),
+                                        expected.get().segments(), object.key())) {
+                                while (in.read(discard) >= 0) {
+                                        // Reading to the end is what verifies it.
+                                }
+                        }
+                        int parts = expected.get().perPart() ? expected.get().segments().size() : 0;
+                        return VerifyOutcome.verified(object.key(), object.size(), algorithm, parts);
+                } catch (SdkException | IOException e) {
+                        return VerifyOutcome.failed(object.key(), object.size(), algorithm, Transfers.errorCode(e),
+                                        e.getMessage());
+                }
+        }
+
+        @PreDestroy
+        public void shutdown() {
+                executor.shutdownNow();
+        }
+}
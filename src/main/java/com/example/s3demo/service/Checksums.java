@@ -0,0 +1,432 @@
+package com.example.s3demo.service;
+
+import software.amazon.awssdk.awscore.AwsRequestOverrideConfiguration;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.*;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.zip.CRC32;
+import java.util.zip.CRC32C;
+
+/**
+ * S3 additional checksums, computed incrementally as bytes stream past.
+ * CRC32C is the default: the JDK's {@link CRC32C} is a HotSpot intrinsic that
+ * uses the CPU's CRC instructions (SSE4.2 / ARMv8), so checksumming keeps up
+ * with the network. Values are base64 of the big-endian digest, as S3 sends
+ * them in {@code x-amz-checksum-*}.
+ */
+final class Checksums {
+
+        private static final String CHECKSUM_MODE_HEADER = "x-amz-checksum-mode";
+
+        private Checksums() {
+        }
+
+        /**
+         * The algorithm for a configuration value such as "crc32c" or
+         * "sha256"; empty for "none".
+         */
+        static Optional<ChecksumAlgorithm> algorithm(String name) {
+                String normalized = name == null ? "none" : name.trim().toUpperCase(Locale.ROOT).replace("-", "");
+                return switch (normalized) {
+                        case "NONE", "" -> Optional.empty();
+                        case "CRC32C" -> Optional.of(ChecksumAlgorithm.CRC32_C);
+                        case "CRC32" -> Optional.of(ChecksumAlgorithm.CRC32);
+                        case "SHA1" -> Optional.of(ChecksumAlgorithm.SHA1);
+                        case "SHA256" -> Optional.of(ChecksumAlgorithm.SHA256);
+                        default -> throw new IllegalArgumentException("Unsupported aws.s3.checksum.algorithm: " + name);
+                };
+        }
+
+        static Digest digest(ChecksumAlgorithm algorithm) {
+                return switch (algorithm) {
+                        case CRC32_C -> new CrcDigest(new CRC32C());
+                        case CRC32 -> new CrcDigest(new CRC32());
+                        case SHA1 -> new MessageDigestDigest("SHA-1");
+                        case SHA256 -> new MessageDigestDigest("SHA-256");
+                        default -> throw new IllegalArgumentException("Unsupported checksum algorithm: " + algorithm);
+                };
+        }
+
+        static String checksum(ChecksumAlgorithm algorithm, byte[] b, int off, int len) {
+                Digest digest = digest(algorithm);
+                digest.update(b, off, len);
+                return digest.base64();
+        }
+
+        static UploadPartRequest.Builder withChecksum(UploadPartRequest.Builder request, ChecksumAlgorithm algorithm,
+                        String value) {
+                request.checksumAlgorithm(algorithm);
+                return switch (algorithm) {
+                        case CRC32_C -> request.checksumCRC32C(value);
+                        case CRC32 -> request.checksumCRC32(value);
+                        case SHA1 -> request.checksumSHA1(value);
+                        default -> request.checksumSHA256(value);
+                };
+        }
+
+        static CompletedPart.Builder withChecksum(CompletedPart.Builder part, ChecksumAlgorithm algorithm, String value) {
+                return switch (algorithm) {
+                        case CRC32_C -> part.checksumCRC32C(value);
+                        case CRC32 -> part.checksumCRC32(value);
+                        case SHA1 -> part.checksumSHA1(value);
+                        default -> part.checksumSHA256(value);
+                };
+        }
+
+        /**
+         * The checksums S3 holds for an object: one per part for a multipart
+         * upload made with checksums, otherwise one for the whole object. Empty
+         * when the object was stored without one, or when it no longer has
+         * {@code eTag} (it was overwritten since the caller looked at it).
+         */
+        static Optional<Expected> expected(S3Client s3Client, String bucket, String key, String eTag)
+                        throws IOException {
+                List<Segment> parts = new ArrayList<>();
+                ChecksumAlgorithm partAlgorithm = null;
+                boolean partsComplete = true;
+                long offset = 0;
+                Integer marker = null;
+                GetObjectAttributesResponse first = null;
+                GetObjectAttributesResponse page;
+                do {
+                        page = s3Client.getObjectAttributes(GetObjectAttributesRequest.builder()
+                                        .bucket(bucket)
+                                        .key(key)
+                                        .objectAttributes(ObjectAttributes.E_TAG, ObjectAttributes.CHECKSUM,
+                                                        ObjectAttributes.OBJECT_PARTS, ObjectAttributes.OBJECT_SIZE)
+                                        .partNumberMarker(marker)
+                                        .build());
+                        if (eTag != null && page.eTag() != null && !unquoted(eTag).equals(unquoted(page.eTag()))) {
+                                throw new IOException("Object " + key + " changed while reading its checksums");
+                        }
+                        if (first == null) {
+                                first = page;
+                        }
+                        GetObjectAttributesParts objectParts = page.objectParts();
+                        if (objectParts == null || !objectParts.hasParts()) {
+                                break;
+                        }
+                        for (ObjectPart part : objectParts.parts()) {
+                                Optional<StoredChecksum> stored = stored(part.checksumCRC32(), part.checksumCRC32C(),
+                                                part.checksumSHA1(), part.checksumSHA256());
+                                if (stored.isEmpty() || part.size() == null) {
+                                        partsComplete = false;
+                                        continue;
+                                }
+                                partAlgorithm = stored.get().algorithm();
+                                parts.add(new Segment(part.partNumber(), offset, part.size(), stored.get().value()));
+                                offset += part.size();
+                        }
+                        marker = objectParts.nextPartNumberMarker();
+                } while (Boolean.TRUE.equals(page.objectParts().isTruncated()) && marker != null);
+
+                Long size = first.objectSize();
+                if (size == null) {
+                        return Optional.empty();
+                }
+                if (!parts.isEmpty() && partsComplete && offset == size) {
+                        return Optional.of(new Expected(partAlgorithm, parts));
+                }
+                Checksum checksum = first.checksum();
+                Optional<StoredChecksum> whole = checksum == null ? Optional.empty() : stored(checksum.checksumCRC32(),
+                                checksum.checksumCRC32C(), checksum.checksumSHA1(), checksum.checksumSHA256());
+                boolean multipart = first.objectParts() != null && first.objectParts().totalPartsCount() != null
+                                && first.objectParts().totalPartsCount() > 0;
+                // A multipart object's whole-object value is a checksum of its part checksums, not of its bytes.
+                if (whole.isEmpty() || multipart || whole.get().value().contains("-")) {
+                        return Optional.empty();
+                }
+                return Optional.of(new Expected(whole.get().algorithm(),
+                                List.of(new Segment(0, 0, size, whole.get().value()))));
+        }
+
+        /**
+         * Asks S3 to return the stored checksum with a GET. Sent as a plain header
+         * rather than {@code checksumMode(ENABLED)}, because the SDK's own check
+         * then rejects the composite "-N" values of multipart objects;
+         * {@link #verifying(S3Client, String, String, ResponseInputStream)} checks
+         * those part by part instead.
+         */
+        static GetObjectRequest withChecksumMode(GetObjectRequest request) {
+                AwsRequestOverrideConfiguration.Builder override = request.overrideConfiguration()
+                                .map(AwsRequestOverrideConfiguration::toBuilder)
+                                .orElseGet(AwsRequestOverrideConfiguration::builder);
+                return request.toBuilder()
+                                .overrideConfiguration(override.putHeader(CHECKSUM_MODE_HEADER, "ENABLED").build())
+                                .build();
+        }
+
+        /**
+         * Wraps a whole-object GET so reading it to the end verifies the body
+         * against the checksum S3 returned with it. A composite multipart value
+         * is resolved to per-part checksums on the first read, so a GET aborted
+         * after its headers costs no extra call. Objects stored without a
+         * checksum are returned unchanged.
+         */
+        static ResponseInputStream<GetObjectResponse> verifying(S3Client s3Client, String bucket, String key,
+                        ResponseInputStream<GetObjectResponse> object) {
+                GetObjectResponse response = object.response();
+                Optional<StoredChecksum> stored = stored(response.checksumCRC32(), response.checksumCRC32C(),
+                                response.checksumSHA1(), response.checksumSHA256());
+                if (stored.isEmpty() || response.contentLength() == null) {
+                        return object;
+                }
+                InputStream verified;
+                if (stored.get().value().contains("-")) {
+                        verified = new VerifyingInputStream(object, () -> expected(s3Client, bucket, key, response.eTag())
+                                        .map(expected -> new Verifier(expected, expected.segments(), key))
+                                        .orElse(null));
+                } else {
+                        Expected expected = new Expected(stored.get().algorithm(),
+                                        List.of(new Segment(0, 0, response.contentLength(), stored.get().value())));
+                        verified = verifying(object, expected, expected.segments(), key);
+                }
+                return new ResponseInputStream<>(response, AbortableInputStream.create(verified, object::abort));
+        }
+
+        private static Optional<StoredChecksum> stored(String crc32, String crc32c, String sha1, String sha256) {
+                if (crc32c != null) {
+                        return Optional.of(new StoredChecksum(ChecksumAlgorithm.CRC32_C, crc32c));
+                }
+                if (crc32 != null) {
+                        return Optional.of(new StoredChecksum(ChecksumAlgorithm.CRC32, crc32));
+                }
+                if (sha256 != null) {
+                        return Optional.of(new StoredChecksum(ChecksumAlgorithm.SHA256, sha256));
+                }
+                if (sha1 != null) {
+                        return Optional.of(new StoredChecksum(ChecksumAlgorithm.SHA1, sha1));
+                }
+                return Optional.empty();
+        }
+
+        private static String unquoted(String eTag) {
+                return eTag.replace("\"", "");
+        }
+
+        /**
+         * Checks {@code len} bytes held in memory against one segment.
+         */
+        static void verify(Expected expected, Segment segment, String key, byte[] b, int off, int len) throws IOException {
+                String actual = checksum(expected.algorithm(), b, off, len);
+                if (len != segment.size() || !actual.equals(segment.checksum())) {
+                        throw mismatch(expected, segment, key, actual);
+                }
+        }
+
+        private static IOException mismatch(Expected expected, Segment segment, String key, String actual) {
+                return new ChecksumMismatchException(key, segment.partNumber(), expected.algorithm(), segment.checksum(),
+                                actual);
+        }
+
+        /**
+         * Wraps a stream of {@code segments} in order so reading it to the end
+         * verifies each against its checksum; a mismatch surfaces as an
+         * {@link IOException} from the read that completes the segment.
+         */
+        static InputStream verifying(InputStream in, Expected expected, List<Segment> segments, String key) {
+                Verifier verifier = new Verifier(expected, segments, key);
+                return new VerifyingInputStream(in, () -> verifier);
+        }
+
+        /**
+         * Checksums for a run of consecutive segments, fed bytes in order.
+         */
+        static final class Verifier {
+
+                private final Expected expected;
+                private final List<Segment> segments;
+                private final String key;
+                private int index;
+                private long remaining;
+                private Digest digest;
+
+                Verifier(Expected expected, List<Segment> segments, String key) {
+                        this.expected = expected;
+                        this.segments = segments;
+                        this.key = key;
+                        start();
+                }
+
+                private void start() {
+                        if (index < segments.size()) {
+                                remaining = segments.get(index).size();
+                                digest = digest(expected.algorithm());
+                        }
+                }
+
+                void update(byte[] b, int off, int len) throws IOException {
+                        while (len > 0) {
+                                if (index >= segments.size()) {
+                                        throw new IOException("More bytes than expected for " + key);
+                                }
+                                int n = (int) Math.min(len, remaining);
+                                digest.update(b, off, n);
+                                off += n;
+                                len -= n;
+                                remaining -= n;
+                                if (remaining == 0) {
+                                        check();
+                                }
+                        }
+                }
+
+                private void check() throws IOException {
+                        Segment segment = segments.get(index);
+                        String actual = digest.base64();
+                        if (!actual.equals(segment.checksum())) {
+                                throw mismatch(expected, segment, key, actual);
+                        }
+                        index++;
+                        start();
+                }
+
+                /**
+                 * Called at end of input; fails if any segment is still short,
+                 * including empty segments that never saw a byte.
+                 */
+                void finish() throws IOException {
+                        while (index < segments.size() && remaining == 0) {
+                                check();
+                        }
+                        if (index < segments.size()) {
+                                throw new IOException("Short read for " + key + ": "
+                                                + remaining + " bytes of part " + segments.get(index).partNumber() + " missing");
+                        }
+                }
+        }
+
+        /**
+         * Supplies the verifier on first read; null means nothing to check.
+         */
+        @FunctionalInterface
+        private interface VerifierSource {
+
+                Verifier get() throws IOException;
+        }
+
+        private static final class VerifyingInputStream extends FilterInputStream {
+
+                private final VerifierSource source;
+                private Verifier verifier;
+                private boolean resolved;
+                private boolean finished;
+
+                VerifyingInputStream(InputStream in, VerifierSource source) {
+                        super(in);
+                        this.source = source;
+                }
+
+                @Override
+                public int read() throws IOException {
+                        byte[] one = new byte[1];
+                        return read(one, 0, 1) < 0 ? -1 : one[0] & 0xff;
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) throws IOException {
+                        if (!resolved) {
+                                verifier = source.get();
+                                resolved = true;
+                        }
+                        int n = super.read(b, off, len);
+                        if (verifier == null) {
+                                return n;
+                        }
+                        if (n > 0) {
+                                verifier.update(b, off, n);
+                        } else if (n < 0 && !finished) {
+                                finished = true;
+                                verifier.finish();
+                        }
+                        return n;
+                }
+
+                @Override
+                public long skip(long n) throws IOException {
+                        // Skipped bytes would never be checksummed.
+                        byte[] discard = new byte[(int) Math.min(n, 8192)];
+                        int read = read(discard, 0, discard.length);
+                        return Math.max(read, 0);
+                }
+        }
+
+        /**
+         * Incremental digest producing S3's base64 checksum encoding.
+         */
+        interface Digest {
+
+                void update(byte[] b, int off, int len);
+
+                String base64();
+        }
+
+        private record CrcDigest(java.util.zip.Checksum crc) implements Digest {
+
+                @Override
+                public void update(byte[] b, int off, int len) {
+                        crc.update(b, off, len);
+                }
+
+                @Override
+                public String base64() {
+                        return Base64.getEncoder().encodeToString(ByteBuffer.allocate(4).putInt((int) crc.getValue()).array());
+                }
+        }
+
+        private static final class MessageDigestDigest implements Digest {
+
+                private final MessageDigest digest;
+
+                MessageDigestDigest(String algorithm) {
+                        try {
+                                this.digest = MessageDigest.getInstance(algorithm);
+                        } catch (NoSuchAlgorithmException e) {
+                                throw new IllegalStateException(algorithm + " is not available", e);
+                        }
+                }
+
+                @Override
+                public void update(byte[] b, int off, int len) {
+                        digest.update(b, off, len);
+                }
+
+                @Override
+                public String base64() {
+                        return Base64.getEncoder().encodeToString(digest.digest());
+                }
+        }
+
+        private record StoredChecksum(ChecksumAlgorithm algorithm, String value) {
+        }
+
+        /**
+         * What an object's bytes must checksum to, as consecutive segments.
+         */
+        record Expected(ChecksumAlgorithm algorithm, List<Segment> segments) {
+
+                boolean perPart() {
+                        return segments.get(0).partNumber() > 0;
+                }
+        }
+
+        /**
+         * A byte range with its own checksum: a part ({@code partNumber} from 1),
+         * or the whole object ({@code partNumber} 0).
+         */
+        record Segment(int partNumber, long offset, long size, String checksum) {
+        }
+}
@@ -0,0 +1,94 @@
+package com.example.s3demo.service;
+
+import com.github.luben.zstd.ZstdInputStream;
+import com.github.luben.zstd.ZstdOutputStream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Codecs objects can be stored with. The name doubles as the HTTP
+ * {@code Content-Encoding} token, so a client that accepts it can receive the
+ * stored bytes unchanged.
+ */
+public enum CompressionCodec {
+
+        GZIP("gzip") {
+                @Override
+                OutputStream encoder(OutputStream out) throws IOException {
+                        return new GZIPOutputStream(out, BUFFER_SIZE);
+                }
+
+                @Override
+                InputStream decoder(InputStream in) throws IOException {
+                        return new GZIPInputStream(in, BUFFER_SIZE);
+                }
+        },
+        ZSTD("zstd") {
+                @Override
+                OutputStream encoder(OutputStream out) throws IOException {
+                        return new ZstdOutputStream(out);
+                }
+
+                @Override
+                InputStream decoder(InputStream in) throws IOException {
+                        return new ZstdInputStream(in);
+                }
+        };
+
+        private static final int BUFFER_SIZE = 64 * 1024;
+
+        private final String contentEncoding;
+
+        CompressionCodec(String contentEncoding) {
+                this.contentEncoding = contentEncoding;
+        }
+
+        public String contentEncoding() {
+                return contentEncoding;
+        }
+
+        abstract OutputStream encoder(OutputStream out) throws IOException;
+
+        abstract InputStream decoder(InputStream in) throws IOException;
+
+        public static Optional<CompressionCodec> of(String contentEncoding) {
+                if (contentEncoding == null) {
+                        return Optional.empty();
+                }
+                String token = contentEncoding.trim().toLowerCase(Locale.ROOT);
+                return Arrays.stream(values()).filter(codec -> codec.contentEncoding.equals(token)).findFirst();
+        }
+
+        /**
+         * Whether an {@code Accept-Encoding} header value admits this codec, honouring
+         * {@code q=0} exclusions and the {@code *} wildcard.
+         */
+        public boolean isAcceptedBy(String acceptEncoding) {
+                if (acceptEncoding == null) {
+                        return false;
+                }
+                boolean wildcard = false;
+                for (String entry : acceptEncoding.split(",")) {
+                        String[] fields = entry.split(";");
+                        String token = fields[0].trim().toLowerCase(Locale.ROOT);
+                        boolean refused = false;
+                        for (int i = 1; i < fields.length; i++) {
+                                refused |= fields[i].replace(" ", "").matches("[qQ]=0(\\.0{0,3})?");
+                        }
+                        if (token.equals(contentEncoding)) {
+                                return !refused;
+                        }
+                        if (token.equals("*")) {
+                                wildcard = !refused;
+                        }
+                }
+                return wildcard;
+        }
+}
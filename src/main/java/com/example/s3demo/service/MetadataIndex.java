@@ -0,0 +1,564 @@
+package com.example.s3demo.service;
+
+import com.example.s3demo.model.ObjectPage;
+import com.example.s3demo.model.ObjectSummary;
+import com.example.s3demo.model.ObjectVersionSummary;
+import com.example.s3demo.model.VersionPage;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.*;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * In-memory index of object metadata (key, size, ETag, last-modified) per
+ * bucket, kept in a sorted map so prefix listings, existence checks and
+ * version queries are answered without a round-trip to S3.
+ * <p>
+ * A prefix becomes <em>covered</em> once a full listing of it has been loaded;
+ * only covered prefixes are answered from the index, everything else goes to
+ * S3 as before. Writes and deletes made through {@link S3Service} are applied
+ * as they happen: a write marks the key stale (resolved by a HeadObject on the
+ * next read), a delete records it as absent. Each entry carries the sequence
+ * number of the event that produced it, so a listing or HeadObject that
+ * started before a write can never overwrite what the write recorded.
+ * Changes made outside this app are picked up by the periodic reconciliation,
+ * which re-lists every covered prefix.
+ * <p>
+ * With {@code aws.s3.index.snapshot} set, the index is saved there after each
+ * reconciliation and on shutdown, and reloaded on startup.
+ */
+@Component
+public class MetadataIndex {
+
+        private static final int PAGE_SIZE = 1000;
+        private static final String TOKEN_PREFIX = "idx:";
+        private static final char LAST_CHAR = Character.MAX_VALUE;
+
+        // Own mapper so the snapshot format does not follow app-wide Jackson settings.
+        private final ObjectMapper mapper = new ObjectMapper()
+                        .findAndRegisterModules()
+                        .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                        .setSerializationInclusion(JsonInclude.Include.NON_NULL);
+        private final S3Client s3Client;
+        private final RequestCoalescer requestCoalescer;
+        private final ObjectLister objectLister;
+        private final boolean enabled;
+        private final int maxStaleLookups;
+        private final long maxVersionQueries;
+        private final Path snapshot;
+        private final AtomicLong sequence = new AtomicLong();
+        private final Map<String, BucketIndex> buckets = new ConcurrentHashMap<>();
+        private final Counter hits;
+        private final Counter misses;
+
+        public MetadataIndex(S3Client s3Client, RequestCoalescer requestCoalescer, ObjectLister objectLister,
+                        MeterRegistry meterRegistry,
+                        @Value("${aws.s3.index.enabled:false}") boolean enabled,
+                        @Value("${aws.s3.index.max-stale-lookups:100}") int maxStaleLookups,
+                        @Value("${aws.s3.index.max-version-queries:10000}") long maxVersionQueries,
+                        @Value("${aws.s3.index.snapshot:}") String snapshot) {
+                this.s3Client = s3Client;
+                this.requestCoalescer = requestCoalescer;
+                this.objectLister = objectLister;
+                this.enabled = enabled;
+                this.maxStaleLookups = Math.max(0, maxStaleLookups);
+                this.maxVersionQueries = Math.max(0, maxVersionQueries);
+                this.snapshot = snapshot.isBlank() ? null : Path.of(snapshot);
+                this.hits = Counter.builder("s3.index.lookups")
+                                .tag("result", "hit")
+                                .register(meterRegistry);
+                this.misses = Counter.builder("s3.index.lookups")
+                                .tag("result", "miss")
+                                .register(meterRegistry);
+
+                if (enabled) {
+                        Gauge.builder("s3.index.entries", buckets, MetadataIndex::entries)
+                                        .register(meterRegistry);
+                        if (this.snapshot != null && Files.exists(this.snapshot)) {
+                                restore();
+                        }
+                }
+        }
+
+        public boolean isEnabled() {
+                return enabled;
+        }
+
+        /**
+         * The object's metadata, or empty if it does not exist. Answered from the
+         * index when the key is covered, otherwise with a HeadObject.
+         */
+        public Optional<ObjectSummary> lookup(String bucket, String key) {
+                if (enabled) {
+                        BucketIndex index = buckets.get(bucket);
+                        Entry entry = index != null ? index.objects.get(key) : null;
+                        if (index != null && index.covers(key) && (entry == null || !entry.stale())) {
+                                hits.increment();
+                                return entry != null ? Optional.ofNullable(entry.object()) : Optional.empty();
+                        }
+                        misses.increment();
+                }
+                return head(bucket, key);
+        }
+
+        /**
+         * One page of the listing under {@code prefix}, or empty if the index
+         * cannot answer it and S3 must be asked instead. Continuation tokens issued
+         * here are understood by {@link #startAfter(String)}, so a listing can
+         * carry on against S3 if the index stops covering the prefix mid-way.
+         */
+        public Optional<ObjectPage> page(String bucket, String prefix, String delimiter, Integer maxKeys,
+                        String continuationToken) {
+                if (!enabled) {
+                        return Optional.empty();
+                }
+                String from = prefix != null ? prefix : "";
+                String startAfter = continuationToken != null ? startAfter(continuationToken) : null;
+                BucketIndex index = buckets.get(bucket);
+                if (index == null || !index.covers(from) || (continuationToken != null && startAfter == null)
+                                || !resolveStale(bucket, index, from)) {
+                        misses.increment();
+                        return Optional.empty();
+                }
+                hits.increment();
+
+                int limit = limit(maxKeys);
+                if (limit == 0) {
+                        // Like S3 with max-keys=0: nothing, and nothing to continue from.
+                        return Optional.of(new ObjectPage(List.of(), List.of(), null, false));
+                }
+                NavigableMap<String, Entry> range = index.range(from);
+                List<ObjectSummary> objects = new ArrayList<>();
+                List<String> commonPrefixes = new ArrayList<>();
+                String cursor = startAfter;
+                boolean truncated = false;
+                for (Map.Entry<String, Entry> next = higher(range, cursor); next != null; next = higher(range, cursor)) {
+                        if (next.getValue().object() == null) {
+                                cursor = next.getKey();
+                                continue;
+                        }
+                        if (objects.size() + commonPrefixes.size() == limit) {
+                                truncated = true;
+                                break;
+                        }
+                        String key = next.getKey();
+                        int split = delimiter == null || delimiter.isEmpty() ? -1 : key.indexOf(delimiter, from.length());
+                        if (split >= 0) {
+                                String commonPrefix = key.substring(0, split + delimiter.length());
+                                commonPrefixes.add(commonPrefix);
+                                // Sorts after every key under the common prefix, so they roll up into it once.
+                                cursor = commonPrefix + LAST_CHAR;
+                        } else {
+                                objects.add(next.getValue().object());
+                                cursor = key;
+                        }
+                }
+                return Optional.of(new ObjectPage(objects, commonPrefixes, truncated ? token(cursor) : null, truncated));
+        }
+
+        /**
+         * Hands every object under {@code prefix} to {@code pageSink} in pages of
+         * up to 1,000. Returns false, without calling the sink, if the index
+         * cannot answer and S3 must be listed instead.
+         */
+        public boolean stream(String bucket, String prefix, Consumer<List<ObjectSummary>> pageSink) {
+                if (!enabled) {
+                        return false;
+                }
+                String from = prefix != null ? prefix : "";
+                BucketIndex index = buckets.get(bucket);
+                if (index == null || !index.covers(from) || !resolveStale(bucket, index, from)) {
+                        misses.increment();
+                        return false;
+                }
+                hits.increment();
+                List<ObjectSummary> page = new ArrayList<>(PAGE_SIZE);
+                for (Entry entry : index.range(from).values()) {
+                        if (entry.object() != null) {
+                                page.add(entry.object());
+                                if (page.size() == PAGE_SIZE) {
+                                        pageSink.accept(page);
+                                        page = new ArrayList<>(PAGE_SIZE);
+                                }
+                        }
+                }
+                if (!page.isEmpty()) {
+                        pageSink.accept(page);
+                }
+                return true;
+        }
+
+        /**
+         * One page of the versions of the keys under {@code prefix}, starting
+         * after the given markers. First pages of the default size are cached per
+         * prefix until a write to a matching key or the next reconciliation; later
+         * pages always go to S3.
+         */
+        public VersionPage versions(String bucket, String prefix, Integer maxKeys, String keyMarker,
+                        String versionIdMarker) {
+                int limit = limit(maxKeys);
+                if (limit == 0) {
+                        return new VersionPage(List.of(), null, null, false);
+                }
+                boolean cacheable = enabled && limit == PAGE_SIZE && keyMarker == null && versionIdMarker == null;
+                BucketIndex index = cacheable ? buckets.computeIfAbsent(bucket, b -> new BucketIndex(maxVersionQueries)) : null;
+                if (index != null) {
+                        VersionPage cached = index.versions.getIfPresent(prefix);
+                        if (cached != null) {
+                                hits.increment();
+                                return cached;
+                        }
+                        misses.increment();
+                }
+                long since = sequence.incrementAndGet();
+                ListObjectVersionsRequest request = ListObjectVersionsRequest.builder()
+                                .bucket(bucket)
+                                .prefix(prefix)
+                                .maxKeys(limit)
+                                .keyMarker(keyMarker)
+                                .versionIdMarker(versionIdMarker)
+                                .build();
+                VersionPage versions = requestCoalescer.call("ListObjectVersions", request, () -> {
+                        ListObjectVersionsResponse response = s3Client.listObjectVersions(request);
+                        boolean truncated = Boolean.TRUE.equals(response.isTruncated());
+                        return new VersionPage(response.versions().stream().map(ObjectVersionSummary::from).toList(),
+                                        truncated ? response.nextKeyMarker() : null,
+                                        truncated ? response.nextVersionIdMarker() : null, truncated);
+                });
+                if (index != null && index.lastWrite.get() < since) {
+                        index.versions.put(prefix, versions);
+                        if (index.lastWrite.get() >= since) {
+                                // A write landed while this was being stored.
+                                index.versions.invalidate(prefix);
+                        }
+                }
+                return versions;
+        }
+
+        /**
+         * Lists every object under {@code prefix} into the index, handing each page
+         * to {@code pageSink} as it arrives, then drops indexed keys the listing no
+         * longer returned and marks the prefix covered.
+         */
+        public void load(String bucket, String prefix, boolean parallel, Consumer<List<S3Object>> pageSink)
+                        throws IOException {
+                String from = prefix != null ? prefix : "";
+                BucketIndex index = buckets.computeIfAbsent(bucket, b -> new BucketIndex(maxVersionQueries));
+                long since = sequence.incrementAndGet();
+                index.loads.incrementAndGet();
+                try {
+                        Consumer<List<S3Object>> filling = page -> {
+                                for (S3Object object : page) {
+                                        index.apply(object.key(), new Entry(ObjectSummary.from(object), since, false));
+                                }
+                                pageSink.accept(page);
+                        };
+                        if (parallel) {
+                                objectLister.walkParallel(bucket, from, filling);
+                        } else {
+                                objectLister.walk(bucket, from, filling);
+                        }
+                        // Anything recorded before this listing started that it did not return is gone.
+                        index.range(from).forEach((key, entry) -> {
+                                if (entry.seq() < since) {
+                                        index.objects.remove(key, entry);
+                                }
+                        });
+                        index.cover(from);
+                } finally {
+                        index.loads.decrementAndGet();
+                }
+        }
+
+        /**
+         * Records that {@code key} was written; its metadata is fetched again on
+         * the next read.
+         */
+        public void invalidate(String bucket, String key) {
+                mark(bucket, key, true);
+        }
+
+        /**
+         * Records that {@code key} was deleted.
+         */
+        public void removed(String bucket, String key) {
+                mark(bucket, key, false);
+        }
+
+        public void removeBucket(String bucket) {
+                buckets.remove(bucket);
+        }
+
+        /**
+         * Re-lists every covered prefix so changes made outside this app show up,
+         * then saves the snapshot.
+         */
+        @Scheduled(fixedDelayString = "${aws.s3.index.reconcile-interval:PT15M}",
+                        initialDelayString = "${aws.s3.index.reconcile-interval:PT15M}")
+        public void reconcile() throws IOException {
+                if (!enabled) {
+                        return;
+                }
+                for (Map.Entry<String, BucketIndex> bucket : buckets.entrySet()) {
+                        BucketIndex index = bucket.getValue();
+                        index.versions.invalidateAll();
+                        try {
+                                for (String prefix : List.copyOf(index.covered)) {
+                                        load(bucket.getKey(), prefix, true, page -> {
+                                        });
+                                }
+                        } catch (NoSuchBucketException e) {
+                                buckets.remove(bucket.getKey(), index);
+                                continue;
+                        }
+                        index.pruneUncovered();
+                }
+                save();
+        }
+
+        /**
+         * Decodes the listing position from a continuation token issued by
+         * {@link #page}, or returns null if the token came from S3.
+         */
+        public static String startAfter(String continuationToken) {
+                if (continuationToken == null || !continuationToken.startsWith(TOKEN_PREFIX)) {
+                        return null;
+                }
+                try {
+                        return new String(Base64.getUrlDecoder().decode(continuationToken.substring(TOKEN_PREFIX.length())),
+                                        StandardCharsets.UTF_8);
+                } catch (IllegalArgumentException e) {
+                        return null;
+                }
+        }
+
+        private static int limit(Integer maxKeys) {
+                return maxKeys != null ? Math.max(0, Math.min(PAGE_SIZE, maxKeys)) : PAGE_SIZE;
+        }
+
+        private static String token(String startAfter) {
+                return TOKEN_PREFIX + Base64.getUrlEncoder().withoutPadding()
+                                .encodeToString(startAfter.getBytes(StandardCharsets.UTF_8));
+        }
+
+        private static Map.Entry<String, Entry> higher(NavigableMap<String, Entry> range, String cursor) {
+                return cursor == null ? range.firstEntry() : range.higherEntry(cursor);
+        }
+
+        private void mark(String bucket, String key, boolean stale) {
+                BucketIndex index = enabled ? buckets.get(bucket) : null;
+                if (index == null) {
+                        return;
+                }
+                long seq = sequence.incrementAndGet();
+                index.lastWrite.accumulateAndGet(seq, Math::max);
+                index.dropVersions(key);
+                // Outside covered prefixes the marker only matters to a load that is still running.
+                if (index.loads.get() > 0 || index.covers(key)) {
+                        index.apply(key, new Entry(null, seq, stale));
+                }
+        }
+
+        private Optional<ObjectSummary> head(String bucket, String key) {
+                long since = sequence.incrementAndGet();
+                Optional<ObjectSummary> object;
+                try {
+                        HeadObjectResponse head = requestCoalescer.headObject(HeadObjectRequest.builder()
+                                        .bucket(bucket)
+                                        .key(key)
+                                        .build());
+                        object = Optional.of(new ObjectSummary(key, head.contentLength(), head.eTag(), head.lastModified(),
+                                        head.storageClass() != null ? head.storageClassAsString() : "STANDARD"));
+                } catch (S3Exception e) {
+                        if (e.statusCode() != 404) {
+                                throw e;
+                        }
+                        object = Optional.empty();
+                }
+                BucketIndex index = enabled ? buckets.get(bucket) : null;
+                if (index != null && index.covers(key)) {
+                        index.apply(key, new Entry(object.orElse(null), since, false));
+                }
+                return object;
+        }
+
+        /**
+         * Refreshes keys written since they were listed, so the range can be
+         * served. Returns false if there are too many to look up one by one.
+         */
+        private boolean resolveStale(String bucket, BucketIndex index, String prefix) {
+                List<String> stale = new ArrayList<>();
+                for (Map.Entry<String, Entry> entry : index.range(prefix).entrySet()) {
+                        if (entry.getValue().stale()) {
+                                if (stale.size() == maxStaleLookups) {
+                                        return false;
+                                }
+                                stale.add(entry.getKey());
+                        }
+                }
+                stale.forEach(key -> head(bucket, key));
+                return true;
+        }
+
+        @PreDestroy
+        public void save() {
+                if (!enabled || snapshot == null) {
+                        return;
+                }
+                Path temp = snapshot.resolveSibling(snapshot.getFileName() + ".tmp");
+                try {
+                        if (snapshot.getParent() != null) {
+                                Files.createDirectories(snapshot.getParent());
+                        }
+                        try (BufferedWriter out = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                                for (Map.Entry<String, BucketIndex> bucket : buckets.entrySet()) {
+                                        BucketIndex index = bucket.getValue();
+                                        for (String prefix : index.covered) {
+                                                write(out, new SnapshotLine(bucket.getKey(), prefix, null));
+                                        }
+                                        for (Entry entry : index.objects.values()) {
+                                                if (entry.object() != null && !entry.stale()) {
+                                                        write(out, new SnapshotLine(bucket.getKey(), null, entry.object()));
+                                                }
+                                        }
+                                }
+                        }
+                        Files.move(temp, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                }
+        }
+
+        private void write(BufferedWriter out, SnapshotLine line) throws IOException {
+                out.write(mapper.writeValueAsString(line));
+                out.newLine();
+        }
+
+        private void restore() {
+                try {
+                        for (String line : Files.readAllLines(snapshot, StandardCharsets.UTF_8)) {
+                                SnapshotLine entry = mapper.readValue(line, SnapshotLine.class);
+                                BucketIndex index = buckets.computeIfAbsent(entry.bucket(), b -> new BucketIndex(maxVersionQueries));
+                                if (entry.prefix() != null) {
+                                        index.cover(entry.prefix());
+                                } else if (entry.object() != null) {
+                                        // Sequence 0 loses to anything recorded after startup.
+                                        index.apply(entry.object().key(), new Entry(entry.object(), 0, false));
+                                }
+                        }
+                } catch (JsonProcessingException e) {
+                        // Unreadable snapshot: start empty and let listings rebuild the index.
+                        buckets.clear();
+                } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                }
+        }
+
+        private static double entries(Map<String, BucketIndex> buckets) {
+                return buckets.values().stream().mapToLong(index -> index.objects.size()).sum();
+        }
+
+        /**
+         * {@code object} is null for a key known to be absent, or for a stale key
+         * whose current state is unknown.
+         */
+        private record Entry(ObjectSummary object, long seq, boolean stale) {
+        }
+
+        private record SnapshotLine(String bucket, String prefix, ObjectSummary object) {
+        }
+
+        private static final class BucketIndex {
+
+                private final ConcurrentSkipListMap<String, Entry> objects = new ConcurrentSkipListMap<>();
+                private final Set<String> covered = ConcurrentHashMap.newKeySet();
+                private final Cache<String, VersionPage> versions;
+                private final AtomicInteger loads = new AtomicInteger();
+                private final AtomicLong lastWrite = new AtomicLong();
+
+                BucketIndex(long maxVersionQueries) {
+                        this.versions = Caffeine.newBuilder().maximumSize(maxVersionQueries).build();
+                }
+
+                boolean covers(String key) {
+                        for (String prefix : covered) {
+                                if (key.startsWith(prefix)) {
+                                        return true;
+                                }
+                        }
+                        return false;
+                }
+
+                void cover(String prefix) {
+                        if (!covers(prefix)) {
+                                covered.removeIf(existing -> existing.startsWith(prefix));
+                                covered.add(prefix);
+                        }
+                }
+
+                NavigableMap<String, Entry> range(String prefix) {
+                        String end = successor(prefix);
+                        if (prefix.isEmpty()) {
+                                return objects;
+                        }
+                        return end != null ? objects.subMap(prefix, true, end, false) : objects.tailMap(prefix, true);
+                }
+
+                /**
+                 * Keeps whichever of the current and new entry was produced later.
+                 */
+                void apply(String key, Entry entry) {
+                        objects.merge(key, entry, (current, fresh) -> current.seq() < fresh.seq() ? fresh : current);
+                }
+
+                void dropVersions(String key) {
+                        for (int i = 0; i <= key.length(); i++) {
+                                versions.invalidate(key.substring(0, i));
+                        }
+                }
+
+                void pruneUncovered() {
+                        if (loads.get() == 0) {
+                                objects.keySet().removeIf(key -> !covers(key));
+                        }
+                }
+
+                /**
+                 * The smallest string greater than every string starting with
+                 * {@code prefix}, or null if there is none.
+                 */
+                private static String successor(String prefix) {
+                        for (int i = prefix.length() - 1; i >= 0; i--) {
+                                if (prefix.charAt(i) != LAST_CHAR) {
+                                        return prefix.substring(0, i) + (char) (prefix.charAt(i) + 1);
+                                }
+                        }
+                        return null;
+                }
+        }
+}
@@ -0,0 +1,215 @@
+package com.example.s3demo.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Pipelined multipart upload engine. Parts are read lazily from the source
+ * stream into pooled buffers and uploaded on a shared worker pool, with at most
+ * {@code concurrency} parts of a single upload in flight at once. Part latency
+ * is published as the {@code s3.transfer.part} histogram and pool queueing as
+ * the {@code executor.*} meters named "s3-multipart".
+ * <p>
+ * Unless {@code checksumAlgorithm} is "none", each part's checksum is computed
+ * on the worker from the buffer it is about to send and carried on the
+ * UploadPart, so S3 rejects a part corrupted in transit, and again on
+ * completion, so S3 keeps per-part checksums that downloads can verify against.
+ */
+@Component
+public class MultipartUploader {
+
+        static final long MIN_PART_SIZE = 5L * 1024 * 1024;
+        static final int MAX_PARTS = 10_000;
+
+        private final S3Client s3Client;
+        private final int partSize;
+        private final int concurrency;
+        private final ExecutorService executor;
+        private final BlockingQueue<byte[]> bufferPool;
+        private final Timer partTimer;
+        private final ChecksumAlgorithm checksumAlgorithm;
+
+        public MultipartUploader(S3Client s3Client, MeterRegistry meterRegistry,
+                        @Value("${aws.s3.multipart.part-size:8MB}") DataSize partSize,
+                        @Value("${aws.s3.multipart.concurrency:4}") int concurrency,
+                        @Value("${aws.s3.multipart.threads:16}") int threads,
+                        @Value("${aws.s3.checksum.algorithm:crc32c}") String checksumAlgorithm) {
+                this.s3Client = s3Client;
+                this.partSize = (int) Math.max(MIN_PART_SIZE, partSize.toBytes());
+                this.concurrency = Math.max(1, concurrency);
+                this.executor = ExecutorServiceMetrics.monitor(meterRegistry,
+                                Executors.newFixedThreadPool(Math.max(1, threads), Transfers.daemonThreads("s3-multipart-")),
+                                "s3-multipart");
+                this.bufferPool = new ArrayBlockingQueue<>(Math.max(1, threads));
+                this.partTimer = Transfers.partTimer(meterRegistry, "upload");
+                this.checksumAlgorithm = Checksums.algorithm(checksumAlgorithm).orElse(null);
+        }
+
+        /**
+         * Uploads {@code source} as a multipart object. {@code contentLength} is a
+         * hint (use -1 if unknown) used to grow the part size so very large objects
+         * stay within the 10,000 part limit. On any failure the upload is aborted;
+         * a failed part stops the source being read any further.
+         */
+        public String upload(String bucket, String key, String contentType, InputStream source, long contentLength)
+                        throws IOException {
+                return upload(bucket, key, contentType, null, null, source, contentLength);
+        }
+
+        /**
+         * As {@link #upload(String, String, String, InputStream, long)}, storing
+         * the given {@code Content-Encoding} and user metadata (either may be null).
+         */
+        public String upload(String bucket, String key, String contentType, String contentEncoding,
+                        Map<String, String> metadata, InputStream source, long contentLength) throws IOException {
+                int effectivePartSize = effectivePartSize(contentLength);
+                String uploadId = s3Client.createMultipartUpload(CreateMultipartUploadRequest.builder()
+                                .bucket(bucket)
+                                .key(key)
+                                .contentType(contentType)
+                                .contentEncoding(contentEncoding)
+                                .metadata(metadata)
+                                .checksumAlgorithm(checksumAlgorithm)
+                                .build()).uploadId();
+
+                Semaphore inFlight = new Semaphore(concurrency);
+                AtomicBoolean failed = new AtomicBoolean();
+                List<Future<CompletedPart>> futures = new ArrayList<>();
+                try {
+                        int partNumber = 1;
+                        boolean more = true;
+                        while (more) {
+                                inFlight.acquire();
+                                if (failed.get()) {
+                                        // The upload will be aborted; get() below rethrows the part's failure.
+                                        inFlight.release();
+                                        break;
+                                }
+                                byte[] buffer = acquireBuffer(effectivePartSize);
+                                int read;
+                                try {
+                                        read = Transfers.readFully(source, buffer);
+                                } catch (IOException | RuntimeException e) {
+                                        releaseBuffer(buffer);
+                                        inFlight.release();
+                                        throw e;
+                                }
+                                more = read == buffer.length;
+                                if (read == 0 && partNumber > 1) {
+                                        releaseBuffer(buffer);
+                                        inFlight.release();
+                                        break;
+                                }
+                                futures.add(executor.submit(
+                                                uploadPartTask(bucket, key, uploadId, partNumber++, buffer, read, inFlight, failed)));
+                        }
+
+                        List<CompletedPart> completedParts = new ArrayList<>(futures.size());
+                        for (Future<CompletedPart> future : futures) {
+                                completedParts.add(future.get());
+                        }
+                        completedParts.sort(Comparator.comparing(CompletedPart::partNumber));
+
+                        s3Client.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+                                        .bucket(bucket)
+                                        .key(key)
+                                        .uploadId(uploadId)
+                                        .multipartUpload(CompletedMultipartUpload.builder()
+                                                        .parts(completedParts)
+                                                        .build())
+                                        .build());
+                        return uploadId;
+                } catch (Exception e) {
+                        futures.forEach(f -> f.cancel(true));
+                        s3Client.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+                                        .bucket(bucket)
+                                        .key(key)
+                                        .uploadId(uploadId)
+                                        .build());
+                        throw Transfers.rethrow(e);
+                }
+        }
+
+        private Callable<CompletedPart> uploadPartTask(String bucket, String key, String uploadId, int partNumber,
+                        byte[] buffer, int length, Semaphore inFlight, AtomicBoolean failed) {
+                return () -> {
+                        try {
+                                UploadPartRequest.Builder request = UploadPartRequest.builder()
+                                                .bucket(bucket)
+                                                .key(key)
+                                                .uploadId(uploadId)
+                                                .partNumber(partNumber)
+                                                .contentLength((long) length);
+                                CompletedPart.Builder part = CompletedPart.builder().partNumber(partNumber);
+                                if (checksumAlgorithm != null) {
+                                        String checksum = Checksums.checksum(checksumAlgorithm, buffer, 0, length);
+                                        Checksums.withChecksum(request, checksumAlgorithm, checksum);
+                                        Checksums.withChecksum(part, checksumAlgorithm, checksum);
+                                }
+                                // The provider re-wraps the pooled buffer on each attempt, so retries don't copy it.
+                                RequestBody body = RequestBody.fromContentProvider(
+                                                () -> new ByteArrayInputStream(buffer, 0, length), length,
+                                                "application/octet-stream");
+                                String etag = partTimer.recordCallable(() -> s3Client.uploadPart(request.build(), body).eTag());
+                                return part.eTag(etag).build();
+                        } catch (Exception e) {
+                                failed.set(true);
+                                throw e;
+                        } finally {
+                                releaseBuffer(buffer);
+                                inFlight.release();
+                        }
+                };
+        }
+
+        /**
+         * The additional checksum uploads are stored with, or empty when
+         * checksums are disabled.
+         */
+        public Optional<ChecksumAlgorithm> checksumAlgorithm() {
+                return Optional.ofNullable(checksumAlgorithm);
+        }
+
+        int effectivePartSize(long contentLength) {
+                if (contentLength <= 0) {
+                        return partSize;
+                }
+                long needed = (contentLength + MAX_PARTS - 1) / MAX_PARTS;
+                return (int) Math.min(Integer.MAX_VALUE - 8, Math.max(partSize, needed));
+        }
+
+        private byte[] acquireBuffer(int size) {
+                byte[] buffer = size == partSize ? bufferPool.poll() : null;
+                return buffer != null ? buffer : new byte[size];
+        }
+
+        private void releaseBuffer(byte[] buffer) {
+                if (buffer.length == partSize) {
+                        bufferPool.offer(buffer);
+                }
+        }
+
+        @PreDestroy
+        public void shutdown() {
+                executor.shutdownNow();
+        }
+}
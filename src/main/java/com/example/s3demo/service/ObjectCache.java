@@ -0,0 +1,407 @@
+package com.example.s3demo.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+
+/**
+ * Read-through cache for whole-object GETs with two byte-bounded tiers:
+ * <ul>
+ *   <li>heap, for objects up to {@code aws.s3.cache.heap.max-object-size}</li>
+ *   <li>disk, memory-mapped files for objects up to {@code aws.s3.cache.disk.max-object-size}</li>
+ * </ul>
+ * Both tiers use Caffeine's W-TinyLFU eviction weighted by object size. Entries
+ * older than the TTL are revalidated with {@code If-None-Match}; a 304 keeps the
+ * cached bytes. Misses are filled while the caller streams the response, and a
+ * fill is only committed once the full body has been read.
+ */
+@Component
+public class ObjectCache {
+
+        private static final int VERSION_STRIPES = 1024;
+
+        private final RequestCoalescer requestCoalescer;
+        private final boolean enabled;
+        private final long ttlNanos;
+        private final long heapMaxObjectSize;
+        private final long diskMaxObjectSize;
+        private final Path directory;
+        private final Cache<CacheKey, CachedObject> heap;
+        private final Cache<CacheKey, CachedObject> disk;
+        // Bumped on invalidation so fills that started before a write are not committed.
+        private final AtomicLongArray versions = new AtomicLongArray(VERSION_STRIPES);
+        private final Counter notModified;
+        private final Counter modified;
+
+        public ObjectCache(RequestCoalescer requestCoalescer, MeterRegistry meterRegistry,
+                        @Value("${aws.s3.cache.enabled:false}") boolean enabled,
+                        @Value("${aws.s3.cache.ttl:30s}") Duration ttl,
+                        @Value("${aws.s3.cache.heap.max-bytes:64MB}") DataSize heapMaxBytes,
+                        @Value("${aws.s3.cache.heap.max-object-size:1MB}") DataSize heapMaxObjectSize,
+                        @Value("${aws.s3.cache.disk.max-bytes:1GB}") DataSize diskMaxBytes,
+                        @Value("${aws.s3.cache.disk.max-object-size:64MB}") DataSize diskMaxObjectSize,
+                        @Value("${aws.s3.cache.disk.dir:${java.io.tmpdir}/s3-object-cache}") Path directory) {
+                this.requestCoalescer = requestCoalescer;
+                this.enabled = enabled;
+                this.ttlNanos = ttl.toNanos();
+                this.heapMaxObjectSize = heapMaxObjectSize.toBytes();
+                this.diskMaxObjectSize = Math.min(Integer.MAX_VALUE, diskMaxObjectSize.toBytes());
+                this.directory = directory;
+                this.heap = Caffeine.newBuilder()
+                                .maximumWeight(heapMaxBytes.toBytes())
+                                .weigher(ObjectCache::weigh)
+                                .recordStats()
+                                .build();
+                this.disk = Caffeine.newBuilder()
+                                .maximumWeight(diskMaxBytes.toBytes())
+                                .weigher(ObjectCache::weigh)
+                                .removalListener((key, value, cause) -> {
+                                        if (value != null) {
+                                                value.discard();
+                                        }
+                                })
+                                .recordStats()
+                                .build();
+                this.notModified = Counter.builder("s3.object.cache.revalidations")
+                                .tag("result", "not_modified")
+                                .register(meterRegistry);
+                this.modified = Counter.builder("s3.object.cache.revalidations")
+                                .tag("result", "modified")
+                                .register(meterRegistry);
+
+                if (enabled) {
+                        try {
+                                Files.createDirectories(directory);
+                        } catch (IOException e) {
+                                throw new UncheckedIOException(e);
+                        }
+                        CaffeineCacheMetrics.monitor(meterRegistry, heap, "s3.object.cache", "tier", "heap");
+                        CaffeineCacheMetrics.monitor(meterRegistry, disk, "s3.object.cache", "tier", "disk");
+                        Gauge.builder("s3.object.cache.bytes", heap, ObjectCache::weightedSize)
+                                        .tag("tier", "heap")
+                                        .register(meterRegistry);
+                        Gauge.builder("s3.object.cache.bytes", disk, ObjectCache::weightedSize)
+                                        .tag("tier", "disk")
+                                        .register(meterRegistry);
+                }
+        }
+
+        public boolean isEnabled() {
+                return enabled;
+        }
+
+        /**
+         * Whether an object of {@code length} bytes is small enough to be kept
+         * by {@link #open} once read.
+         */
+        public boolean caches(long length) {
+                return enabled && length <= diskMaxObjectSize;
+        }
+
+        /**
+         * Opens the whole object, from cache when possible. The returned stream
+         * must be closed by the caller; reading it to the end populates the cache.
+         */
+        public ResponseInputStream<GetObjectResponse> open(String bucket, String key) {
+                CacheKey cacheKey = new CacheKey(bucket, key);
+                CachedObject cached = heap.getIfPresent(cacheKey);
+                if (cached == null) {
+                        cached = disk.getIfPresent(cacheKey);
+                }
+                GetObjectRequest.Builder request = GetObjectRequest.builder().bucket(bucket).key(key);
+                if (cached == null) {
+                        return fill(cacheKey, requestCoalescer.getObject(request.build()));
+                }
+                if (System.nanoTime() - cached.validatedAt < ttlNanos) {
+                        return cached.open();
+                }
+                try {
+                        ResponseInputStream<GetObjectResponse> changed = requestCoalescer.getObject(
+                                        request.ifNoneMatch(cached.response.eTag()).build());
+                        modified.increment();
+                        return fill(cacheKey, changed);
+                } catch (S3Exception e) {
+                        if (e.statusCode() != 304) {
+                                throw e;
+                        }
+                        notModified.increment();
+                        cached.validatedAt = System.nanoTime();
+                        return cached.open();
+                }
+        }
+
+        public void invalidate(String bucket, String key) {
+                CacheKey cacheKey = new CacheKey(bucket, key);
+                versions.incrementAndGet(stripe(cacheKey));
+                heap.invalidate(cacheKey);
+                disk.invalidate(cacheKey);
+        }
+
+        private ResponseInputStream<GetObjectResponse> fill(CacheKey cacheKey, ResponseInputStream<GetObjectResponse> source) {
+                GetObjectResponse response = source.response();
+                Long length = response.contentLength();
+                if (length == null || length > diskMaxObjectSize) {
+                        return source;
+                }
+                long version = versions.get(stripe(cacheKey));
+                InputStream filling = new FillingInputStream(source, length, length <= heapMaxObjectSize,
+                                object -> {
+                                        if (versions.get(stripe(cacheKey)) != version) {
+                                                object.discard();
+                                                return;
+                                        }
+                                        if (object.file == null) {
+                                                disk.invalidate(cacheKey);
+                                                heap.put(cacheKey, object);
+                                        } else {
+                                                heap.invalidate(cacheKey);
+                                                disk.put(cacheKey, object);
+                                        }
+                                });
+                return new ResponseInputStream<>(response, AbortableInputStream.create(filling, source::abort));
+        }
+
+        private static int stripe(CacheKey cacheKey) {
+                return Math.floorMod(cacheKey.hashCode(), VERSION_STRIPES);
+        }
+
+        private static int weigh(CacheKey key, CachedObject value) {
+                return value.data.capacity();
+        }
+
+        private static double weightedSize(Cache<CacheKey, CachedObject> cache) {
+                return cache.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0)).orElse(0L);
+        }
+
+        private record CacheKey(String bucket, String key) {
+        }
+
+        private static final class CachedObject {
+
+                private final GetObjectResponse response;
+                private final ByteBuffer data;
+                private final Path file;
+                private volatile long validatedAt = System.nanoTime();
+
+                CachedObject(GetObjectResponse response, ByteBuffer data, Path file) {
+                        this.response = response;
+                        this.data = data;
+                        this.file = file;
+                }
+
+                ResponseInputStream<GetObjectResponse> open() {
+                        return new ResponseInputStream<>(response,
+                                        AbortableInputStream.create(new ByteBufferInputStream(data.duplicate())));
+                }
+
+                void discard() {
+                        if (file != null) {
+                                try {
+                                        Files.deleteIfExists(file);
+                                } catch (IOException ignored) {
+                                        // Best effort; the cache directory is scratch space.
+                                }
+                        }
+                }
+        }
+
+        /**
+         * Copies bytes into the cache as the caller reads them. A failed or partial
+         * read discards the fill; the caller's stream is unaffected either way.
+         */
+        private final class FillingInputStream extends FilterInputStream {
+
+                private final ResponseInputStream<GetObjectResponse> source;
+                private final long length;
+                private final Consumer<CachedObject> onComplete;
+                private byte[] heapBuffer;
+                private Path file;
+                private FileChannel channel;
+                private long written;
+                private boolean done;
+
+                FillingInputStream(ResponseInputStream<GetObjectResponse> source, long length, boolean onHeap,
+                                Consumer<CachedObject> onComplete) {
+                        super(source);
+                        this.source = source;
+                        this.length = length;
+                        this.onComplete = onComplete;
+                        try {
+                                if (onHeap) {
+                                        heapBuffer = new byte[(int) length];
+                                } else {
+                                        file = Files.createTempFile(directory, "object-", ".bin");
+                                        channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                                }
+                        } catch (IOException e) {
+                                abandon();
+                        }
+                }
+
+                @Override
+                public int read() throws IOException {
+                        int b = super.read();
+                        if (b < 0) {
+                                complete();
+                        } else {
+                                append(new byte[] {(byte) b}, 0, 1);
+                        }
+                        return b;
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) throws IOException {
+                        int n = super.read(b, off, len);
+                        if (n < 0) {
+                                complete();
+                        } else {
+                                append(b, off, n);
+                        }
+                        return n;
+                }
+
+                @Override
+                public long skip(long n) throws IOException {
+                        // Skipping would leave a hole in the fill, so stop caching this one.
+                        abandon();
+                        return super.skip(n);
+                }
+
+                @Override
+                public void close() throws IOException {
+                        try {
+                                source.close();
+                        } finally {
+                                if (!done) {
+                                        abandon();
+                                }
+                        }
+                }
+
+                private void append(byte[] b, int off, int n) {
+                        if (done || n == 0) {
+                                return;
+                        }
+                        try {
+                                if (written + n > length) {
+                                        abandon();
+                                        return;
+                                }
+                                if (heapBuffer != null) {
+                                        System.arraycopy(b, off, heapBuffer, (int) written, n);
+                                } else {
+                                        ByteBuffer chunk = ByteBuffer.wrap(b, off, n);
+                                        while (chunk.hasRemaining()) {
+                                                channel.write(chunk);
+                                        }
+                                }
+                                written += n;
+                        } catch (IOException e) {
+                                abandon();
+                        }
+                }
+
+                private void complete() {
+                        if (done) {
+                                return;
+                        }
+                        if (written != length) {
+                                abandon();
+                                return;
+                        }
+                        done = true;
+                        try {
+                                if (heapBuffer != null) {
+                                        onComplete.accept(new CachedObject(source.response(),
+                                                        ByteBuffer.wrap(heapBuffer).asReadOnlyBuffer(), null));
+                                } else {
+                                        ByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+                                        channel.close();
+                                        onComplete.accept(new CachedObject(source.response(), mapped, file));
+                                }
+                        } catch (IOException e) {
+                                done = false;
+                                abandon();
+                        }
+                }
+
+                private void abandon() {
+                        done = true;
+                        heapBuffer = null;
+                        if (channel != null) {
+                                try {
+                                        channel.close();
+                                } catch (IOException ignored) {
+                                        // Nothing useful to do; the file is deleted below.
+                                }
+                        }
+                        if (file != null) {
+                                try {
+                                        Files.deleteIfExists(file);
+                                } catch (IOException ignored) {
+                                        // Best effort; the cache directory is scratch space.
+                                }
+                        }
+                }
+        }
+
+        private static final class ByteBufferInputStream extends InputStream {
+
+                private final ByteBuffer buffer;
+
+                ByteBufferInputStream(ByteBuffer buffer) {
+                        this.buffer = buffer;
+                }
+
+                @Override
+                public int read() {
+                        return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                        if (!buffer.hasRemaining()) {
+                                return -1;
+                        }
+                        int n = Math.min(len, buffer.remaining());
+                        buffer.get(b, off, n);
+                        return n;
+                }
+
+                @Override
+                public long skip(long n) {
+                        int skipped = (int) Math.max(0, Math.min(n, buffer.remaining()));
+                        buffer.position(buffer.position() + skipped);
+                        return skipped;
+                }
+
+                @Override
+                public int available() {
+                        return buffer.remaining();
+                }
+        }
+}
@@ -0,0 +1,332 @@
+package com.example.s3demo.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Optional compression stage for uploads and the matching decode for
+ * downloads. Objects whose content type matches {@code contentTypes} and whose
+ * size is at least {@code minSize} are compressed while they stream: the
+ * compressed bytes are pulled through the codec a chunk at a time, so neither
+ * side is ever fully buffered. Sources of at most {@code singlePutLimit} bytes
+ * are compressed in memory and stored with a single PUT; anything larger, or
+ * of unknown length, streams through {@link MultipartUploader} and its pooled
+ * part buffers.
+ * <p>
+ * The codec is stored as the object's {@code Content-Encoding} and in its
+ * metadata, alongside the uncompressed length. Bytes in and out and the
+ * thread CPU time spent inside the codec are published per codec
+ * ({@code s3.compression.*}).
+ */
+@Component
+public class ObjectCompressor {
+
+        static final String CODEC_METADATA = "codec";
+        static final String UNCOMPRESSED_LENGTH_METADATA = "uncompressed-length";
+        private static final int CHUNK_SIZE = 64 * 1024;
+        private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+        private final S3Client s3Client;
+        private final MultipartUploader multipartUploader;
+        private final MeterRegistry meterRegistry;
+        private final boolean enabled;
+        private final CompressionCodec codec;
+        private final long minSize;
+        private final List<MediaType> contentTypes;
+        private final int singlePutLimit;
+
+        public ObjectCompressor(S3Client s3Client, MultipartUploader multipartUploader, MeterRegistry meterRegistry,
+                        @Value("${aws.s3.compression.enabled:false}") boolean enabled,
+                        @Value("${aws.s3.compression.codec:gzip}") String codec,
+                        @Value("${aws.s3.compression.min-size:1KB}") DataSize minSize,
+                        @Value("${aws.s3.compression.content-types:text/*,application/json,application/x-ndjson,application/xml}")
+                        List<String> contentTypes,
+                        @Value("${aws.s3.compression.single-put-limit:1MB}") DataSize singlePutLimit) {
+                this.s3Client = s3Client;
+                this.multipartUploader = multipartUploader;
+                this.meterRegistry = meterRegistry;
+                this.enabled = enabled;
+                this.codec = CompressionCodec.of(codec)
+                                .orElseThrow(() -> new IllegalArgumentException("Unsupported aws.s3.compression.codec: " + codec));
+                this.minSize = minSize.toBytes();
+                this.contentTypes = contentTypes.stream().map(MediaType::parseMediaType).toList();
+                this.singlePutLimit = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(0, singlePutLimit.toBytes()));
+        }
+
+        /**
+         * The codec to store an upload with, or empty to store it as sent.
+         */
+        public Optional<CompressionCodec> codecFor(String contentType, long size) {
+                if (!enabled || size < minSize || contentType == null) {
+                        return Optional.empty();
+                }
+                try {
+                        MediaType mediaType = MediaType.parseMediaType(contentType);
+                        return contentTypes.stream().anyMatch(type -> type.includes(mediaType))
+                                        ? Optional.of(codec)
+                                        : Optional.empty();
+                } catch (InvalidMediaTypeException e) {
+                        return Optional.empty();
+                }
+        }
+
+        /**
+         * The codec an object was stored with, from its metadata or, for objects
+         * written elsewhere, its {@code Content-Encoding}.
+         */
+        public static Optional<CompressionCodec> storedCodec(String contentEncoding, Map<String, String> metadata) {
+                Optional<CompressionCodec> recorded = CompressionCodec.of(metadata != null ? metadata.get(CODEC_METADATA) : null);
+                return recorded.isPresent() ? recorded : CompressionCodec.of(contentEncoding);
+        }
+
+        /**
+         * Uncompressed length recorded at upload time, or null if unknown.
+         */
+        public static Long uncompressedLength(Map<String, String> metadata) {
+                String length = metadata != null ? metadata.get(UNCOMPRESSED_LENGTH_METADATA) : null;
+                return length != null ? Long.valueOf(length) : null;
+        }
+
+        /**
+         * Compresses {@code source} ({@code size} bytes, or -1 if unknown) with
+         * {@code codec} and stores it under {@code key}.
+         */
+        public void upload(String bucket, String key, String contentType, InputStream source, long size,
+                        CompressionCodec codec) throws IOException {
+                Map<String, String> metadata = Map.of(CODEC_METADATA, codec.contentEncoding(),
+                                UNCOMPRESSED_LENGTH_METADATA, Long.toString(size));
+                try (CompressingInputStream compressed = new CompressingInputStream(source, codec)) {
+                        if (size >= 0 && size <= singlePutLimit) {
+                                // Compressed output of a small source stays about as small, so holding it is bounded.
+                                byte[] body = compressed.readAllBytes();
+                                s3Client.putObject(PutObjectRequest.builder()
+                                                .bucket(bucket)
+                                                .key(key)
+                                                .contentType(contentType)
+                                                .contentEncoding(codec.contentEncoding())
+                                                .metadata(metadata)
+                                                .checksumAlgorithm(multipartUploader.checksumAlgorithm().orElse(null))
+                                                .build(), RequestBody.fromContentProvider(
+                                                () -> new ByteArrayInputStream(body), body.length, contentType));
+                        } else {
+                                // The compressed length is unknown up front; the original size is a safe part-size hint.
+                                multipartUploader.upload(bucket, key, contentType, codec.contentEncoding(), metadata,
+                                                compressed, size);
+                        }
+                }
+        }
+
+        /**
+         * Wraps a stored object's stream so reads return the original bytes.
+         */
+        public InputStream decompress(InputStream in, CompressionCodec codec) throws IOException {
+                return new DecompressingInputStream(in, codec);
+        }
+
+        private void record(CompressionCodec codec, String operation, long compressed, long uncompressed, long cpuNanos) {
+                Counter.builder("s3.compression.bytes")
+                                .description("Bytes through the codec, before and after")
+                                .baseUnit("bytes")
+                                .tags("codec", codec.contentEncoding(), "operation", operation, "form", "uncompressed")
+                                .register(meterRegistry)
+                                .increment(uncompressed);
+                Counter.builder("s3.compression.bytes")
+                                .description("Bytes through the codec, before and after")
+                                .baseUnit("bytes")
+                                .tags("codec", codec.contentEncoding(), "operation", operation, "form", "compressed")
+                                .register(meterRegistry)
+                                .increment(compressed);
+                if (uncompressed > 0 && "compress".equals(operation)) {
+                        DistributionSummary.builder("s3.compression.ratio")
+                                        .description("Compressed size as a fraction of the original, per object")
+                                        .tag("codec", codec.contentEncoding())
+                                        .register(meterRegistry)
+                                        .record((double) compressed / uncompressed);
+                }
+                Timer.builder("s3.compression.cpu")
+                                .description("Thread CPU time spent inside the codec")
+                                .tags("codec", codec.contentEncoding(), "operation", operation)
+                                .register(meterRegistry)
+                                .record(cpuNanos, TimeUnit.NANOSECONDS);
+        }
+
+        private static long cpuTime() {
+                return THREADS.isCurrentThreadCpuTimeSupported() ? THREADS.getCurrentThreadCpuTime() : System.nanoTime();
+        }
+
+        /**
+         * Pull-based encoder: each read feeds the next source chunk through the
+         * codec into a small buffer and serves the compressed bytes from it.
+         */
+        private final class CompressingInputStream extends InputStream {
+
+                private final InputStream source;
+                private final CompressionCodec codec;
+                private final ExposedBuffer buffer = new ExposedBuffer();
+                private final OutputStream encoder;
+                private final byte[] chunk = new byte[CHUNK_SIZE];
+                private int position;
+                private boolean finished;
+                private boolean recorded;
+                private long consumed;
+                private long produced;
+                private long cpuNanos;
+
+                CompressingInputStream(InputStream source, CompressionCodec codec) throws IOException {
+                        this.source = source;
+                        this.codec = codec;
+                        long start = cpuTime();
+                        this.encoder = codec.encoder(buffer);
+                        cpuNanos += cpuTime() - start;
+                }
+
+                @Override
+                public int read() throws IOException {
+                        byte[] one = new byte[1];
+                        return read(one, 0, 1) < 0 ? -1 : one[0] & 0xff;
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) throws IOException {
+                        if (len == 0) {
+                                return 0;
+                        }
+                        while (position == buffer.size()) {
+                                if (finished) {
+                                        return -1;
+                                }
+                                buffer.reset();
+                                position = 0;
+                                int n = source.read(chunk);
+                                long start = cpuTime();
+                                if (n < 0) {
+                                        encoder.close();
+                                        finished = true;
+                                } else {
+                                        encoder.write(chunk, 0, n);
+                                        consumed += n;
+                                }
+                                cpuNanos += cpuTime() - start;
+                        }
+                        int n = Math.min(len, buffer.size() - position);
+                        System.arraycopy(buffer.array(), position, b, off, n);
+                        position += n;
+                        produced += n;
+                        return n;
+                }
+
+                @Override
+                public void close() throws IOException {
+                        if (finished && !recorded) {
+                                recorded = true;
+                                record(codec, "compress", produced, consumed, cpuNanos);
+                        }
+                        source.close();
+                }
+        }
+
+        /**
+         * Decoder that times its own reads, so the codec's CPU cost can be
+         * reported next to the compressor's.
+         */
+        private final class DecompressingInputStream extends FilterInputStream {
+
+                private final CompressionCodec codec;
+                private final CountingInputStream compressed;
+                private long produced;
+                private long cpuNanos;
+                private boolean recorded;
+
+                DecompressingInputStream(InputStream in, CompressionCodec codec) throws IOException {
+                        this(new CountingInputStream(in), codec);
+                }
+
+                private DecompressingInputStream(CountingInputStream compressed, CompressionCodec codec) throws IOException {
+                        super(codec.decoder(compressed));
+                        this.compressed = compressed;
+                        this.codec = codec;
+                }
+
+                @Override
+                public int read() throws IOException {
+                        byte[] one = new byte[1];
+                        return read(one, 0, 1) < 0 ? -1 : one[0] & 0xff;
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) throws IOException {
+                        long start = cpuTime();
+                        int n = super.read(b, off, len);
+                        cpuNanos += cpuTime() - start;
+                        if (n > 0) {
+                                produced += n;
+                        }
+                        return n;
+                }
+
+                @Override
+                public void close() throws IOException {
+                        if (!recorded) {
+                                recorded = true;
+                                record(codec, "decompress", compressed.count, produced, cpuNanos);
+                        }
+                        super.close();
+                }
+        }
+
+        private static final class CountingInputStream extends FilterInputStream {
+
+                private long count;
+
+                CountingInputStream(InputStream in) {
+                        super(in);
+                }
+
+                @Override
+                public int read() throws IOException {
+                        int b = super.read();
+                        if (b >= 0) {
+                                count++;
+                        }
+                        return b;
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) throws IOException {
+                        int n = super.read(b, off, len);
+                        if (n > 0) {
+                                count += n;
+                        }
+                        return n;
+                }
+        }
+
+        private static final class ExposedBuffer extends ByteArrayOutputStream {
+
+                ExposedBuffer() {
+                        super(CHUNK_SIZE);
+                }
+
+                byte[] array() {
+                        return buf;
+                }
+        }
+}
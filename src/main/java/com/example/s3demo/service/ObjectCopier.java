@@ -0,0 +1,236 @@
+package com.example.s3demo.service;
+
+import com.example.s3demo.model.CopyOutcome;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+
+/**
+ * Server-side copies: S3 moves the bytes, never this JVM. Objects below
+ * {@code multipartThreshold} use a single CopyObject (capped at its 5GB
+ * limit); larger ones are split into byte ranges copied concurrently with
+ * UploadPartCopy, at most {@code concurrency} parts of one object in flight.
+ * Every part carries {@code x-amz-copy-source-if-match}, so an overwrite of
+ * the source mid-copy fails the copy instead of splicing two versions.
+ * <p>
+ * Prefix copies list the source and keep up to {@code bulkConcurrency}
+ * objects in flight. Part copies run on their own pool, so a large object in
+ * a bulk copy cannot starve waiting on the pool it occupies.
+ */
+@Component
+public class ObjectCopier {
+
+        static final long MAX_COPY_OBJECT_SIZE = 5L * 1024 * 1024 * 1024;
+
+        private final S3Client s3Client;
+        private final long multipartThreshold;
+        private final long partSize;
+        private final int concurrency;
+        private final int bulkConcurrency;
+        private final ExecutorService partExecutor;
+        private final ExecutorService objectExecutor;
+
+        public ObjectCopier(S3Client s3Client,
+                        @Value("${aws.s3.copy.multipart-threshold:5GB}") DataSize multipartThreshold,
+                        @Value("${aws.s3.copy.part-size:256MB}") DataSize partSize,
+                        @Value("${aws.s3.copy.concurrency:8}") int concurrency,
+                        @Value("${aws.s3.copy.bulk-concurrency:16}") int bulkConcurrency,
+                        @Value("${aws.s3.copy.threads:16}") int threads) {
+                this.s3Client = s3Client;
+                this.multipartThreshold = Math.min(MAX_COPY_OBJECT_SIZE, multipartThreshold.toBytes());
+                this.partSize = Math.min(MAX_COPY_OBJECT_SIZE, Math.max(MultipartUploader.MIN_PART_SIZE, partSize.toBytes()));
+                this.concurrency = Math.max(1, concurrency);
+                this.bulkConcurrency = Math.max(1, bulkConcurrency);
+                this.partExecutor = Executors.newFixedThreadPool(Math.max(1, threads), Transfers.daemonThreads("s3-copy-part-"));
+                this.objectExecutor = Executors.newFixedThreadPool(this.bulkConcurrency, Transfers.daemonThreads("s3-copy-"));
+        }
+
+        /**
+         * Copies one object, choosing CopyObject or a parallel multipart copy by
+         * size. Returns the destination ETag.
+         */
+        public String copy(String sourceBucket, String sourceKey, String destinationBucket, String destinationKey)
+                        throws IOException {
+                HeadObjectResponse head = s3Client.headObject(HeadObjectRequest.builder()
+                                .bucket(sourceBucket)
+                                .key(sourceKey)
+                                .build());
+                if (head.contentLength() < multipartThreshold) {
+                        return copyObject(sourceBucket, sourceKey, head.eTag(), destinationBucket, destinationKey);
+                }
+                return multipartCopy(sourceBucket, sourceKey, head, destinationBucket, destinationKey);
+        }
+
+        /**
+         * Copies every object under {@code sourcePrefix} to the same relative key
+         * under {@code destinationPrefix}. With {@code move}, each source is
+         * deleted once its copy has succeeded. Results go to {@code sink} as each
+         * object finishes; a failed object does not stop the others.
+         */
+        public void copyPrefix(String sourceBucket, String sourcePrefix, String destinationBucket,
+                        String destinationPrefix, boolean move, Consumer<List<CopyOutcome>> sink) throws IOException {
+                if (overlaps(sourceBucket, sourcePrefix, destinationBucket, destinationPrefix)) {
+                        throw new IllegalArgumentException("Destination prefix must not be inside the source prefix");
+                }
+                Object lock = new Object();
+                Semaphore inFlight = new Semaphore(bulkConcurrency);
+                List<Future<?>> futures = new ArrayList<>();
+                ListObjectsV2Request request = ListObjectsV2Request.builder()
+                                .bucket(sourceBucket)
+                                .prefix(sourcePrefix)
+                                .build();
+                try {
+                        for (S3Object object : s3Client.listObjectsV2Paginator(request).contents()) {
+                                String destinationKey = destinationPrefix + object.key().substring(sourcePrefix.length());
+                                inFlight.acquire();
+                                futures.add(objectExecutor.submit(() -> {
+                                        try {
+                                                CopyOutcome outcome = copyListed(sourceBucket, object, destinationBucket,
+                                                                destinationKey, move);
+                                                synchronized (lock) {
+                                                        sink.accept(List.of(outcome));
+                                                }
+                                        } finally {
+                                                inFlight.release();
+                                        }
+                                }));
+                        }
+                        for (Future<?> future : futures) {
+                                future.get();
+                        }
+                } catch (Exception e) {
+                        futures.forEach(f -> f.cancel(true));
+                        throw Transfers.rethrow(e);
+                }
+        }
+
+        /**
+         * Whether the copy would write into the range it is still listing, which
+         * would copy its own output.
+         */
+        public static boolean overlaps(String sourceBucket, String sourcePrefix, String destinationBucket,
+                        String destinationPrefix) {
+                return sourceBucket.equals(destinationBucket) && destinationPrefix.startsWith(sourcePrefix);
+        }
+
+        private CopyOutcome copyListed(String sourceBucket, S3Object object, String destinationBucket,
+                        String destinationKey, boolean move) {
+                try {
+                        // The listing already has size and ETag, so small objects skip the HeadObject.
+                        String eTag = object.size() < multipartThreshold
+                                        ? copyObject(sourceBucket, object.key(), object.eTag(), destinationBucket, destinationKey)
+                                        : copy(sourceBucket, object.key(), destinationBucket, destinationKey);
+                        if (move) {
+                                s3Client.deleteObject(DeleteObjectRequest.builder()
+                                                .bucket(sourceBucket)
+                                                .key(object.key())
+                                                .build());
+                        }
+                        return CopyOutcome.copied(object.key(), destinationKey, object.size(), eTag);
+                } catch (SdkException | IOException e) {
+                        return CopyOutcome.failed(object.key(), destinationKey, object.size(), Transfers.errorCode(e),
+                                        e.getMessage());
+                }
+        }
+
+        private String copyObject(String sourceBucket, String sourceKey, String eTag, String destinationBucket,
+                        String destinationKey) {
+                return s3Client.copyObject(CopyObjectRequest.builder()
+                                .sourceBucket(sourceBucket)
+                                .sourceKey(sourceKey)
+                                .copySourceIfMatch(eTag)
+                                .destinationBucket(destinationBucket)
+                                .destinationKey(destinationKey)
+                                .build()).copyObjectResult().eTag();
+        }
+
+        private String multipartCopy(String sourceBucket, String sourceKey, HeadObjectResponse head,
+                        String destinationBucket, String destinationKey) throws IOException {
+                // UploadPartCopy does not carry metadata over the way CopyObject does, so set it on the new upload.
+                String uploadId = s3Client.createMultipartUpload(CreateMultipartUploadRequest.builder()
+                                .bucket(destinationBucket)
+                                .key(destinationKey)
+                                .contentType(head.contentType())
+                                .cacheControl(head.cacheControl())
+                                .contentDisposition(head.contentDisposition())
+                                .contentEncoding(head.contentEncoding())
+                                .contentLanguage(head.contentLanguage())
+                                .metadata(head.metadata())
+                                .build()).uploadId();
+
+                long size = head.contentLength();
+                long effectivePartSize = effectivePartSize(size);
+                Semaphore inFlight = new Semaphore(concurrency);
+                List<Future<CompletedPart>> futures = new ArrayList<>();
+                try {
+                        int partNumber = 1;
+                        for (long start = 0; start < size; start += effectivePartSize) {
+                                long end = Math.min(size, start + effectivePartSize) - 1;
+                                UploadPartCopyRequest request = UploadPartCopyRequest.builder()
+                                                .sourceBucket(sourceBucket)
+                                                .sourceKey(sourceKey)
+                                                .copySourceIfMatch(head.eTag())
+                                                .copySourceRange("bytes=" + start + "-" + end)
+                                                .destinationBucket(destinationBucket)
+                                                .destinationKey(destinationKey)
+                                                .uploadId(uploadId)
+                                                .partNumber(partNumber++)
+                                                .build();
+                                inFlight.acquire();
+                                futures.add(partExecutor.submit(() -> {
+                                        try {
+                                                String eTag = s3Client.uploadPartCopy(request).copyPartResult().eTag();
+                                                return CompletedPart.builder().partNumber(request.partNumber()).eTag(eTag).build();
+                                        } finally {
+                                                inFlight.release();
+                                        }
+                                }));
+                        }
+
+                        List<CompletedPart> completedParts = new ArrayList<>(futures.size());
+                        for (Future<CompletedPart> future : futures) {
+                                completedParts.add(future.get());
+                        }
+                        completedParts.sort(Comparator.comparing(CompletedPart::partNumber));
+
+                        return s3Client.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+                                        .bucket(destinationBucket)
+                                        .key(destinationKey)
+                                        .uploadId(uploadId)
+                                        .multipartUpload(CompletedMultipartUpload.builder()
+                                                        .parts(completedParts)
+                                                        .build())
+                                        .build()).eTag();
+                } catch (Exception e) {
+                        futures.forEach(f -> f.cancel(true));
+                        s3Client.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+                                        .bucket(destinationBucket)
+                                        .key(destinationKey)
+                                        .uploadId(uploadId)
+                                        .build());
+                        throw Transfers.rethrow(e);
+                }
+        }
+
+        long effectivePartSize(long contentLength) {
+                long needed = (contentLength + MultipartUploader.MAX_PARTS - 1) / MultipartUploader.MAX_PARTS;
+                return Math.max(partSize, needed);
+        }
+
+        @PreDestroy
+        public void shutdown() {
+                objectExecutor.shutdownNow();
+                partExecutor.shutdownNow();
+        }
+}
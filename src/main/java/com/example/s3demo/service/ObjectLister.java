@@ -0,0 +1,136 @@
+package com.example.s3demo.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.CommonPrefix;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
+import software.amazon.awssdk.services.s3.model.S3Object;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+
+/**
+ * Page-at-a-time listing on top of the ListObjectsV2 paginator. Full scans hand
+ * each page to a sink as soon as it arrives, so memory stays at one page per
+ * active walker regardless of bucket size.
+ */
+@Component
+public class ObjectLister {
+
+        private final S3Client s3Client;
+        private final RequestCoalescer requestCoalescer;
+        private final int pageSize;
+        private final int parallelism;
+        private final ExecutorService executor;
+
+        public ObjectLister(S3Client s3Client, RequestCoalescer requestCoalescer,
+                        @Value("${aws.s3.list.page-size:1000}") int pageSize,
+                        @Value("${aws.s3.list.parallelism:8}") int parallelism) {
+                this.s3Client = s3Client;
+                this.requestCoalescer = requestCoalescer;
+                this.pageSize = Math.max(1, Math.min(1000, pageSize));
+                this.parallelism = Math.max(1, parallelism);
+                this.executor = Executors.newFixedThreadPool(this.parallelism, Transfers.daemonThreads("s3-list-"));
+        }
+
+        public ListObjectsV2Response listPage(String bucket, String prefix, String delimiter, Integer maxKeys,
+                        String continuationToken, String startAfter) {
+                return requestCoalescer.listObjectsV2(ListObjectsV2Request.builder()
+                                .bucket(bucket)
+                                .prefix(prefix)
+                                .delimiter(delimiter)
+                                .maxKeys(maxKeys)
+                                .continuationToken(continuationToken)
+                                .startAfter(startAfter)
+                                .build());
+        }
+
+        /**
+         * Walks every key under {@code prefix}, one page at a time.
+         */
+        public void walk(String bucket, String prefix, Consumer<List<S3Object>> pageSink) {
+                for (ListObjectsV2Response page : pages(bucket, prefix, null)) {
+                        if (!page.contents().isEmpty()) {
+                                pageSink.accept(page.contents());
+                        }
+                }
+        }
+
+        /**
+         * Walks every key under {@code prefix}, listing the first level with a "/"
+         * delimiter and then scanning each common prefix on its own worker. The sink
+         * is called from worker threads but never concurrently. At most
+         * {@code parallelism} prefixes are in flight; the first-level listing
+         * waits for a free worker rather than queueing every prefix it finds.
+         */
+        public void walkParallel(String bucket, String prefix, Consumer<List<S3Object>> pageSink) throws IOException {
+                Object lock = new Object();
+                Consumer<List<S3Object>> serialSink = page -> {
+                        synchronized (lock) {
+                                pageSink.accept(page);
+                        }
+                };
+                Semaphore inFlight = new Semaphore(parallelism);
+                List<Future<?>> futures = new ArrayList<>();
+                try {
+                        for (ListObjectsV2Response page : pages(bucket, prefix, "/")) {
+                                if (!page.contents().isEmpty()) {
+                                        serialSink.accept(page.contents());
+                                }
+                                for (CommonPrefix commonPrefix : page.commonPrefixes()) {
+                                        inFlight.acquire();
+                                        drainCompleted(futures);
+                                        futures.add(executor.submit(() -> {
+                                                try {
+                                                        walk(bucket, commonPrefix.prefix(), serialSink);
+                                                } finally {
+                                                        inFlight.release();
+                                                }
+                                        }));
+                                }
+                        }
+                        for (Future<?> future : futures) {
+                                future.get();
+                        }
+                } catch (Exception e) {
+                        futures.forEach(f -> f.cancel(true));
+                        throw Transfers.rethrow(e);
+                }
+        }
+
+        /**
+         * Drops finished walks, rethrowing the first failure, so the list only
+         * holds the ones still running.
+         */
+        private static void drainCompleted(List<Future<?>> futures) throws ExecutionException, InterruptedException {
+                Iterator<Future<?>> iterator = futures.iterator();
+                while (iterator.hasNext()) {
+                        Future<?> future = iterator.next();
+                        if (future.isDone()) {
+                                future.get();
+                                iterator.remove();
+                        }
+                }
+        }
+
+        private Iterable<ListObjectsV2Response> pages(String bucket, String prefix, String delimiter) {
+                return s3Client.listObjectsV2Paginator(ListObjectsV2Request.builder()
+                                .bucket(bucket)
+                                .prefix(prefix)
+                                .delimiter(delimiter)
+                                .maxKeys(pageSize)
+                                .build());
+        }
+
+        @PreDestroy
+        public void shutdown() {
+                executor.shutdownNow();
+        }
+}
@@ -0,0 +1,215 @@
+package com.example.s3demo.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.*;
+
+/**
+ * Downloads large objects as concurrent byte-range GETs, reassembled in order
+ * onto an output stream behind a bounded look-ahead window. Every ranged GET
+ * carries {@code If-Match} so a concurrent overwrite fails the download
+ * instead of mixing two versions. Each ranged GET, body included, is timed in
+ * the {@code s3.transfer.part} histogram.
+ * <p>
+ * With {@code verifyChecksums}, the object's stored checksums are fetched
+ * first (GetObjectAttributes). When S3 holds one per part and the parts are
+ * exactly {@code chunkSize} long, each part is one range and each worker checks
+ * its part before handing it on, so a corrupt range fails where it was read.
+ * Otherwise the per-part or whole-object checksums are checked over the bytes
+ * in order as they are written. Either way every range fits a pooled chunk
+ * buffer.
+ */
+@Component
+public class ParallelDownloader {
+
+        private final S3Client s3Client;
+        private final boolean enabled;
+        private final int chunkSize;
+        private final int concurrency;
+        private final long threshold;
+        private final ExecutorService executor;
+        private final BlockingQueue<byte[]> bufferPool;
+        private final Timer partTimer;
+        private final boolean verifyChecksums;
+
+        public ParallelDownloader(S3Client s3Client, MeterRegistry meterRegistry,
+                        @Value("${aws.s3.download.parallel.enabled:true}") boolean enabled,
+                        @Value("${aws.s3.download.chunk-size:8MB}") DataSize chunkSize,
+                        @Value("${aws.s3.download.concurrency:8}") int concurrency,
+                        @Value("${aws.s3.download.threshold:64MB}") DataSize threshold,
+                        @Value("${aws.s3.download.threads:16}") int threads,
+                        @Value("${aws.s3.download.verify-checksums:true}") boolean verifyChecksums) {
+                this.s3Client = s3Client;
+                this.enabled = enabled;
+                this.chunkSize = (int) Math.max(1, chunkSize.toBytes());
+                this.concurrency = Math.max(1, concurrency);
+                this.threshold = threshold.toBytes();
+                this.executor = ExecutorServiceMetrics.monitor(meterRegistry,
+                                Executors.newFixedThreadPool(Math.max(1, threads), Transfers.daemonThreads("s3-download-")),
+                                "s3-download");
+                this.bufferPool = new ArrayBlockingQueue<>(Math.max(1, threads));
+                this.partTimer = Transfers.partTimer(meterRegistry, "download");
+                this.verifyChecksums = verifyChecksums;
+        }
+
+        public boolean shouldParallelize(long contentLength) {
+                return enabled && contentLength >= threshold && contentLength > chunkSize;
+        }
+
+        /**
+         * Writes the {@code size}-byte object to {@code out} in order while up to
+         * {@code concurrency} chunks are fetched ahead of the writer. Every range
+         * is pinned to {@code eTag}.
+         */
+        public void downloadTo(String bucket, String key, long size, String eTag, OutputStream out)
+                        throws IOException {
+                Plan plan = plan(bucket, key, size, eTag);
+                Checksums.Verifier inOrder = plan.inOrder()
+                                ? new Checksums.Verifier(plan.expected(), plan.expected().segments(), key)
+                                : null;
+                Iterator<Range> ranges = plan.ranges().iterator();
+                Deque<Future<Chunk>> window = new ArrayDeque<>();
+                try {
+                        while (ranges.hasNext() || !window.isEmpty()) {
+                                while (ranges.hasNext() && window.size() < concurrency) {
+                                        Range range = ranges.next();
+                                        window.add(executor.submit(() -> fetchChunk(bucket, key, eTag, range, plan)));
+                                }
+                                Chunk chunk = window.poll().get();
+                                try {
+                                        if (inOrder != null) {
+                                                inOrder.update(chunk.buffer(), 0, chunk.length());
+                                        }
+                                        out.write(chunk.buffer(), 0, chunk.length());
+                                } finally {
+                                        releaseBuffer(chunk.buffer());
+                                }
+                        }
+                        if (inOrder != null) {
+                                inOrder.finish();
+                        }
+                } catch (Exception e) {
+                        window.forEach(f -> f.cancel(true));
+                        throw Transfers.rethrow(e);
+                }
+        }
+
+        /**
+         * Splits the object into ranges: one per part when every part has its
+         * own checksum and lines up with {@code chunkSize}, otherwise
+         * {@code chunkSize} ranges checked in order against the stored
+         * checksums, if any.
+         */
+        private Plan plan(String bucket, String key, long size, String eTag) throws IOException {
+                Optional<Checksums.Expected> expected = verifyChecksums
+                                ? Checksums.expected(s3Client, bucket, key, eTag)
+                                : Optional.empty();
+                if (expected.isPresent() && expected.get().perPart() && chunkSized(expected.get().segments())) {
+                        List<Range> ranges = expected.get().segments().stream()
+                                        .filter(part -> part.size() > 0)
+                                        .map(part -> new Range(part.offset(), part.offset() + part.size() - 1, part))
+                                        .toList();
+                        return new Plan(ranges, expected.get(), false);
+                }
+                List<Range> ranges = new ArrayList<>();
+                for (long start = 0; start < size; start += chunkSize) {
+                        ranges.add(new Range(start, Math.min(size, start + chunkSize) - 1, null));
+                }
+                return new Plan(ranges, expected.orElse(null), expected.isPresent());
+        }
+
+        /**
+         * Whether every part but the last is exactly one chunk and the last is
+         * no larger, so a part can be held and checked in a pooled buffer.
+         */
+        private boolean chunkSized(List<Checksums.Segment> parts) {
+                for (int i = 0; i < parts.size(); i++) {
+                        long size = parts.get(i).size();
+                        if (size > chunkSize || (i < parts.size() - 1 && size != chunkSize)) {
+                                return false;
+                        }
+                }
+                return true;
+        }
+
+        private Chunk fetchChunk(String bucket, String key, String eTag, Range range, Plan plan) throws IOException {
+                int length = (int) (range.end() - range.start() + 1);
+                byte[] buffer = acquireBuffer(length);
+                Timer.Sample sample = Timer.start();
+                try (ResponseInputStream<GetObjectResponse> in = s3Client.getObject(rangeRequest(bucket, key, eTag, range))) {
+                        int read = in.readNBytes(buffer, 0, length);
+                        if (read != length) {
+                                throw new IOException("Short read for " + key + " range " + range.start() + "-" + range.end());
+                        }
+                        if (range.part() != null) {
+                                Checksums.verify(plan.expected(), range.part(), key, buffer, 0, length);
+                        }
+                        return new Chunk(buffer, length);
+                } catch (IOException | RuntimeException e) {
+                        releaseBuffer(buffer);
+                        throw e;
+                } finally {
+                        sample.stop(partTimer);
+                }
+        }
+
+        private static GetObjectRequest rangeRequest(String bucket, String key, String eTag, Range range) {
+                return GetObjectRequest.builder()
+                                .bucket(bucket)
+                                .key(key)
+                                .ifMatch(eTag)
+                                .range("bytes=" + range.start() + "-" + range.end())
+                                .build();
+        }
+
+        private byte[] acquireBuffer(int size) {
+                byte[] buffer = size == chunkSize ? bufferPool.poll() : null;
+                return buffer != null ? buffer : new byte[size];
+        }
+
+        private void releaseBuffer(byte[] buffer) {
+                if (buffer.length == chunkSize) {
+                        bufferPool.offer(buffer);
+                }
+        }
+
+        @PreDestroy
+        public void shutdown() {
+                executor.shutdownNow();
+        }
+
+        private record Chunk(byte[] buffer, int length) {
+        }
+
+        /**
+         * Inclusive byte range; {@code part} is set when the range is exactly
+         * one part with its own checksum.
+         */
+        private record Range(long start, long end, Checksums.Segment part) {
+        }
+
+        /**
+         * {@code inOrder} means {@code expected} is checked over the whole
+         * object in order rather than range by range.
+         */
+        private record Plan(List<Range> ranges, Checksums.Expected expected, boolean inOrder) {
+        }
+}
@@ -0,0 +1,102 @@
+package com.example.s3demo.service;
+
+import com.example.s3demo.model.PresignedUrl;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.awscore.presigner.PresignedRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
+import software.amazon.awssdk.services.s3.presigner.model.PutObjectPresignRequest;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Presigns GET and PUT URLs and reuses each one until it is within
+ * {@code safetyMargin} of expiry, so hot keys cost a map lookup instead of a
+ * SigV4 signing. Entries are keyed by (bucket, key, method, params); every
+ * caller of a cached URL still has at least the safety margin to use it.
+ * Concurrent misses for the same entry sign once.
+ */
+@Component
+public class PresignedUrlCache {
+
+        private final S3Presigner s3Presigner;
+        private final Duration signatureDuration;
+        private final Cache<PresignKey, PresignedUrl> cache;
+
+        public PresignedUrlCache(S3Presigner s3Presigner, MeterRegistry meterRegistry,
+                        @Value("${aws.s3.presign.expiry:10m}") Duration signatureDuration,
+                        @Value("${aws.s3.presign.cache.enabled:true}") boolean enabled,
+                        @Value("${aws.s3.presign.cache.safety-margin:2m}") Duration safetyMargin,
+                        @Value("${aws.s3.presign.cache.max-entries:100000}") long maxEntries) {
+                this.s3Presigner = s3Presigner;
+                this.signatureDuration = signatureDuration;
+                Duration reuseWindow = signatureDuration.minus(safetyMargin);
+                if (enabled && reuseWindow.compareTo(Duration.ZERO) > 0) {
+                        this.cache = Caffeine.newBuilder()
+                                        .maximumSize(maxEntries)
+                                        .expireAfterWrite(reuseWindow)
+                                        .recordStats()
+                                        .build();
+                        CaffeineCacheMetrics.monitor(meterRegistry, cache, "s3.presign.cache");
+                } else {
+                        this.cache = null;
+                }
+        }
+
+        /**
+         * Presigned GET for the object, or for a specific version when
+         * {@code versionId} is not null.
+         */
+        public PresignedUrl presignGet(String bucket, String key, String versionId) {
+                Map<String, String> params = versionId != null ? Map.of("versionId", versionId) : Map.of();
+                return lookup(new PresignKey(bucket, key, "GET", params));
+        }
+
+        /**
+         * Presigned PUT for the object. A non-null {@code contentType} is signed,
+         * so the uploader must send the same Content-Type header.
+         */
+        public PresignedUrl presignPut(String bucket, String key, String contentType) {
+                Map<String, String> params = contentType != null ? Map.of("contentType", contentType) : Map.of();
+                return lookup(new PresignKey(bucket, key, "PUT", params));
+        }
+
+        private PresignedUrl lookup(PresignKey presignKey) {
+                return cache != null ? cache.get(presignKey, this::sign) : sign(presignKey);
+        }
+
+        private PresignedUrl sign(PresignKey presignKey) {
+                PresignedRequest presigned = switch (presignKey.method()) {
+                        case "GET" -> s3Presigner.presignGetObject(GetObjectPresignRequest.builder()
+                                        .signatureDuration(signatureDuration)
+                                        .getObjectRequest(GetObjectRequest.builder()
+                                                        .bucket(presignKey.bucket())
+                                                        .key(presignKey.key())
+                                                        .versionId(presignKey.params().get("versionId"))
+                                                        .build())
+                                        .build());
+                        case "PUT" -> s3Presigner.presignPutObject(PutObjectPresignRequest.builder()
+                                        .signatureDuration(signatureDuration)
+                                        .putObjectRequest(PutObjectRequest.builder()
+                                                        .bucket(presignKey.bucket())
+                                                        .key(presignKey.key())
+                                                        .contentType(presignKey.params().get("contentType"))
+                                                        .build())
+                                        .build());
+                        default -> throw new IllegalArgumentException("Unsupported presign method: " + presignKey.method());
+                };
+                return new PresignedUrl(presignKey.key(), presignKey.method(), presigned.url().toString(),
+                                presigned.expiration());
+        }
+
+        private record PresignKey(String bucket, String key, String method, Map<String, String> params) {
+        }
+}
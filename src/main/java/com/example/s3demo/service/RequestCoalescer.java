@@ -0,0 +1,530 @@
+package com.example.s3demo.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight layer for S3 reads: concurrent identical requests (same
+ * bucket, key, version, range and conditions, as compared by the SDK request's
+ * own {@code equals}) share one call to S3.
+ * <p>
+ * HeadObject and listing callers wait for the shared response. GetObject
+ * callers each get their own stream over one shared fetch and receive bytes
+ * while it is still running: whichever subscriber is furthest ahead pulls the
+ * next chunk from S3, and the others read it from a buffer that only holds
+ * what the slowest subscriber has not read yet. A subscriber that falls more
+ * than {@code maxBuffer} behind is detached and carries on with its own
+ * ranged GET (pinned to the same ETag), so one slow client cannot make the
+ * others buffer the whole object. A fetch stops accepting new subscribers once
+ * its first chunk has been released; later requests start a fresh one. From
+ * then on a lone subscriber reads S3 straight into its own buffer, so an
+ * uncontended GET costs one chunk rather than one per read.
+ * <p>
+ * Whole-object GETs ask S3 for the stored checksum and each caller's stream is
+ * verified against it as it is read, so a corrupt body fails the read that
+ * completes it (and never fills the object cache). Range and part GETs are
+ * passed through unchecked.
+ */
+@Component
+public class RequestCoalescer {
+
+        private static final int CHUNK_SIZE = 64 * 1024;
+
+        private final S3Client s3Client;
+        private final MeterRegistry meterRegistry;
+        private final boolean enabled;
+        private final long maxBuffer;
+        private final Map<Object, CompletableFuture<?>> calls = new ConcurrentHashMap<>();
+        private final Map<GetObjectRequest, Fetch> fetches = new ConcurrentHashMap<>();
+        private final Counter fallbacks;
+
+        public RequestCoalescer(S3Client s3Client, MeterRegistry meterRegistry,
+                        @Value("${aws.s3.coalesce.enabled:true}") boolean enabled,
+                        @Value("${aws.s3.coalesce.max-buffer:8MB}") DataSize maxBuffer) {
+                this.s3Client = s3Client;
+                this.meterRegistry = meterRegistry;
+                this.enabled = enabled;
+                this.maxBuffer = Math.max(CHUNK_SIZE, maxBuffer.toBytes());
+                this.fallbacks = Counter.builder("s3.coalesce.fallbacks")
+                                .description("Subscribers that fell behind a shared GET and switched to their own")
+                                .register(meterRegistry);
+        }
+
+        public HeadObjectResponse headObject(HeadObjectRequest request) {
+                return call("HeadObject", request, () -> s3Client.headObject(request));
+        }
+
+        public ListObjectsV2Response listObjectsV2(ListObjectsV2Request request) {
+                return call("ListObjectsV2", request, () -> s3Client.listObjectsV2(request));
+        }
+
+        /**
+         * Opens the object, joining an identical GET already in flight when there
+         * is one. The caller owns and must close the returned stream.
+         */
+        public ResponseInputStream<GetObjectResponse> getObject(GetObjectRequest request) {
+                if (request.range() != null || request.partNumber() != null) {
+                        return open(request);
+                }
+                GetObjectRequest whole = Checksums.withChecksumMode(request);
+                return Checksums.verifying(s3Client, whole.bucket(), whole.key(), open(whole));
+        }
+
+        private ResponseInputStream<GetObjectResponse> open(GetObjectRequest request) {
+                if (!enabled) {
+                        return s3Client.getObject(request);
+                }
+                while (true) {
+                        Fetch existing = fetches.get(request);
+                        if (existing != null) {
+                                Subscriber subscriber = existing.join();
+                                if (subscriber != null) {
+                                        joined("GetObject");
+                                        return subscriber.stream();
+                                }
+                                // Already past the point where a newcomer could start from byte 0.
+                                fetches.remove(request, existing);
+                                continue;
+                        }
+                        Fetch fetch = new Fetch(request);
+                        if (fetches.putIfAbsent(request, fetch) == null) {
+                                return fetch.start().stream();
+                        }
+                }
+        }
+
+        /**
+         * Called after {@code key} is written or deleted: reads that start from
+         * now on get a fresh call instead of joining one that may predate the
+         * change. Reads already sharing a call are unaffected.
+         */
+        public void forget(String bucket, String key) {
+                if (!enabled) {
+                        return;
+                }
+                calls.keySet().removeIf(request -> affects(request, bucket, key));
+                fetches.forEach((request, fetch) -> {
+                        if (request.bucket().equals(bucket) && request.key().equals(key)) {
+                                fetch.seal();
+                        }
+                });
+        }
+
+        private static boolean affects(Object request, String bucket, String key) {
+                if (request instanceof HeadObjectRequest head) {
+                        return head.bucket().equals(bucket) && head.key().equals(key);
+                }
+                if (request instanceof ListObjectsV2Request list) {
+                        return list.bucket().equals(bucket) && (list.prefix() == null || key.startsWith(list.prefix()));
+                }
+                if (request instanceof ListObjectVersionsRequest versions) {
+                        return versions.bucket().equals(bucket)
+                                        && (versions.prefix() == null || key.startsWith(versions.prefix()));
+                }
+                return false;
+        }
+
+        /**
+         * Runs {@code call} unless an identical one ({@code key}) is already
+         * running, in which case its result or exception is shared.
+         */
+        @SuppressWarnings("unchecked")
+        <T> T call(String operation, Object key, Supplier<T> call) {
+                if (!enabled) {
+                        return call.get();
+                }
+                CompletableFuture<T> mine = new CompletableFuture<>();
+                CompletableFuture<T> existing = (CompletableFuture<T>) calls.putIfAbsent(key, mine);
+                if (existing != null) {
+                        joined(operation);
+                        try {
+                                return existing.join();
+                        } catch (CompletionException e) {
+                                if (e.getCause() instanceof RuntimeException cause) {
+                                        throw cause;
+                                }
+                                if (e.getCause() instanceof Error cause) {
+                                        throw cause;
+                                }
+                                throw e;
+                        }
+                }
+                try {
+                        T result = call.get();
+                        mine.complete(result);
+                        return result;
+                } catch (RuntimeException | Error e) {
+                        mine.completeExceptionally(e);
+                        throw e;
+                } finally {
+                        calls.remove(key, mine);
+                }
+        }
+
+        private void joined(String operation) {
+                Counter.builder("s3.coalesce.joined")
+                                .description("Requests served by joining an identical call already in flight")
+                                .tag("operation", operation)
+                                .register(meterRegistry)
+                                .increment();
+        }
+
+        /**
+         * One shared GetObject. All state is guarded by the fetch's monitor; the
+         * S3 stream itself is only read by the subscriber holding {@code pulling}.
+         */
+        private final class Fetch {
+
+                private final GetObjectRequest request;
+                private final List<Subscriber> subscribers = new ArrayList<>();
+                private final ArrayDeque<Chunk> chunks = new ArrayDeque<>();
+                private ResponseInputStream<GetObjectResponse> source;
+                private RuntimeException failure;
+                private IOException readFailure;
+                private long base;
+                private long end;
+                private boolean joinable = true;
+                private boolean pulling;
+                private boolean finished;
+
+                Fetch(GetObjectRequest request) {
+                        this.request = request;
+                }
+
+                /**
+                 * Issues the GET for the first subscriber. Requests that join before
+                 * the response arrives wait for it in {@link #join()}.
+                 */
+                Subscriber start() {
+                        Subscriber leader;
+                        synchronized (this) {
+                                leader = new Subscriber(this);
+                                subscribers.add(leader);
+                        }
+                        try {
+                                ResponseInputStream<GetObjectResponse> opened = s3Client.getObject(request);
+                                synchronized (this) {
+                                        source = opened;
+                                        notifyAll();
+                                }
+                                return leader;
+                        } catch (RuntimeException e) {
+                                synchronized (this) {
+                                        failure = e;
+                                        joinable = false;
+                                        notifyAll();
+                                }
+                                fetches.remove(request, this);
+                                throw e;
+                        }
+                }
+
+                synchronized Subscriber join() {
+                        while (source == null && failure == null) {
+                                try {
+                                        wait();
+                                } catch (InterruptedException e) {
+                                        Thread.currentThread().interrupt();
+                                        throw new IllegalStateException("Interrupted waiting for a shared GET", e);
+                                }
+                        }
+                        if (failure != null) {
+                                // Same outcome as the request it joined, e.g. NoSuchKey or 304.
+                                throw failure;
+                        }
+                        if (!joinable) {
+                                return null;
+                        }
+                        Subscriber subscriber = new Subscriber(this);
+                        subscribers.add(subscriber);
+                        return subscriber;
+                }
+
+                /**
+                 * Stops new subscribers joining; current ones read on.
+                 */
+                synchronized void seal() {
+                        joinable = false;
+                        fetches.remove(request, this);
+                }
+
+                synchronized GetObjectResponse response() {
+                        return source.response();
+                }
+
+                /**
+                 * Copies buffered bytes at {@code position}; returns 0 if none are
+                 * buffered there yet.
+                 */
+                private int copy(long position, byte[] b, int off, int len) {
+                        long chunkStart = base;
+                        for (Chunk chunk : chunks) {
+                                if (position < chunkStart + chunk.length()) {
+                                        int from = (int) (position - chunkStart);
+                                        int n = Math.min(len, chunk.length() - from);
+                                        System.arraycopy(chunk.data(), from, b, off, n);
+                                        return n;
+                                }
+                                chunkStart += chunk.length();
+                        }
+                        return 0;
+                }
+
+                /**
+                 * Detaches subscribers too far behind, then releases chunks every
+                 * remaining subscriber has read.
+                 */
+                private void trim() {
+                        long lowest = end;
+                        for (Subscriber subscriber : subscribers) {
+                                if (subscriber.position < end - maxBuffer) {
+                                        subscriber.detached = true;
+                                        fallbacks.increment();
+                                } else {
+                                        lowest = Math.min(lowest, subscriber.position);
+                                }
+                        }
+                        subscribers.removeIf(subscriber -> subscriber.detached);
+                        while (!chunks.isEmpty() && base + chunks.peekFirst().length() <= lowest) {
+                                base += chunks.removeFirst().length();
+                                if (joinable) {
+                                        joinable = false;
+                                        fetches.remove(request, this);
+                                }
+                        }
+                }
+
+                private void finish() {
+                        joinable = false;
+                        fetches.remove(request, this);
+                        try {
+                                source.close();
+                        } catch (IOException e) {
+                                // The body has been read or abandoned; nothing is left to release.
+                        }
+                }
+
+                synchronized void leave(Subscriber subscriber) {
+                        subscribers.remove(subscriber);
+                        if (subscribers.isEmpty() && !finished) {
+                                // Nobody is reading any more, so stop downloading.
+                                finished = true;
+                                readFailure = new IOException("Shared GET abandoned");
+                                source.abort();
+                                finish();
+                        } else {
+                                trim();
+                        }
+                }
+        }
+
+        private record Chunk(byte[] data, int length) {
+        }
+
+        /**
+         * One caller's view of a shared fetch, reading from its own position.
+         */
+        private final class Subscriber extends InputStream {
+
+                private final Fetch fetch;
+                private long position;
+                private boolean detached;
+                private boolean closed;
+                private ResponseInputStream<GetObjectResponse> fallback;
+
+                Subscriber(Fetch fetch) {
+                        this.fetch = fetch;
+                }
+
+                ResponseInputStream<GetObjectResponse> stream() {
+                        return new ResponseInputStream<>(fetch.response(), AbortableInputStream.create(this, () -> {
+                                try {
+                                        close();
+                                } catch (IOException e) {
+                                        // Aborting is best-effort.
+                                }
+                        }));
+                }
+
+                @Override
+                public int read() throws IOException {
+                        byte[] one = new byte[1];
+                        return read(one, 0, 1) < 0 ? -1 : one[0] & 0xff;
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) throws IOException {
+                        if (len == 0) {
+                                return 0;
+                        }
+                        while (true) {
+                                boolean pull;
+                                boolean direct;
+                                synchronized (fetch) {
+                                        if (closed) {
+                                                throw new IOException("Stream closed");
+                                        }
+                                        if (!detached) {
+                                                Integer served = serve(b, off, len);
+                                                if (served != null) {
+                                                        return served;
+                                                }
+                                        }
+                                        pull = !detached;
+                                        // Nobody can join any more and nobody else is reading, so nothing needs buffering.
+                                        direct = pull && !fetch.joinable && fetch.subscribers.size() == 1;
+                                }
+                                if (!pull) {
+                                        return readFallback(b, off, len);
+                                }
+                                int n = pull(b, off, len, direct);
+                                if (n > 0) {
+                                        return n;
+                                }
+                        }
+                }
+
+                /**
+                 * Serves from the buffer, or returns null once this subscriber has
+                 * taken the pull or been detached. Must hold the fetch's monitor.
+                 */
+                private Integer serve(byte[] b, int off, int len) throws IOException {
+                        while (true) {
+                                if (position < fetch.end) {
+                                        int n = fetch.copy(position, b, off, len);
+                                        position += n;
+                                        fetch.trim();
+                                        return n;
+                                }
+                                if (fetch.readFailure != null) {
+                                        throw new IOException(fetch.readFailure.getMessage(), fetch.readFailure);
+                                }
+                                if (fetch.finished) {
+                                        return -1;
+                                }
+                                if (!fetch.pulling) {
+                                        fetch.pulling = true;
+                                        return null;
+                                }
+                                try {
+                                        fetch.wait();
+                                } catch (InterruptedException e) {
+                                        Thread.currentThread().interrupt();
+                                        throw new InterruptedIOException();
+                                }
+                                if (detached || closed) {
+                                        return detached ? null : -1;
+                                }
+                        }
+                }
+
+                /**
+                 * Reads the next chunk from S3 outside the monitor, so subscribers
+                 * behind this one keep reading the buffer meanwhile. With
+                 * {@code direct} the bytes go straight into the caller's buffer
+                 * instead of a new chunk, and the count is returned.
+                 */
+                private int pull(byte[] b, int off, int len, boolean direct) {
+                        byte[] data = direct ? b : new byte[CHUNK_SIZE];
+                        int from = direct ? off : 0;
+                        int n;
+                        IOException error = null;
+                        try {
+                                n = fetch.source.read(data, from, direct ? len : CHUNK_SIZE);
+                        } catch (IOException e) {
+                                n = -1;
+                                error = e;
+                        }
+                        synchronized (fetch) {
+                                fetch.pulling = false;
+                                if (error != null) {
+                                        fetch.readFailure = error;
+                                        fetch.finished = true;
+                                        fetch.finish();
+                                } else if (n < 0) {
+                                        fetch.finished = true;
+                                        fetch.finish();
+                                } else if (n > 0 && direct) {
+                                        position += n;
+                                        fetch.base += n;
+                                        fetch.end += n;
+                                } else if (n > 0) {
+                                        fetch.chunks.addLast(new Chunk(data, n));
+                                        fetch.end += n;
+                                        fetch.trim();
+                                }
+                                fetch.notifyAll();
+                        }
+                        return direct ? n : 0;
+                }
+
+                private int readFallback(byte[] b, int off, int len) throws IOException {
+                        if (fallback == null) {
+                                fallback = s3Client.getObject(remainder());
+                        }
+                        int n = fallback.read(b, off, len);
+                        if (n > 0) {
+                                position += n;
+                        }
+                        return n;
+                }
+
+                /**
+                 * The original request narrowed to the bytes this subscriber has not
+                 * read, and pinned to the ETag it has been reading.
+                 */
+                private GetObjectRequest remainder() {
+                        GetObjectResponse response = fetch.response();
+                        long first = 0;
+                        String last = "";
+                        if (response.contentRange() != null) {
+                                // "bytes <first>-<last>/<size>"
+                                String span = response.contentRange().substring("bytes ".length(),
+                                                response.contentRange().indexOf('/'));
+                                first = Long.parseLong(span.substring(0, span.indexOf('-')));
+                                last = span.substring(span.indexOf('-') + 1);
+                        }
+                        return fetch.request.toBuilder()
+                                        .range("bytes=" + (first + position) + "-" + last)
+                                        .ifMatch(response.eTag())
+                                        .ifNoneMatch(null)
+                                        .build();
+                }
+
+                @Override
+                public void close() throws IOException {
+                        synchronized (fetch) {
+                                if (closed) {
+                                        return;
+                                }
+                                closed = true;
+                                fetch.notifyAll();
+                        }
+                        if (!detached) {
+                                fetch.leave(this);
+                        }
+                        if (fallback != null) {
+                                fallback.close();
+                        }
+                }
+        }
+}
@@ -0,0 +1,179 @@
+package com.example.s3demo.service;
+
+import com.example.s3demo.model.ResumableUpload;
+import com.example.s3demo.model.UploadedPart;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.*;
+
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Multipart uploads driven by the client across many requests: initiate, send
+ * parts individually (any order, in parallel), inspect, then complete. Every
+ * acknowledged part is checkpointed in {@link UploadCheckpointStore} before it
+ * is reported, so neither a dropped client connection nor an app restart loses
+ * uploaded parts. Unlike {@link MultipartUploader}, a failed part does not
+ * abort the upload; the client simply sends that part again.
+ * <p>
+ * A scheduled sweep aborts uploads with no part activity for
+ * {@code staleAfter}, plus any untracked incomplete upload in the default
+ * bucket initiated before that, so orphaned parts stop accruing storage.
+ */
+@Component
+public class ResumableUploader {
+
+        private final S3Client s3Client;
+        private final UploadCheckpointStore store;
+        private final String defaultBucket;
+        private final Duration staleAfter;
+        private final boolean sweepOrphans;
+
+        public ResumableUploader(S3Client s3Client, UploadCheckpointStore store,
+                        @Value("${aws.s3.bucket}") String defaultBucket,
+                        @Value("${aws.s3.resumable.stale-after:24h}") Duration staleAfter,
+                        @Value("${aws.s3.resumable.sweep-orphans:true}") boolean sweepOrphans) {
+                this.s3Client = s3Client;
+                this.store = store;
+                this.defaultBucket = defaultBucket;
+                this.staleAfter = staleAfter;
+                this.sweepOrphans = sweepOrphans;
+        }
+
+        public ResumableUpload initiate(String bucket, String key, String contentType) {
+                String uploadId = s3Client.createMultipartUpload(CreateMultipartUploadRequest.builder()
+                                .bucket(bucket)
+                                .key(key)
+                                .contentType(contentType)
+                                .build()).uploadId();
+                return store.create(uploadId, bucket, key, contentType);
+        }
+
+        public Optional<ResumableUpload> status(String uploadId) {
+                return store.get(uploadId);
+        }
+
+        /**
+         * Streams one part straight to S3 and checkpoints its ETag. Returns empty
+         * if the upload is unknown (completed, aborted or swept).
+         */
+        public Optional<UploadedPart> uploadPart(String uploadId, int partNumber, InputStream body, long contentLength) {
+                if (partNumber < 1 || partNumber > MultipartUploader.MAX_PARTS) {
+                        throw new IllegalArgumentException("Part number must be between 1 and " + MultipartUploader.MAX_PARTS);
+                }
+                Optional<ResumableUpload> upload = store.get(uploadId);
+                if (upload.isEmpty()) {
+                        return Optional.empty();
+                }
+                String eTag = s3Client.uploadPart(UploadPartRequest.builder()
+                                .bucket(upload.get().bucket())
+                                .key(upload.get().key())
+                                .uploadId(uploadId)
+                                .partNumber(partNumber)
+                                .contentLength(contentLength)
+                                .build(), RequestBody.fromInputStream(body, contentLength)).eTag();
+                UploadedPart part = new UploadedPart(partNumber, eTag, contentLength);
+                return store.recordPart(uploadId, part) ? Optional.of(part) : Optional.empty();
+        }
+
+        /**
+         * Completes the upload from the checkpointed parts and forgets it.
+         * Returns the parts that were assembled, or empty if the upload is unknown.
+         */
+        public Optional<ResumableUpload> complete(String uploadId) {
+                Optional<ResumableUpload> upload = store.get(uploadId);
+                if (upload.isEmpty()) {
+                        return Optional.empty();
+                }
+                if (upload.get().parts().isEmpty()) {
+                        throw new IllegalStateException("Upload " + uploadId + " has no parts");
+                }
+                try {
+                        s3Client.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+                                        .bucket(upload.get().bucket())
+                                        .key(upload.get().key())
+                                        .uploadId(uploadId)
+                                        .multipartUpload(CompletedMultipartUpload.builder()
+                                                        .parts(upload.get().parts().stream()
+                                                                        .map(part -> CompletedPart.builder()
+                                                                                        .partNumber(part.partNumber())
+                                                                                        .eTag(part.eTag())
+                                                                                        .build())
+                                                                        .toList())
+                                                        .build())
+                                        .build());
+                } catch (NoSuchUploadException e) {
+                        // Already completed or aborted out of band; there is nothing left to resume.
+                        store.remove(uploadId);
+                        throw e;
+                }
+                store.remove(uploadId);
+                return upload;
+        }
+
+        public boolean abort(String uploadId) {
+                Optional<ResumableUpload> upload = store.get(uploadId);
+                upload.ifPresent(this::abortAndForget);
+                return upload.isPresent();
+        }
+
+        @Scheduled(fixedDelayString = "${aws.s3.resumable.sweep-interval:PT1H}",
+                        initialDelayString = "${aws.s3.resumable.sweep-interval:PT1H}")
+        public void sweep() {
+                sweep(Instant.now().minus(staleAfter));
+        }
+
+        /**
+         * Aborts tracked uploads idle since before {@code cutoff} and, when enabled,
+         * untracked uploads in the default bucket initiated before it. Returns the
+         * number of uploads aborted.
+         */
+        int sweep(Instant cutoff) {
+                int aborted = 0;
+                for (ResumableUpload upload : store.all()) {
+                        if (upload.updatedAt().isBefore(cutoff)) {
+                                abortAndForget(upload);
+                                aborted++;
+                        }
+                }
+                if (sweepOrphans) {
+                        Set<String> tracked = store.all().stream()
+                                        .map(ResumableUpload::uploadId)
+                                        .collect(Collectors.toSet());
+                        for (MultipartUpload upload : s3Client.listMultipartUploadsPaginator(
+                                        ListMultipartUploadsRequest.builder().bucket(defaultBucket).build()).uploads()) {
+                                if (!tracked.contains(upload.uploadId()) && upload.initiated() != null
+                                                && upload.initiated().isBefore(cutoff)) {
+                                        abort(defaultBucket, upload.key(), upload.uploadId());
+                                        aborted++;
+                                }
+                        }
+                }
+                return aborted;
+        }
+
+        private void abortAndForget(ResumableUpload upload) {
+                abort(upload.bucket(), upload.key(), upload.uploadId());
+                store.remove(upload.uploadId());
+        }
+
+        private void abort(String bucket, String key, String uploadId) {
+                try {
+                        s3Client.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+                                        .bucket(bucket)
+                                        .key(key)
+                                        .uploadId(uploadId)
+                                        .build());
+                } catch (NoSuchUploadException e) {
+                        // Already gone; the goal state is reached either way.
+                }
+        }
+}
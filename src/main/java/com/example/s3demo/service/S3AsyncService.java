@@ -0,0 +1,164 @@
+package com.example.s3demo.service;
+
+import com.example.s3demo.model.ObjectPage;
+import com.example.s3demo.model.ObjectSummary;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.core.async.AsyncResponseTransformer;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+/**
+ * Non-blocking counterparts of the {@link S3Service} operations, backed by
+ * {@link S3AsyncClient}. Only active when {@code aws.s3.async.enabled=true}.
+ * Writes and deletes go through the same invalidation as the sync service, so
+ * its object cache, metadata index and coalesced reads never serve a version
+ * this service has replaced.
+ */
+@Service
+@ConditionalOnProperty(name = "aws.s3.async.enabled", havingValue = "true")
+public class S3AsyncService {
+
+        private final S3AsyncClient s3AsyncClient;
+        private final S3Service s3Service;
+        private final MultipartUploader multipartUploader;
+        // Feeds blocking multipart input streams into the async request bodies.
+        private final ExecutorService uploadExecutor;
+
+        public S3AsyncService(S3AsyncClient s3AsyncClient, S3Service s3Service, MultipartUploader multipartUploader,
+                        @Value("${aws.s3.async.upload-threads:8}") int uploadThreads) {
+                this.s3AsyncClient = s3AsyncClient;
+                this.s3Service = s3Service;
+                this.multipartUploader = multipartUploader;
+                this.uploadExecutor = Executors.newFixedThreadPool(Math.max(1, uploadThreads),
+                                Transfers.daemonThreads("s3-async-upload-"));
+        }
+
+        @Value("${aws.s3.bucket}")
+        private String defaultBucketName;
+
+        // --- BUCKET OPERATIONS ---
+
+        public CompletableFuture<Void> createBucket(String bucketName) {
+                return s3AsyncClient.createBucket(CreateBucketRequest.builder().bucket(bucketName).build())
+                                .thenApply(response -> null);
+        }
+
+        public CompletableFuture<List<String>> listBuckets() {
+                return s3AsyncClient.listBuckets().thenApply(response -> response.buckets().stream()
+                                .map(Bucket::name)
+                                .collect(Collectors.toList()));
+        }
+
+        public CompletableFuture<Void> deleteBucket(String bucketName) {
+                return s3AsyncClient.deleteBucket(DeleteBucketRequest.builder().bucket(bucketName).build())
+                                .thenApply(response -> null);
+        }
+
+        // --- OBJECT OPERATIONS ---
+
+        public CompletableFuture<String> uploadObject(String key, MultipartFile file) throws IOException {
+                PutObjectRequest putObjectRequest = PutObjectRequest.builder()
+                                .bucket(defaultBucketName)
+                                .key(key)
+                                .contentType(file.getContentType())
+                                .checksumAlgorithm(multipartUploader.checksumAlgorithm().orElse(null))
+                                .build();
+                InputStream in = file.getInputStream();
+                CompletableFuture<PutObjectResponse> put;
+                try {
+                        put = s3AsyncClient.putObject(putObjectRequest,
+                                        AsyncRequestBody.fromInputStream(in, file.getSize(), uploadExecutor));
+                } catch (RuntimeException e) {
+                        in.close();
+                        s3Service.written(defaultBucketName, key);
+                        throw e;
+                }
+                return put.whenComplete((response, error) -> {
+                        try {
+                                in.close();
+                        } catch (IOException e) {
+                                // The body has been sent or abandoned; nothing is left to release.
+                        }
+                        s3Service.written(defaultBucketName, key);
+                }).thenApply(response -> "File uploaded successfully: " + key);
+        }
+
+        /**
+         * Completes once the response headers arrive; the body is then read from
+         * the returned stream while the SDK keeps receiving in the background.
+         */
+        public CompletableFuture<ResponseInputStream<GetObjectResponse>> openObject(String key, String range) {
+                GetObjectRequest getObjectRequest = GetObjectRequest.builder()
+                                .bucket(defaultBucketName)
+                                .key(key)
+                                .range(range)
+                                .build();
+                return s3AsyncClient.getObject(getObjectRequest, AsyncResponseTransformer.toBlockingInputStream());
+        }
+
+        /**
+         * The codec the object was stored with, if {@link #decompress} is needed
+         * to recover its original bytes.
+         */
+        public Optional<CompressionCodec> storedCodec(GetObjectResponse response) {
+                return s3Service.storedCodec(response);
+        }
+
+        public InputStream decompress(InputStream in, CompressionCodec codec) throws IOException {
+                return s3Service.decompress(in, codec);
+        }
+
+        /**
+         * One page of the listing, like {@link S3Service#listObjects}, but always
+         * answered by S3. A continuation token issued by the metadata index is
+         * carried on from its position.
+         */
+        public CompletableFuture<ObjectPage> listObjects(String prefix, String delimiter, Integer maxKeys,
+                        String continuationToken) {
+                String startAfter = MetadataIndex.startAfter(continuationToken);
+                ListObjectsV2Request listObjectsV2Request = ListObjectsV2Request.builder()
+                                .bucket(defaultBucketName)
+                                .prefix(prefix)
+                                .delimiter(delimiter)
+                                .maxKeys(maxKeys)
+                                .continuationToken(startAfter != null ? null : continuationToken)
+                                .startAfter(startAfter)
+                                .build();
+                return s3AsyncClient.listObjectsV2(listObjectsV2Request).thenApply(response -> new ObjectPage(
+                                response.contents().stream().map(ObjectSummary::from).collect(Collectors.toList()),
+                                response.commonPrefixes().stream().map(CommonPrefix::prefix).collect(Collectors.toList()),
+                                response.nextContinuationToken(),
+                                Boolean.TRUE.equals(response.isTruncated())));
+        }
+
+        public CompletableFuture<Void> deleteObject(String key) {
+                return s3AsyncClient.deleteObject(DeleteObjectRequest.builder()
+                                .bucket(defaultBucketName)
+                                .key(key)
+                                .build())
+                                .thenApply(response -> {
+                                        s3Service.deleted(defaultBucketName, key);
+                                        return null;
+                                });
+        }
+
+        @PreDestroy
+        public void shutdown() {
+                uploadExecutor.shutdown();
+        }
+}
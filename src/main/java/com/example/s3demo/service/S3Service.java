@@ -1,34 +1,71 @@
 package com.example.s3demo.service;
 
 import lombok.RequiredArgsConstructor;
+import com.example.s3demo.model.CopyOutcome;
+import com.example.s3demo.model.DeleteOutcome;
+import com.example.s3demo.model.ObjectPage;
+import com.example.s3demo.model.ObjectSummary;
+import com.example.s3demo.model.PresignedUrl;
+import com.example.s3demo.model.ResumableUpload;
+import com.example.s3demo.model.UploadOutcome;
+import com.example.s3demo.model.UploadedPart;
+import com.example.s3demo.model.VerifyOutcome;
+import com.example.s3demo.model.VersionPage;
+import com.example.s3demo.service.BulkUploader.ArchiveFormat;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
-import software.amazon.awssdk.core.ResponseBytes;
+import software.amazon.awssdk.core.ResponseInputStream;
 import software.amazon.awssdk.core.sync.RequestBody;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.model.*;
-import software.amazon.awssdk.services.s3.presigner.S3Presigner;
-import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
-import software.amazon.awssdk.services.s3.presigner.model.PresignedGetObjectRequest;
-import software.amazon.awssdk.services.s3.presigner.model.PutObjectPresignRequest;
 
 import java.io.IOException;
-import java.nio.ByteBuffer;
-import java.time.Duration;
-import java.util.ArrayList;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
 public class S3Service {
 
         private final S3Client s3Client;
-        private final S3Presigner s3Presigner;
-
-        public S3Service(S3Client s3Client, S3Presigner s3Presigner) {
+        private final PresignedUrlCache presignedUrlCache;
+        private final MultipartUploader multipartUploader;
+        private final ParallelDownloader parallelDownloader;
+        private final ObjectLister objectLister;
+        private final ObjectCache objectCache;
+        private final BatchDeleter batchDeleter;
+        private final BulkUploader bulkUploader;
+        private final ResumableUploader resumableUploader;
+        private final ObjectCopier objectCopier;
+        private final ObjectCompressor objectCompressor;
+        private final MetadataIndex metadataIndex;
+        private final RequestCoalescer requestCoalescer;
+        private final ChecksumVerifier checksumVerifier;
+
+        public S3Service(S3Client s3Client, PresignedUrlCache presignedUrlCache, MultipartUploader multipartUploader,
+                        ParallelDownloader parallelDownloader, ObjectLister objectLister, ObjectCache objectCache,
+                        BatchDeleter batchDeleter, BulkUploader bulkUploader, ResumableUploader resumableUploader,
+                        ObjectCopier objectCopier, ObjectCompressor objectCompressor, MetadataIndex metadataIndex,
+                        RequestCoalescer requestCoalescer, ChecksumVerifier checksumVerifier) {
                 this.s3Client = s3Client;
-                this.s3Presigner = s3Presigner;
+                this.presignedUrlCache = presignedUrlCache;
+                this.multipartUploader = multipartUploader;
+                this.parallelDownloader = parallelDownloader;
+                this.objectLister = objectLister;
+                this.objectCache = objectCache;
+                this.batchDeleter = batchDeleter;
+                this.bulkUploader = bulkUploader;
+                this.resumableUploader = resumableUploader;
+                this.objectCopier = objectCopier;
+                this.objectCompressor = objectCompressor;
+                this.metadataIndex = metadataIndex;
+                this.requestCoalescer = requestCoalescer;
+                this.checksumVerifier = checksumVerifier;
         }
 
         @Value("${aws.s3.bucket}")
@@ -51,37 +88,247 @@ public class S3Service {
 
         public void deleteBucket(String bucketName) {
                 s3Client.deleteBucket(DeleteBucketRequest.builder().bucket(bucketName).build());
+                metadataIndex.removeBucket(bucketName);
+        }
+
+        /**
+         * Empties the bucket (every version, delete marker and incomplete multipart
+         * upload) and then deletes it. Per-key results go to {@code sink} batch by batch.
+         */
+        public void deleteBucketRecursively(String bucketName, Consumer<List<DeleteOutcome>> sink) throws IOException {
+                batchDeleter.deleteAllVersions(bucketName, invalidating(bucketName, sink));
+                batchDeleter.abortMultipartUploads(bucketName);
+                deleteBucket(bucketName);
         }
 
         // --- 2. OBJECT OPERATIONS (Basic CRUD) ---
 
         public String uploadObject(String key, MultipartFile file) throws IOException {
+                Optional<CompressionCodec> codec = objectCompressor.codecFor(contentTypeOf(file), file.getSize());
+                if (codec.isPresent()) {
+                        uploadCompressed(key, file, codec.get());
+                        return "File uploaded successfully: " + key;
+                }
                 PutObjectRequest putObjectRequest = PutObjectRequest.builder()
                                 .bucket(defaultBucketName)
                                 .key(key)
                                 .contentType(file.getContentType())
+                                .checksumAlgorithm(multipartUploader.checksumAlgorithm().orElse(null))
                                 .build();
 
-                s3Client.putObject(putObjectRequest, RequestBody.fromBytes(file.getBytes()));
+                s3Client.putObject(putObjectRequest, streamingBody(file));
+                written(defaultBucketName, key);
                 return "File uploaded successfully: " + key;
         }
 
+        /**
+         * Uploads many files concurrently, each under {@code prefix + filename},
+         * returning one result per file in request order.
+         */
+        public List<UploadOutcome> uploadObjects(String prefix, List<MultipartFile> files) throws IOException {
+                return invalidated(bulkUploader.uploadFiles(defaultBucketName, prefix, files));
+        }
+
+        /**
+         * Expands a zip or tar stream on the fly and uploads every file entry under
+         * {@code prefix}, returning one result per entry in archive order.
+         */
+        public List<UploadOutcome> uploadArchive(String prefix, InputStream archive, ArchiveFormat format)
+                        throws IOException {
+                return invalidated(bulkUploader.uploadArchive(defaultBucketName, prefix, archive, format));
+        }
+
+        private List<UploadOutcome> invalidated(List<UploadOutcome> outcomes) {
+                outcomes.forEach(outcome -> written(defaultBucketName, outcome.key()));
+                return outcomes;
+        }
+
+        /**
+         * Drops what the object cache and metadata index know about a key that
+         * was just overwritten, here or by {@link S3AsyncService}, and stops
+         * later reads joining a fetch that started before the write.
+         */
+        void written(String bucketName, String key) {
+                requestCoalescer.forget(bucketName, key);
+                objectCache.invalidate(bucketName, key);
+                metadataIndex.invalidate(bucketName, key);
+        }
+
+        void deleted(String bucketName, String key) {
+                requestCoalescer.forget(bucketName, key);
+                objectCache.invalidate(bucketName, key);
+                metadataIndex.removed(bucketName, key);
+        }
+
+        /**
+         * Streams the multipart content into the PUT with a known content length.
+         * Spring spools the upload to a temp file, so only the SDK's small read
+         * buffer lives on the heap regardless of the object size.
+         */
+        private RequestBody streamingBody(MultipartFile file) {
+                return RequestBody.fromContentProvider(() -> {
+                        try {
+                                return file.getInputStream();
+                        } catch (IOException e) {
+                                throw new UncheckedIOException(e);
+                        }
+                }, file.getSize(), contentTypeOf(file));
+        }
+
+        private void uploadCompressed(String key, MultipartFile file, CompressionCodec codec) throws IOException {
+                try (InputStream in = file.getInputStream()) {
+                        objectCompressor.upload(defaultBucketName, key, contentTypeOf(file), in, file.getSize(), codec);
+                } finally {
+                        written(defaultBucketName, key);
+                }
+        }
+
+        private static String contentTypeOf(MultipartFile file) {
+                return file.getContentType() != null ? file.getContentType() : "application/octet-stream";
+        }
+
+        /**
+         * Returns the object's original bytes, decompressing it if it was stored
+         * compressed.
+         */
         public byte[] downloadObject(String key) {
+                try (ResponseInputStream<GetObjectResponse> in = openObject(key, null);
+                                InputStream decoded = decoded(in, storedCodec(in.response()))) {
+                        return decoded.readAllBytes();
+                } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                }
+        }
+
+        /**
+         * The codec the object was stored with, if {@link #decompress} is needed
+         * to recover its original bytes.
+         */
+        public Optional<CompressionCodec> storedCodec(GetObjectResponse response) {
+                return ObjectCompressor.storedCodec(response.contentEncoding(), response.metadata());
+        }
+
+        public InputStream decompress(InputStream in, CompressionCodec codec) throws IOException {
+                return objectCompressor.decompress(in, codec);
+        }
+
+        private InputStream decoded(InputStream in, Optional<CompressionCodec> codec) throws IOException {
+                return codec.isPresent() ? decompress(in, codec.get()) : in;
+        }
+
+        /**
+         * Opens the object as a live stream. {@code range} is an HTTP Range header
+         * value passed through to S3 (null for the whole object); the caller owns
+         * and must close the returned stream. Whole-object reads go through the
+         * object cache when it is enabled.
+         */
+        public ResponseInputStream<GetObjectResponse> openObject(String key, String range) {
+                if (range == null && objectCache.isEnabled()) {
+                        return objectCache.open(defaultBucketName, key);
+                }
                 GetObjectRequest getObjectRequest = GetObjectRequest.builder()
                                 .bucket(defaultBucketName)
                                 .key(key)
+                                .range(range)
                                 .build();
-                ResponseBytes<GetObjectResponse> objectBytes = s3Client.getObjectAsBytes(getObjectRequest);
-                return objectBytes.asByteArray();
+                return requestCoalescer.getObject(getObjectRequest);
         }
 
-        public List<String> listObjects() {
-                ListObjectsV2Request listObjectsV2Request = ListObjectsV2Request.builder()
-                                .bucket(defaultBucketName)
-                                .build();
-                return s3Client.listObjectsV2(listObjectsV2Request).contents().stream()
-                                .map(S3Object::key)
-                                .collect(Collectors.toList());
+        /**
+         * Whether a GET already opened by {@link #openObject} should be finished
+         * with concurrent ranged GETs instead: whole, uncompressed objects above
+         * the parallel threshold that the object cache would not keep.
+         */
+        public boolean shouldDownloadInParallel(GetObjectResponse response) {
+                Long length = response.contentLength();
+                return length != null && response.contentRange() == null && storedCodec(response).isEmpty()
+                                && !objectCache.caches(length) && parallelDownloader.shouldParallelize(length);
+        }
+
+        /**
+         * Writes an object opened by {@link #openObject} to {@code out} as stored,
+         * closing it. The opened GET sizes the object, so no HeadObject is needed:
+         * when {@link #shouldDownloadInParallel} holds, it is aborted after its
+         * headers and the body comes from concurrent ranged GETs pinned to its ETag.
+         */
+        public void downloadObject(String key, ResponseInputStream<GetObjectResponse> object, OutputStream out)
+                        throws IOException {
+                try (object) {
+                        GetObjectResponse response = object.response();
+                        if (shouldDownloadInParallel(response)) {
+                                object.abort();
+                                parallelDownloader.downloadTo(defaultBucketName, key, response.contentLength(),
+                                                response.eTag(), out);
+                                return;
+                        }
+                        object.transferTo(out);
+                }
+        }
+
+        /**
+         * One page of the listing, from the metadata index when it covers
+         * {@code prefix}, otherwise from S3.
+         */
+        public ObjectPage listObjects(String prefix, String delimiter, Integer maxKeys, String continuationToken) {
+                Optional<ObjectPage> indexed = metadataIndex.page(defaultBucketName, prefix, delimiter, maxKeys,
+                                continuationToken);
+                if (indexed.isPresent()) {
+                        return indexed.get();
+                }
+                // A token the index issued carries on from its position once S3 has to answer instead.
+                String startAfter = MetadataIndex.startAfter(continuationToken);
+                ListObjectsV2Response response = objectLister.listPage(defaultBucketName, prefix, delimiter, maxKeys,
+                                startAfter != null ? null : continuationToken, startAfter);
+                return new ObjectPage(
+                                response.contents().stream().map(ObjectSummary::from).collect(Collectors.toList()),
+                                response.commonPrefixes().stream().map(CommonPrefix::prefix).collect(Collectors.toList()),
+                                response.nextContinuationToken(),
+                                Boolean.TRUE.equals(response.isTruncated()));
+        }
+
+        /**
+         * Walks every object under {@code prefix} across all pages, handing each
+         * page to {@code pageSink} as it arrives. With {@code parallel} the scan
+         * fans out across the first-level common prefixes. When the metadata
+         * index is enabled it answers covered prefixes itself, and any other scan
+         * loads the prefix into it on the way through.
+         */
+        public void streamObjects(String prefix, boolean parallel, Consumer<List<ObjectSummary>> pageSink)
+                        throws IOException {
+                if (metadataIndex.stream(defaultBucketName, prefix, pageSink)) {
+                        return;
+                }
+                Consumer<List<S3Object>> sink = page -> pageSink.accept(
+                                page.stream().map(ObjectSummary::from).collect(Collectors.toList()));
+                if (metadataIndex.isEnabled()) {
+                        metadataIndex.load(defaultBucketName, prefix, parallel, sink);
+                } else if (parallel) {
+                        objectLister.walkParallel(defaultBucketName, prefix, sink);
+                } else {
+                        objectLister.walk(defaultBucketName, prefix, sink);
+                }
+        }
+
+        /**
+         * The object's metadata, or empty if there is no such key. Existence
+         * checks under a covered prefix are answered by the metadata index.
+         */
+        public Optional<ObjectSummary> findObject(String key) {
+                return metadataIndex.lookup(defaultBucketName, key);
+        }
+
+        public boolean isMetadataIndexEnabled() {
+                return metadataIndex.isEnabled();
+        }
+
+        /**
+         * Re-lists {@code prefix} into the metadata index, after which listings
+         * and lookups under it are served from memory.
+         */
+        public void reconcileIndex(String prefix) throws IOException {
+                metadataIndex.load(defaultBucketName, prefix, true, page -> {
+                });
+                metadataIndex.save();
         }
 
         public void deleteObject(String key) {
@@ -89,6 +336,24 @@ public class S3Service {
                                 .bucket(defaultBucketName)
                                 .key(key)
                                 .build());
+                deleted(defaultBucketName, key);
+        }
+
+        public void deleteObjects(List<String> keys, Consumer<List<DeleteOutcome>> sink) throws IOException {
+                batchDeleter.deleteKeys(defaultBucketName, keys, invalidating(defaultBucketName, sink));
+        }
+
+        public void deletePrefix(String prefix, Consumer<List<DeleteOutcome>> sink) throws IOException {
+                batchDeleter.deletePrefix(defaultBucketName, prefix, invalidating(defaultBucketName, sink));
+        }
+
+        private Consumer<List<DeleteOutcome>> invalidating(String bucketName, Consumer<List<DeleteOutcome>> sink) {
+                return outcomes -> {
+                        outcomes.stream()
+                                        .filter(DeleteOutcome::deleted)
+                                        .forEach(outcome -> deleted(bucketName, outcome.key()));
+                        sink.accept(outcomes);
+                };
         }
 
         // --- 3. VERSIONING ---
@@ -103,100 +368,81 @@ public class S3Service {
                 s3Client.putBucketVersioning(request);
         }
 
-        public List<ObjectVersion> listObjectVersions(String key) {
-                ListObjectVersionsRequest request = ListObjectVersionsRequest.builder()
-                                .bucket(defaultBucketName)
-                                .prefix(key)
-                                .build();
-                return s3Client.listObjectVersions(request).versions();
+        /**
+         * One page of the versions of the keys starting with {@code key}. First
+         * pages are served from the metadata index's version cache when it is
+         * enabled.
+         */
+        public VersionPage listObjectVersions(String key, Integer maxKeys, String keyMarker, String versionIdMarker) {
+                return metadataIndex.versions(defaultBucketName, key, maxKeys, keyMarker, versionIdMarker);
         }
 
         // --- 4. PRESIGNED URLS ---
 
         public String generatePresignedDownloadUrl(String key) {
-                GetObjectRequest getObjectRequest = GetObjectRequest.builder()
-                                .bucket(defaultBucketName)
-                                .key(key)
-                                .build();
-
-                GetObjectPresignRequest presignRequest = GetObjectPresignRequest.builder()
-                                .signatureDuration(Duration.ofMinutes(10))
-                                .getObjectRequest(getObjectRequest)
-                                .build();
+                return generatePresignedDownloadUrl(key, null);
+        }
 
-                PresignedGetObjectRequest presignedRequest = s3Presigner.presignGetObject(presignRequest);
-                return presignedRequest.url().toString();
+        public String generatePresignedDownloadUrl(String key, String versionId) {
+                return presignedUrlCache.presignGet(defaultBucketName, key, versionId).url();
         }
 
         public String generatePresignedUploadUrl(String key) {
-                PutObjectRequest putObjectRequest = PutObjectRequest.builder()
-                                .bucket(defaultBucketName)
-                                .key(key)
-                                .build();
-
-                PutObjectPresignRequest presignRequest = PutObjectPresignRequest.builder()
-                                .signatureDuration(Duration.ofMinutes(10))
-                                .putObjectRequest(putObjectRequest)
-                                .build();
+                return presignedUrlCache.presignPut(defaultBucketName, key, null).url();
+        }
 
-                return s3Presigner.presignPutObject(presignRequest).url().toString();
+        /**
+         * Presigns {@code method} ("GET" or "PUT") for every key, in order. Hot keys
+         * are served from the presigned URL cache.
+         */
+        public List<PresignedUrl> generatePresignedUrls(String method, List<String> keys) {
+                return keys.stream()
+                                .map(key -> "PUT".equals(method)
+                                                ? presignedUrlCache.presignPut(defaultBucketName, key, null)
+                                                : presignedUrlCache.presignGet(defaultBucketName, key, null))
+                                .collect(Collectors.toList());
         }
 
         // --- 5. MULTIPART UPLOAD (For Large Files) ---
 
         public String multipartUpload(String key, MultipartFile file) throws IOException {
-                // 1. Initiate
-                CreateMultipartUploadRequest createRequest = CreateMultipartUploadRequest.builder()
-                                .bucket(defaultBucketName)
-                                .key(key)
-                                .build();
-                CreateMultipartUploadResponse createResponse = s3Client.createMultipartUpload(createRequest);
-                String uploadId = createResponse.uploadId();
-
-                List<CompletedPart> completedParts = new ArrayList<>();
-                byte[] bytes = file.getBytes();
-                int partSize = 5 * 1024 * 1024; // 5MB part size
-
-                try {
-                        for (int i = 0; i * partSize < bytes.length; i++) {
-                                int start = i * partSize;
-                                int end = Math.min(start + partSize, bytes.length);
-                                byte[] partBuffer = new byte[end - start];
-                                System.arraycopy(bytes, start, partBuffer, 0, end - start);
-
-                                UploadPartRequest uploadPartRequest = UploadPartRequest.builder()
-                                                .bucket(defaultBucketName)
-                                                .key(key)
-                                                .uploadId(uploadId)
-                                                .partNumber(i + 1)
-                                                .build();
-
-                                String etag = s3Client.uploadPart(uploadPartRequest, RequestBody.fromBytes(partBuffer))
-                                                .eTag();
-                                completedParts.add(CompletedPart.builder().partNumber(i + 1).eTag(etag).build());
-                        }
-
-                        // 2. Complete
-                        CompletedMultipartUpload completedMultipartUpload = CompletedMultipartUpload.builder()
-                                        .parts(completedParts)
-                                        .build();
-                        s3Client.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
-                                        .bucket(defaultBucketName)
-                                        .key(key)
-                                        .uploadId(uploadId)
-                                        .multipartUpload(completedMultipartUpload)
-                                        .build());
-                } catch (Exception e) {
-                        s3Client.abortMultipartUpload(AbortMultipartUploadRequest.builder()
-                                        .bucket(defaultBucketName)
-                                        .key(key)
-                                        .uploadId(uploadId)
-                                        .build());
-                        throw e;
+                Optional<CompressionCodec> codec = objectCompressor.codecFor(contentTypeOf(file), file.getSize());
+                if (codec.isPresent()) {
+                        uploadCompressed(key, file, codec.get());
+                        return "Multipart upload complete";
+                }
+                try (InputStream in = file.getInputStream()) {
+                        multipartUploader.upload(defaultBucketName, key, contentTypeOf(file), in, file.getSize());
+                } finally {
+                        written(defaultBucketName, key);
                 }
                 return "Multipart upload complete";
         }
 
+        // Resumable uploads: the client sends parts over as many requests as it likes.
+
+        public ResumableUpload initiateResumableUpload(String key, String contentType) {
+                return resumableUploader.initiate(defaultBucketName, key, contentType);
+        }
+
+        public Optional<UploadedPart> uploadPart(String uploadId, int partNumber, InputStream body, long contentLength) {
+                return resumableUploader.uploadPart(uploadId, partNumber, body, contentLength);
+        }
+
+        public Optional<ResumableUpload> getResumableUpload(String uploadId) {
+                return resumableUploader.status(uploadId);
+        }
+
+        public Optional<ResumableUpload> completeResumableUpload(String uploadId) {
+                Optional<ResumableUpload> upload = resumableUploader.complete(uploadId);
+                upload.ifPresent(completed -> written(completed.bucket(), completed.key()));
+                return upload;
+        }
+
+        public boolean abortResumableUpload(String uploadId) {
+                return resumableUploader.abort(uploadId);
+        }
+
         // --- 6. LIFECYCLE CONFIGURATION ---
 
         public void setLifecycleConfiguration(String bucketName) {
@@ -227,8 +473,10 @@ public class S3Service {
                                 .bucket(defaultBucketName)
                                 .key(key)
                                 .serverSideEncryption(ServerSideEncryption.AES256)
+                                .checksumAlgorithm(multipartUploader.checksumAlgorithm().orElse(null))
                                 .build();
-                s3Client.putObject(putObjectRequest, RequestBody.fromBytes(file.getBytes()));
+                s3Client.putObject(putObjectRequest, streamingBody(file));
+                written(defaultBucketName, key);
         }
 
         // --- 8. OBJECT TAGGING ---
@@ -241,4 +489,59 @@ public class S3Service {
                                 .tagging(Tagging.builder().tagSet(tag).build())
                                 .build());
         }
+
+        // --- 9. SERVER-SIDE COPY & MOVE ---
+
+        /**
+         * Copies an object inside S3 to {@code destinationKey} in
+         * {@code destinationBucket} (the default bucket when null). Returns the
+         * new object's ETag.
+         */
+        public String copyObject(String sourceKey, String destinationKey, String destinationBucket) throws IOException {
+                String bucket = destinationBucket != null ? destinationBucket : defaultBucketName;
+                String eTag = objectCopier.copy(defaultBucketName, sourceKey, bucket, destinationKey);
+                written(bucket, destinationKey);
+                return eTag;
+        }
+
+        /**
+         * Copies the object and then deletes the source.
+         */
+        public String moveObject(String sourceKey, String destinationKey, String destinationBucket) throws IOException {
+                String eTag = copyObject(sourceKey, destinationKey, destinationBucket);
+                deleteObject(sourceKey);
+                return eTag;
+        }
+
+        public boolean isValidPrefixCopy(String sourcePrefix, String destinationPrefix, String destinationBucket) {
+                return !ObjectCopier.overlaps(defaultBucketName, sourcePrefix,
+                                destinationBucket != null ? destinationBucket : defaultBucketName, destinationPrefix);
+        }
+
+        /**
+         * Copies (or, with {@code move}, moves) every object under
+         * {@code sourcePrefix} to {@code destinationPrefix}, reporting each object
+         * to {@code sink} as it completes.
+         */
+        public void copyPrefix(String sourcePrefix, String destinationPrefix, String destinationBucket, boolean move,
+                        Consumer<List<CopyOutcome>> sink) throws IOException {
+                String bucket = destinationBucket != null ? destinationBucket : defaultBucketName;
+                objectCopier.copyPrefix(defaultBucketName, sourcePrefix, bucket, destinationPrefix, move, outcomes -> {
+                        outcomes.stream().filter(CopyOutcome::copied).forEach(outcome -> {
+                                written(bucket, outcome.destinationKey());
+                                if (move) {
+                                        deleted(defaultBucketName, outcome.sourceKey());
+                                }
+                        });
+                        sink.accept(outcomes);
+                });
+        }
+
+        /**
+         * Re-reads every object under {@code prefix} and checks it against the
+         * checksums stored at upload, reporting each object to {@code sink}.
+         */
+        public void verifyPrefix(String prefix, Consumer<List<VerifyOutcome>> sink) throws IOException {
+                checksumVerifier.verifyPrefix(defaultBucketName, prefix, sink);
+        }
 }
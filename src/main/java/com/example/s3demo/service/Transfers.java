@@ -0,0 +1,82 @@
+package com.example.s3demo.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import software.amazon.awssdk.awscore.exception.AwsServiceException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Small helpers shared by the concurrent transfer engines.
+ */
+final class Transfers {
+
+        private Transfers() {
+        }
+
+        static ThreadFactory daemonThreads(String prefix) {
+                AtomicInteger counter = new AtomicInteger();
+                return runnable -> {
+                        Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                };
+        }
+
+        static int readFully(InputStream in, byte[] buffer) throws IOException {
+                int total = 0;
+                while (total < buffer.length) {
+                        int n = in.read(buffer, total, buffer.length - total);
+                        if (n < 0) {
+                                break;
+                        }
+                        total += n;
+                }
+                return total;
+        }
+
+        /**
+         * Unwraps worker failures so callers see the original S3 or I/O exception.
+         * Unchecked causes are rethrown directly; checked ones come back as an
+         * {@link IOException} for the caller to throw.
+         */
+        static IOException rethrow(Exception e) {
+                Throwable cause = e instanceof ExecutionException && e.getCause() != null ? e.getCause() : e;
+                if (cause instanceof InterruptedException) {
+                        Thread.currentThread().interrupt();
+                }
+                if (cause instanceof RuntimeException runtime) {
+                        throw runtime;
+                }
+                if (cause instanceof Error error) {
+                        throw error;
+                }
+                return cause instanceof IOException io ? io : new IOException(cause);
+        }
+
+        /**
+         * S3 error code for service failures, or the exception's simple class name
+         * for client-side ones, for per-object result records.
+         */
+        static String errorCode(Exception e) {
+                return e instanceof AwsServiceException service && service.awsErrorDetails() != null
+                                ? service.awsErrorDetails().errorCode()
+                                : e.getClass().getSimpleName();
+        }
+
+        /**
+         * Latency histogram for the individual part requests of a transfer, so
+         * slow parts show up separately from whole-object timings.
+         */
+        static Timer partTimer(MeterRegistry meterRegistry, String direction) {
+                return Timer.builder("s3.transfer.part")
+                                .description("Latency of a single multipart part or ranged GET")
+                                .tag("direction", direction)
+                                .publishPercentileHistogram()
+                                .register(meterRegistry);
+        }
+}
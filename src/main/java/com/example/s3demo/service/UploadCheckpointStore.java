@@ -0,0 +1,173 @@
+package com.example.s3demo.service;
+
+import com.example.s3demo.model.ResumableUpload;
+import com.example.s3demo.model.UploadedPart;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Local, restart-safe record of resumable multipart uploads. Each upload is an
+ * append-only NDJSON file: a header line, then one line per acknowledged part.
+ * Appending a line per part keeps concurrent part uploads cheap, and a line
+ * torn by a crash is simply ignored on reload (that part is re-uploaded). A
+ * re-uploaded part number replaces the earlier ETag, as it does in S3.
+ */
+@Component
+public class UploadCheckpointStore {
+
+        private static final String SUFFIX = ".upload";
+
+        // Own mapper so the on-disk format does not follow app-wide Jackson settings.
+        private final ObjectMapper mapper = new ObjectMapper()
+                        .findAndRegisterModules()
+                        .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        private final Path directory;
+        private final Map<String, Checkpoint> checkpoints = new ConcurrentHashMap<>();
+
+        public UploadCheckpointStore(@Value("${aws.s3.resumable.dir:${java.io.tmpdir}/s3-resumable-uploads}") Path directory) {
+                this.directory = directory;
+                try {
+                        Files.createDirectories(directory);
+                        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+                                for (Path file : files) {
+                                        load(file).ifPresent(checkpoint -> checkpoints.put(checkpoint.header.uploadId(), checkpoint));
+                                }
+                        }
+                } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                }
+        }
+
+        public ResumableUpload create(String uploadId, String bucket, String key, String contentType) {
+                Header header = new Header(uploadId, bucket, key, contentType, Instant.now());
+                Checkpoint checkpoint = new Checkpoint(file(uploadId), header);
+                checkpoint.append(line(header), header.createdAt());
+                checkpoints.put(uploadId, checkpoint);
+                return checkpoint.snapshot();
+        }
+
+        public Optional<ResumableUpload> get(String uploadId) {
+                return Optional.ofNullable(checkpoints.get(uploadId)).map(Checkpoint::snapshot);
+        }
+
+        public Collection<ResumableUpload> all() {
+                return checkpoints.values().stream().map(Checkpoint::snapshot).toList();
+        }
+
+        /**
+         * Persists an acknowledged part before it is reported to the client.
+         * Returns false if the upload is no longer tracked.
+         */
+        public boolean recordPart(String uploadId, UploadedPart part) {
+                Checkpoint checkpoint = checkpoints.get(uploadId);
+                if (checkpoint == null) {
+                        return false;
+                }
+                checkpoint.addPart(part, line(part));
+                return true;
+        }
+
+        public void remove(String uploadId) {
+                Checkpoint checkpoint = checkpoints.remove(uploadId);
+                if (checkpoint != null) {
+                        checkpoint.delete();
+                }
+        }
+
+        private Optional<Checkpoint> load(Path file) throws IOException {
+                List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+                if (lines.isEmpty()) {
+                        return Optional.empty();
+                }
+                Header header;
+                try {
+                        header = mapper.readValue(lines.get(0), Header.class);
+                } catch (JsonProcessingException e) {
+                        return Optional.empty();
+                }
+                Checkpoint checkpoint = new Checkpoint(file, header);
+                for (String line : lines.subList(1, lines.size())) {
+                        try {
+                                UploadedPart part = mapper.readValue(line, UploadedPart.class);
+                                checkpoint.parts.put(part.partNumber(), part);
+                        } catch (JsonProcessingException e) {
+                                break; // torn final write
+                        }
+                }
+                checkpoint.updatedAt = Instant.ofEpochMilli(Files.getLastModifiedTime(file).toMillis());
+                return Optional.of(checkpoint);
+        }
+
+        private Path file(String uploadId) {
+                // Upload IDs are opaque and may contain characters that are not safe in file names.
+                return directory.resolve(Base64.getUrlEncoder().withoutPadding()
+                                .encodeToString(uploadId.getBytes(StandardCharsets.UTF_8)) + SUFFIX);
+        }
+
+        private byte[] line(Object value) {
+                try {
+                        return (mapper.writeValueAsString(value) + "\n").getBytes(StandardCharsets.UTF_8);
+                } catch (JsonProcessingException e) {
+                        throw new IllegalStateException(e);
+                }
+        }
+
+        private record Header(String uploadId, String bucket, String key, String contentType, Instant createdAt) {
+        }
+
+        private static final class Checkpoint {
+
+                private final Path file;
+                private final Header header;
+                private final SortedMap<Integer, UploadedPart> parts = new TreeMap<>();
+                private Instant updatedAt;
+
+                Checkpoint(Path file, Header header) {
+                        this.file = file;
+                        this.header = header;
+                        this.updatedAt = header.createdAt();
+                }
+
+                synchronized void addPart(UploadedPart part, byte[] line) {
+                        append(line, Instant.now());
+                        parts.put(part.partNumber(), part);
+                }
+
+                synchronized void append(byte[] line, Instant at) {
+                        try {
+                                Files.write(file, line, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                StandardOpenOption.APPEND);
+                        } catch (IOException e) {
+                                throw new UncheckedIOException(e);
+                        }
+                        updatedAt = at;
+                }
+
+                synchronized void delete() {
+                        try {
+                                Files.deleteIfExists(file);
+                        } catch (IOException e) {
+                                throw new UncheckedIOException(e);
+                        }
+                }
+
+                synchronized ResumableUpload snapshot() {
+                        return new ResumableUpload(header.uploadId(), header.bucket(), header.key(), header.contentType(),
+                                        header.createdAt(), updatedAt, List.copyOf(parts.values()));
+                }
+        }
+}
@@ -0,0 +1,165 @@
+package com.example.s3demo.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.client.config.ClientOverrideConfiguration;
+import software.amazon.awssdk.core.retry.RetryPolicy;
+import software.amazon.awssdk.core.retry.backoff.BackoffStrategy;
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.http.ExecutableHttpRequest;
+import software.amazon.awssdk.http.HttpExecuteResponse;
+import software.amazon.awssdk.http.SdkHttpClient;
+import software.amazon.awssdk.http.SdkHttpResponse;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.CopyObjectRequest;
+import software.amazon.awssdk.services.s3.model.ListBucketsRequest;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class S3ConcurrencyLimiterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final SdkHttpClient httpClient = mock(SdkHttpClient.class);
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    private S3ConcurrencyLimiter limiter(int initialLimit) {
+        return new S3ConcurrencyLimiter(meterRegistry, true, 1, initialLimit, 1, 200, 0.5,
+                Duration.ofSeconds(5), Duration.ofMillis(50), 100);
+    }
+
+    private S3Client client(S3ConcurrencyLimiter limiter) {
+        return S3Client.builder()
+                .region(Region.US_EAST_1)
+                .endpointOverride(URI.create("http://localhost:9000"))
+                .forcePathStyle(true)
+                .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create("key", "secret")))
+                .httpClient(httpClient)
+                .overrideConfiguration(ClientOverrideConfiguration.builder()
+                        .retryPolicy(RetryPolicy.builder()
+                                .numRetries(2)
+                                .backoffStrategy(BackoffStrategy.none())
+                                .throttlingBackoffStrategy(BackoffStrategy.none())
+                                .build())
+                        .addExecutionInterceptor(limiter)
+                        .build())
+                .build();
+    }
+
+    @Test
+    void testCallsAreGroupedByBucketAndLeadingPrefix() {
+        // Arrange
+        S3ConcurrencyLimiter limiter = limiter(10);
+
+        // Act
+        Optional<String> put = limiter.limiterName(PutObjectRequest.builder()
+                .bucket("bucket").key("logs/2024/a.txt").build());
+        Optional<String> list = limiter.limiterName(ListObjectsV2Request.builder()
+                .bucket("bucket").prefix("logs/2025/").build());
+        Optional<String> root = limiter.limiterName(PutObjectRequest.builder().bucket("bucket").key("a.txt").build());
+        Optional<String> copy = limiter.limiterName(CopyObjectRequest.builder()
+                .sourceBucket("source").sourceKey("x/a").destinationBucket("target").destinationKey("y/a").build());
+        Optional<String> account = limiter.limiterName(ListBucketsRequest.builder().build());
+
+        // Assert
+        assertEquals(Optional.of("bucket/logs/"), put);
+        assertEquals(Optional.of("bucket/logs/"), list);
+        assertEquals(Optional.of("bucket/"), root);
+        assertEquals(Optional.of("target/y/"), copy);
+        assertEquals(Optional.empty(), account);
+    }
+
+    @Test
+    void testSlowDownHalvesTheLimitOnce() throws Exception {
+        // Arrange
+        S3ConcurrencyLimiter limiter = limiter(8);
+        S3Client s3Client = client(limiter);
+        respond(response(503, error("SlowDown")), response(503, error("SlowDown")), response(200, ""));
+
+        // Act
+        s3Client.headObject(b -> b.bucket("bucket").key("hot/key"));
+
+        // Assert
+        assertEquals(4, limiter.currentLimit("bucket/hot/"));
+        assertEquals(2.0, meterRegistry.get("s3.limiter.throttled").tags("operation", "HeadObject").counter().count());
+    }
+
+    @Test
+    void testRequestThreadIsShedWhenPrefixIsSaturated() throws Exception {
+        // Arrange
+        S3ConcurrencyLimiter limiter = limiter(1);
+        S3Client s3Client = client(limiter);
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutableHttpRequest call = mock(ExecutableHttpRequest.class);
+        when(call.call()).thenAnswer(invocation -> {
+            // Only the first call is held open; it keeps the "hot/" prefix at its limit of one.
+            if (entered.getCount() > 0) {
+                entered.countDown();
+                release.await(5, TimeUnit.SECONDS);
+            }
+            return response(200, "");
+        });
+        when(httpClient.prepareRequest(any())).thenReturn(call);
+        CompletableFuture<Void> inFlight = CompletableFuture.runAsync(
+                () -> s3Client.headObject(b -> b.bucket("bucket").key("hot/a")));
+        entered.await(5, TimeUnit.SECONDS);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+
+        // Act
+        ConcurrencyLimitExceededException shed = assertThrows(ConcurrencyLimitExceededException.class,
+                () -> s3Client.headObject(b -> b.bucket("bucket").key("hot/b")));
+        s3Client.headObject(b -> b.bucket("bucket").key("cold/c"));
+        release.countDown();
+        inFlight.get(5, TimeUnit.SECONDS);
+
+        // Assert
+        assertTrue(shed.retryAfter().toSeconds() >= 1);
+        assertEquals(1.0, meterRegistry.get("s3.limiter.rejected").tags("operation", "HeadObject").counter().count());
+        verify(call, times(2)).call();
+    }
+
+    private void respond(HttpExecuteResponse first, HttpExecuteResponse... rest) throws Exception {
+        ExecutableHttpRequest call = mock(ExecutableHttpRequest.class);
+        when(call.call()).thenReturn(first, rest);
+        when(httpClient.prepareRequest(any())).thenReturn(call);
+    }
+
+    private static String error(String code) {
+        return "<Error><Code>" + code + "</Code><Message>test</Message></Error>";
+    }
+
+    private static HttpExecuteResponse response(int status, String body) {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        return HttpExecuteResponse.builder()
+                .response(SdkHttpResponse.builder()
+                        .statusCode(status)
+                        .putHeader("Content-Length", Integer.toString(bytes.length))
+                        .build())
+                .responseBody(AbortableInputStream.create(new ByteArrayInputStream(bytes)))
+                .build();
+    }
+}
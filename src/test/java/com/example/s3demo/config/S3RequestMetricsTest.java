@@ -0,0 +1,119 @@
+package com.example.s3demo.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.client.config.ClientOverrideConfiguration;
+import software.amazon.awssdk.core.retry.RetryPolicy;
+import software.amazon.awssdk.core.retry.backoff.BackoffStrategy;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.http.ExecutableHttpRequest;
+import software.amazon.awssdk.http.HttpExecuteRequest;
+import software.amazon.awssdk.http.HttpExecuteResponse;
+import software.amazon.awssdk.http.SdkHttpClient;
+import software.amazon.awssdk.http.SdkHttpResponse;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class S3RequestMetricsTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private SdkHttpClient httpClient;
+    private S3Client s3Client;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        httpClient = mock(SdkHttpClient.class);
+        s3Client = S3Client.builder()
+                .region(Region.US_EAST_1)
+                .endpointOverride(URI.create("http://localhost:9000"))
+                .forcePathStyle(true)
+                .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create("key", "secret")))
+                .httpClient(httpClient)
+                .overrideConfiguration(ClientOverrideConfiguration.builder()
+                        .retryPolicy(RetryPolicy.builder()
+                                .numRetries(2)
+                                .backoffStrategy(BackoffStrategy.none())
+                                .throttlingBackoffStrategy(BackoffStrategy.none())
+                                .build())
+                        .addExecutionInterceptor(new S3RequestMetrics(meterRegistry))
+                        .build())
+                .build();
+    }
+
+    @Test
+    void testSuccessfulPutIsTimedAndCounted() throws Exception {
+        // Arrange
+        // The SDK checks the PutObject ETag against the MD5 of what it sent.
+        respond(response(200, "", "ETag", "\"5d41402abc4b2a76b9719d911017c592\""));
+
+        // Act
+        s3Client.putObject(b -> b.bucket("test-bucket").key("key"), RequestBody.fromString("hello"));
+
+        // Assert
+        assertEquals(1, meterRegistry.get("s3.client.requests")
+                .tags("operation", "PutObject", "status", "200", "error", "none").timer().count());
+        assertEquals(5.0, meterRegistry.get("s3.client.bytes")
+                .tags("operation", "PutObject", "direction", "sent").counter().count());
+        assertTrue(meterRegistry.find("s3.client.retries").counters().isEmpty());
+    }
+
+    @Test
+    void testFailureIsTaggedWithErrorCodeAndRetriesAreCounted() throws Exception {
+        // Arrange
+        respond(response(503, error("SlowDown")), response(404, error("NoSuchKey")));
+
+        // Act
+        assertThrows(NoSuchKeyException.class,
+                () -> s3Client.getObjectAsBytes(b -> b.bucket("test-bucket").key("missing")));
+
+        // Assert
+        assertEquals(1, meterRegistry.get("s3.client.requests")
+                .tags("operation", "GetObject", "status", "404", "error", "NoSuchKey").timer().count());
+        assertEquals(1.0, meterRegistry.get("s3.client.retries").tags("operation", "GetObject").counter().count());
+    }
+
+    private void respond(HttpExecuteResponse first, HttpExecuteResponse... rest) throws Exception {
+        ExecutableHttpRequest call = mock(ExecutableHttpRequest.class);
+        when(call.call()).thenReturn(first, rest);
+        // Consume the request body like a real client, so the SDK's upload checksum sees it.
+        when(httpClient.prepareRequest(any())).thenAnswer(invocation -> {
+            HttpExecuteRequest request = invocation.getArgument(0);
+            if (request.contentStreamProvider().isPresent()) {
+                request.contentStreamProvider().get().newStream().readAllBytes();
+            }
+            return call;
+        });
+    }
+
+    private static String error(String code) {
+        return "<Error><Code>" + code + "</Code><Message>test</Message></Error>";
+    }
+
+    private static HttpExecuteResponse response(int status, String body, String... headers) {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        SdkHttpResponse.Builder response = SdkHttpResponse.builder()
+                .statusCode(status)
+                .putHeader("Content-Length", Integer.toString(bytes.length));
+        for (int i = 0; i < headers.length; i += 2) {
+            response.putHeader(headers[i], headers[i + 1]);
+        }
+        return HttpExecuteResponse.builder()
+                .response(response.build())
+                .responseBody(AbortableInputStream.create(new ByteArrayInputStream(bytes)))
+                .build();
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.s3demo.service;
+
+import com.example.s3demo.model.DeleteOutcome;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.*;
+import software.amazon.awssdk.services.s3.paginators.ListObjectVersionsIterable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class BatchDeleterTest {
+
+    @Mock
+    private S3Client s3Client;
+
+    private BatchDeleter batchDeleter;
+
+    @BeforeEach
+    void setUp() {
+        batchDeleter = new BatchDeleter(s3Client, 3);
+    }
+
+    @AfterEach
+    void tearDown() {
+        batchDeleter.shutdown();
+    }
+
+    @Test
+    void testDeleteKeysSplitsIntoThousandKeyBatches() throws Exception {
+        // Arrange
+        List<String> keys = IntStream.range(0, 2500).mapToObj(i -> "key-" + i).toList();
+        List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+        when(s3Client.deleteObjects(any(DeleteObjectsRequest.class))).thenAnswer(invocation -> {
+            DeleteObjectsRequest request = invocation.getArgument(0);
+            batchSizes.add(request.delete().objects().size());
+            return DeleteObjectsResponse.builder()
+                    .deleted(request.delete().objects().stream()
+                            .map(id -> DeletedObject.builder().key(id.key()).build())
+                            .toList())
+                    .build();
+        });
+        List<DeleteOutcome> outcomes = Collections.synchronizedList(new ArrayList<>());
+
+        // Act
+        batchDeleter.deleteKeys("test-bucket", keys, outcomes::addAll);
+
+        // Assert
+        assertEquals(List.of(500, 1000, 1000), batchSizes.stream().sorted().toList());
+        assertEquals(2500, outcomes.size());
+        assertEquals(2500, outcomes.stream().filter(DeleteOutcome::deleted).count());
+    }
+
+    @Test
+    void testPerKeyErrorsAreReported() throws Exception {
+        // Arrange
+        when(s3Client.deleteObjects(any(DeleteObjectsRequest.class))).thenReturn(DeleteObjectsResponse.builder()
+                .deleted(DeletedObject.builder().key("a").build())
+                .errors(S3Error.builder().key("b").code("AccessDenied").message("denied").build())
+                .build());
+        List<DeleteOutcome> outcomes = new ArrayList<>();
+
+        // Act
+        batchDeleter.deleteKeys("test-bucket", List.of("a", "b"), outcomes::addAll);
+
+        // Assert
+        assertEquals(2, outcomes.size());
+        DeleteOutcome failed = outcomes.stream().filter(o -> o.key().equals("b")).findFirst().orElseThrow();
+        assertFalse(failed.deleted());
+        assertEquals("AccessDenied", failed.errorCode());
+    }
+
+    @Test
+    void testDeleteAllVersionsIncludesDeleteMarkers() throws Exception {
+        // Arrange
+        when(s3Client.listObjectVersionsPaginator(any(ListObjectVersionsRequest.class)))
+                .thenAnswer(invocation -> new ListObjectVersionsIterable(s3Client, invocation.getArgument(0)));
+        when(s3Client.listObjectVersions(any(ListObjectVersionsRequest.class))).thenReturn(
+                ListObjectVersionsResponse.builder()
+                        .versions(ObjectVersion.builder().key("a").versionId("v1").build())
+                        .deleteMarkers(DeleteMarkerEntry.builder().key("a").versionId("v2").build())
+                        .isTruncated(false)
+                        .build());
+        when(s3Client.deleteObjects(any(DeleteObjectsRequest.class))).thenReturn(DeleteObjectsResponse.builder().build());
+
+        // Act
+        batchDeleter.deleteAllVersions("test-bucket", outcomes -> { });
+
+        // Assert
+        verify(s3Client).deleteObjects(DeleteObjectsRequest.builder()
+                .bucket("test-bucket")
+                .delete(Delete.builder().objects(
+                        ObjectIdentifier.builder().key("a").versionId("v1").build(),
+                        ObjectIdentifier.builder().key("a").versionId("v2").build()).build())
+                .build());
+    }
+}
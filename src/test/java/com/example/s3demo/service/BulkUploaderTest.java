@@ -0,0 +1,193 @@
+package com.example.s3demo.service;
+
+import com.example.s3demo.model.UploadOutcome;
+import com.example.s3demo.service.BulkUploader.ArchiveFormat;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.util.unit.DataSize;
+import software.amazon.awssdk.awscore.exception.AwsErrorDetails;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class BulkUploaderTest {
+
+    private static final int THRESHOLD = 1024;
+
+    @Mock
+    private S3Client s3Client;
+
+    private MultipartUploader multipartUploader;
+    private BulkUploader bulkUploader;
+
+    @BeforeEach
+    void setUp() {
+        multipartUploader = new MultipartUploader(s3Client, new SimpleMeterRegistry(), DataSize.ofMegabytes(5), 2, 2, "crc32c");
+        bulkUploader = new BulkUploader(s3Client, multipartUploader, 2, 4, DataSize.ofKilobytes(4),
+                DataSize.ofBytes(THRESHOLD));
+    }
+
+    @AfterEach
+    void tearDown() {
+        bulkUploader.shutdown();
+        multipartUploader.shutdown();
+    }
+
+    @Test
+    void testZipEntriesUploadedInArchiveOrderWithBoundedConcurrency() throws Exception {
+        // Arrange
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        when(s3Client.putObject(any(PutObjectRequest.class), any(RequestBody.class))).thenAnswer(invocation -> {
+            peak.accumulateAndGet(active.incrementAndGet(), Math::max);
+            Thread.sleep(20);
+            active.decrementAndGet();
+            PutObjectRequest request = invocation.getArgument(0);
+            return PutObjectResponse.builder().eTag("etag-" + request.key()).build();
+        });
+        byte[] zip = zip(Map.of("dir/", new byte[0]), "a.txt", "b.json", "c.bin", "./d/e.txt");
+
+        // Act
+        List<UploadOutcome> outcomes = bulkUploader.uploadArchive("test-bucket", "in/",
+                new ByteArrayInputStream(zip), ArchiveFormat.ZIP);
+
+        // Assert
+        assertEquals(List.of("in/a.txt", "in/b.json", "in/c.bin", "in/d/e.txt"),
+                outcomes.stream().map(UploadOutcome::key).toList());
+        assertTrue(outcomes.stream().allMatch(UploadOutcome::uploaded));
+        assertEquals("etag-in/a.txt", outcomes.get(0).eTag());
+        assertTrue(peak.get() <= 2);
+        verify(s3Client).putObject(argThat((PutObjectRequest r) -> r.key().equals("in/b.json")
+                && "application/json".equals(r.contentType())), any(RequestBody.class));
+    }
+
+    @Test
+    void testLargeTarEntryStreamsThroughMultipart() throws Exception {
+        // Arrange
+        when(s3Client.putObject(any(PutObjectRequest.class), any(RequestBody.class)))
+                .thenReturn(PutObjectResponse.builder().eTag("small").build());
+        when(s3Client.createMultipartUpload(any(CreateMultipartUploadRequest.class)))
+                .thenReturn(CreateMultipartUploadResponse.builder().uploadId("upload-1").build());
+        when(s3Client.uploadPart(any(UploadPartRequest.class), any(RequestBody.class)))
+                .thenReturn(UploadPartResponse.builder().eTag("part").build());
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (TarArchiveOutputStream tar = new TarArchiveOutputStream(bytes)) {
+            addTarEntry(tar, "big.bin", new byte[THRESHOLD * 3]);
+            addTarEntry(tar, "small.txt", new byte[10]);
+        }
+
+        // Act
+        List<UploadOutcome> outcomes = bulkUploader.uploadArchive("test-bucket", "",
+                new ByteArrayInputStream(bytes.toByteArray()), ArchiveFormat.TAR);
+
+        // Assert
+        assertEquals(2, outcomes.size());
+        assertTrue(outcomes.get(0).uploaded());
+        assertEquals(THRESHOLD * 3, outcomes.get(0).size());
+        ArgumentCaptor<RequestBody> part = ArgumentCaptor.forClass(RequestBody.class);
+        verify(s3Client).uploadPart(any(UploadPartRequest.class), part.capture());
+        assertEquals(THRESHOLD * 3, part.getValue().optionalContentLength().orElseThrow());
+        verify(s3Client).completeMultipartUpload(any(CompleteMultipartUploadRequest.class));
+        assertEquals(new UploadOutcome("small.txt", 10, true, "small", null, null), outcomes.get(1));
+    }
+
+    @Test
+    void testFailedEntryIsReportedWithoutFailingTheBatch() throws Exception {
+        // Arrange
+        when(s3Client.putObject(any(PutObjectRequest.class), any(RequestBody.class))).thenAnswer(invocation -> {
+            PutObjectRequest request = invocation.getArgument(0);
+            if (request.key().equals("b.txt")) {
+                throw S3Exception.builder()
+                        .awsErrorDetails(AwsErrorDetails.builder()
+                                .errorCode("AccessDenied").build())
+                        .message("denied")
+                        .build();
+            }
+            return PutObjectResponse.builder().eTag("ok").build();
+        });
+        byte[] zip = zip(Map.of(), "a.txt", "b.txt", "c.txt");
+
+        // Act
+        List<UploadOutcome> outcomes = bulkUploader.uploadArchive("test-bucket", "",
+                new ByteArrayInputStream(zip), ArchiveFormat.ZIP);
+
+        // Assert
+        assertTrue(outcomes.get(0).uploaded());
+        assertFalse(outcomes.get(1).uploaded());
+        assertEquals("AccessDenied", outcomes.get(1).errorCode());
+        assertTrue(outcomes.get(2).uploaded());
+    }
+
+    @Test
+    void testEntriesClimbingAbovePrefixAreRejected() throws Exception {
+        // Arrange
+        when(s3Client.putObject(any(PutObjectRequest.class), any(RequestBody.class)))
+                .thenReturn(PutObjectResponse.builder().eTag("ok").build());
+        byte[] zip = zip(Map.of(), "../escape.txt", "a/../../b.txt", "a/./../c.txt");
+
+        // Act
+        List<UploadOutcome> outcomes = bulkUploader.uploadArchive("test-bucket", "in/",
+                new ByteArrayInputStream(zip), ArchiveFormat.ZIP);
+
+        // Assert
+        assertEquals("InvalidName", outcomes.get(0).errorCode());
+        assertEquals("InvalidName", outcomes.get(1).errorCode());
+        assertEquals(new UploadOutcome("in/c.txt", outcomes.get(2).size(), true, "ok", null, null), outcomes.get(2));
+        verify(s3Client).putObject(any(PutObjectRequest.class), any(RequestBody.class));
+    }
+
+    @Test
+    void testArchiveFormatResolvesNamesAndMediaTypes() {
+        assertEquals(ArchiveFormat.ZIP, ArchiveFormat.of("application/zip").orElseThrow());
+        assertEquals(ArchiveFormat.TAR_GZ, ArchiveFormat.of("tgz").orElseThrow());
+        assertTrue(ArchiveFormat.of("text/plain").isEmpty());
+    }
+
+    private static byte[] zip(Map<String, byte[]> extra, String... names) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+            for (Map.Entry<String, byte[]> entry : extra.entrySet()) {
+                zip.putNextEntry(new ZipEntry(entry.getKey()));
+                zip.write(entry.getValue());
+                zip.closeEntry();
+            }
+            for (String name : names) {
+                zip.putNextEntry(new ZipEntry(name));
+                zip.write(("content of " + name).getBytes());
+                zip.closeEntry();
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void addTarEntry(TarArchiveOutputStream tar, String name, byte[] content) throws IOException {
+        TarArchiveEntry entry = new TarArchiveEntry(name);
+        entry.setSize(content.length);
+        tar.putArchiveEntry(entry);
+        tar.write(content);
+        tar.closeArchiveEntry();
+    }
+}
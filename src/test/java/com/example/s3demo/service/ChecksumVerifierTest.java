@@ -0,0 +1,101 @@
+package com.example.s3demo.service;
+
+import com.example.s3demo.model.VerifyOutcome;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.*;
+import software.amazon.awssdk.services.s3.paginators.ListObjectsV2Iterable;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ChecksumVerifierTest {
+
+    // CRC32C check value for "123456789" from RFC 3720.
+    private static final String CHECK_VALUE = "4waSgw==";
+
+    @Mock
+    private S3Client s3Client;
+
+    private ChecksumVerifier verifier;
+
+    @BeforeEach
+    void setUp() {
+        verifier = new ChecksumVerifier(s3Client, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        verifier.shutdown();
+    }
+
+    @Test
+    void testCrc32cMatchesReferenceCheckValue() {
+        // Arrange
+        byte[] data = "123456789".getBytes(StandardCharsets.US_ASCII);
+
+        // Act
+        String checksum = Checksums.checksum(ChecksumAlgorithm.CRC32_C, data, 0, data.length);
+
+        // Assert
+        assertEquals(CHECK_VALUE, checksum);
+    }
+
+    @Test
+    void testVerifyPrefixReportsEachObject() throws Exception {
+        // Arrange
+        Map<String, String> bodies = Map.of("data/good", "123456789", "data/bad", "123456780", "data/plain", "x");
+        ListObjectsV2Iterable pages = mock(ListObjectsV2Iterable.class);
+        when(pages.contents()).thenReturn(() -> bodies.keySet().stream()
+                .map(key -> S3Object.builder().key(key).size(9L).eTag("\"etag\"").build())
+                .iterator());
+        when(s3Client.listObjectsV2Paginator(any(ListObjectsV2Request.class))).thenReturn(pages);
+        when(s3Client.getObjectAttributes(any(GetObjectAttributesRequest.class))).thenAnswer(invocation -> {
+            GetObjectAttributesRequest request = invocation.getArgument(0);
+            GetObjectAttributesResponse.Builder response = GetObjectAttributesResponse.builder()
+                    .eTag("etag")
+                    .objectSize(9L);
+            if (!request.key().equals("data/plain")) {
+                response.checksum(Checksum.builder().checksumCRC32C(CHECK_VALUE).build());
+            }
+            return response.build();
+        });
+        lenient().when(s3Client.getObject(any(GetObjectRequest.class))).thenAnswer(invocation -> {
+            GetObjectRequest request = invocation.getArgument(0);
+            byte[] body = bodies.get(request.key()).getBytes(StandardCharsets.US_ASCII);
+            return new ResponseInputStream<>(GetObjectResponse.builder().build(),
+                    AbortableInputStream.create(new ByteArrayInputStream(body)));
+        });
+        List<VerifyOutcome> outcomes = new ArrayList<>();
+
+        // Act
+        verifier.verifyPrefix("test-bucket", "data/", outcomes::addAll);
+
+        // Assert
+        outcomes.sort(Comparator.comparing(VerifyOutcome::key));
+        assertEquals(3, outcomes.size());
+        assertFalse(outcomes.get(0).verified());
+        assertEquals("ChecksumMismatchException", outcomes.get(0).errorCode());
+        assertTrue(outcomes.get(1).verified());
+        assertEquals("CRC32C", outcomes.get(1).algorithm());
+        assertFalse(outcomes.get(2).verified());
+        assertEquals("NoStoredChecksum", outcomes.get(2).errorCode());
+        verify(s3Client, times(2)).getObject(any(GetObjectRequest.class));
+    }
+}
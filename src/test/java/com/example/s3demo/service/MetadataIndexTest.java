@@ -0,0 +1,200 @@
+package com.example.s3demo.service;
+
+import com.example.s3demo.model.ObjectPage;
+import com.example.s3demo.model.ObjectSummary;
+import com.example.s3demo.model.ObjectVersionSummary;
+import com.example.s3demo.model.VersionPage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.util.unit.DataSize;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.*;
+import software.amazon.awssdk.services.s3.paginators.ListObjectsV2Iterable;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class MetadataIndexTest {
+
+    @Mock
+    private S3Client s3Client;
+
+    @TempDir
+    private Path directory;
+
+    private ObjectLister lister;
+
+    private MetadataIndex index(String snapshot) {
+        RequestCoalescer requestCoalescer = new RequestCoalescer(s3Client, new SimpleMeterRegistry(), true, DataSize.ofMegabytes(8));
+        lister = new ObjectLister(s3Client, requestCoalescer, 1000, 2);
+        return new MetadataIndex(s3Client, requestCoalescer, lister, new SimpleMeterRegistry(), true, 100, 100, snapshot);
+    }
+
+    @AfterEach
+    void tearDown() {
+        lister.shutdown();
+    }
+
+    private void bucketContains(String... keys) {
+        when(s3Client.listObjectsV2Paginator(any(ListObjectsV2Request.class)))
+                .thenAnswer(invocation -> new ListObjectsV2Iterable(s3Client, invocation.getArgument(0)));
+        when(s3Client.listObjectsV2(any(ListObjectsV2Request.class))).thenReturn(ListObjectsV2Response.builder()
+                .contents(Arrays.stream(keys)
+                        .map(key -> S3Object.builder().key(key).size(10L).eTag("\"" + key + "\"").build())
+                        .toList())
+                .isTruncated(false)
+                .build());
+    }
+
+    @Test
+    void testCoveredPrefixIsServedWithoutS3() throws Exception {
+        // Arrange
+        MetadataIndex index = index("");
+        bucketContains("logs/2024/a.txt", "logs/2024/b.txt", "logs/c.txt", "logs/d.txt");
+        index.load("test-bucket", "logs/", false, page -> {
+        });
+        clearInvocations(s3Client);
+
+        // Act
+        ObjectPage first = index.page("test-bucket", "logs/", "/", 2, null).orElseThrow();
+        ObjectPage second = index.page("test-bucket", "logs/", "/", 2, first.nextContinuationToken()).orElseThrow();
+        Optional<ObjectSummary> present = index.lookup("test-bucket", "logs/c.txt");
+        Optional<ObjectSummary> absent = index.lookup("test-bucket", "logs/missing.txt");
+
+        // Assert
+        assertEquals(List.of("logs/2024/"), first.commonPrefixes());
+        assertEquals("logs/c.txt", first.objects().get(0).key());
+        assertTrue(first.truncated());
+        assertEquals("logs/d.txt", second.objects().get(0).key());
+        assertFalse(second.truncated());
+        assertEquals("\"logs/c.txt\"", present.orElseThrow().eTag());
+        assertTrue(absent.isEmpty());
+        verifyNoInteractions(s3Client);
+        assertTrue(index.page("test-bucket", "other/", null, null, null).isEmpty());
+    }
+
+    @Test
+    void testWritesAndDeletesAreReflected() throws Exception {
+        // Arrange
+        MetadataIndex index = index("");
+        bucketContains("a.txt", "b.txt");
+        index.load("test-bucket", "", false, page -> {
+        });
+        when(s3Client.headObject(any(HeadObjectRequest.class)))
+                .thenReturn(HeadObjectResponse.builder().contentLength(99L).eTag("\"new\"").build());
+
+        // Act
+        index.invalidate("test-bucket", "a.txt");
+        index.invalidate("test-bucket", "c.txt");
+        index.removed("test-bucket", "b.txt");
+        List<String> keys = new ArrayList<>();
+        index.stream("test-bucket", "", page -> page.forEach(object -> keys.add(object.key())));
+
+        // Assert
+        assertEquals(List.of("a.txt", "c.txt"), keys);
+        assertEquals(99L, index.lookup("test-bucket", "a.txt").orElseThrow().size());
+        assertTrue(index.lookup("test-bucket", "b.txt").isEmpty());
+        verify(s3Client, times(2)).headObject(any(HeadObjectRequest.class));
+    }
+
+    @Test
+    void testReconcileDropsKeysDeletedElsewhereAndSnapshotSurvivesRestart() throws Exception {
+        // Arrange
+        String snapshot = directory.resolve("index.ndjson").toString();
+        MetadataIndex index = index(snapshot);
+        bucketContains("a.txt", "b.txt");
+        index.load("test-bucket", "", false, page -> {
+        });
+        bucketContains("b.txt");
+
+        // Act
+        index.reconcile();
+        lister.shutdown();
+        MetadataIndex restarted = index(snapshot);
+        clearInvocations(s3Client);
+
+        // Assert
+        assertTrue(restarted.lookup("test-bucket", "a.txt").isEmpty());
+        assertEquals("\"b.txt\"", restarted.lookup("test-bucket", "b.txt").orElseThrow().eTag());
+        verifyNoInteractions(s3Client);
+    }
+
+    @Test
+    void testZeroMaxKeysIsAnEmptyUntruncatedPage() throws Exception {
+        // Arrange
+        MetadataIndex index = index("");
+        bucketContains("a.txt", "b.txt");
+        index.load("test-bucket", "", false, page -> {
+        });
+
+        // Act
+        ObjectPage page = index.page("test-bucket", "", null, 0, null).orElseThrow();
+
+        // Assert
+        assertTrue(page.objects().isEmpty());
+        assertTrue(page.commonPrefixes().isEmpty());
+        assertFalse(page.truncated());
+        assertNull(page.nextContinuationToken());
+    }
+
+    @Test
+    void testVersionQueriesAreCachedUntilAWrite() throws Exception {
+        // Arrange
+        MetadataIndex index = index("");
+        when(s3Client.listObjectVersions(any(ListObjectVersionsRequest.class))).thenReturn(
+                ListObjectVersionsResponse.builder()
+                        .versions(ObjectVersion.builder().key("a.txt").versionId("v1").isLatest(true).build())
+                        .isTruncated(false)
+                        .build());
+
+        // Act
+        index.versions("test-bucket", "a.txt", null, null, null);
+        index.versions("test-bucket", "a.txt", null, null, null);
+        index.invalidate("test-bucket", "a.txt");
+        String versionId = index.versions("test-bucket", "a.txt", null, null, null).versions().get(0).versionId();
+
+        // Assert
+        assertEquals("v1", versionId);
+        verify(s3Client, times(2)).listObjectVersions(any(ListObjectVersionsRequest.class));
+    }
+
+    @Test
+    void testVersionsArePagedWithMarkers() throws Exception {
+        // Arrange
+        MetadataIndex index = index("");
+        when(s3Client.listObjectVersions(any(ListObjectVersionsRequest.class))).thenReturn(
+                ListObjectVersionsResponse.builder()
+                        .versions(ObjectVersion.builder().key("a.txt").versionId("v2").build())
+                        .isTruncated(true)
+                        .nextKeyMarker("a.txt")
+                        .nextVersionIdMarker("v2")
+                        .build());
+
+        // Act
+        VersionPage page = index.versions("test-bucket", "a", 1, "a.txt", "v3");
+
+        // Assert
+        ArgumentCaptor<ListObjectVersionsRequest> request = ArgumentCaptor.forClass(ListObjectVersionsRequest.class);
+        verify(s3Client).listObjectVersions(request.capture());
+        assertEquals(1, request.getValue().maxKeys());
+        assertEquals("a.txt", request.getValue().keyMarker());
+        assertEquals("v3", request.getValue().versionIdMarker());
+        assertTrue(page.truncated());
+        assertEquals("v2", page.nextVersionIdMarker());
+        assertEquals(List.of("v2"), page.versions().stream().map(ObjectVersionSummary::versionId).toList());
+    }
+}
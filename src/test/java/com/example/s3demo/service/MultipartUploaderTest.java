@@ -0,0 +1,154 @@
+package com.example.s3demo.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.util.unit.DataSize;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class MultipartUploaderTest {
+
+    private static final int PART_SIZE = 5 * 1024 * 1024;
+
+    @Mock
+    private S3Client s3Client;
+
+    private MultipartUploader uploader;
+
+    @BeforeEach
+    void setUp() {
+        uploader = new MultipartUploader(s3Client, new SimpleMeterRegistry(), DataSize.ofBytes(PART_SIZE), 3, 3, "crc32c");
+        when(s3Client.createMultipartUpload(any(CreateMultipartUploadRequest.class)))
+                .thenReturn(CreateMultipartUploadResponse.builder().uploadId("upload-1").build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        uploader.shutdown();
+    }
+
+    @Test
+    void testUploadCompletesWithOrderedParts() throws Exception {
+        // Arrange
+        byte[] content = new byte[PART_SIZE * 2 + 123];
+        when(s3Client.uploadPart(any(UploadPartRequest.class), any(RequestBody.class)))
+                .thenAnswer(invocation -> {
+                    UploadPartRequest request = invocation.getArgument(0);
+                    return UploadPartResponse.builder().eTag("etag-" + request.partNumber()).build();
+                });
+
+        // Act
+        uploader.upload("test-bucket", "big-key", "application/octet-stream",
+                new ByteArrayInputStream(content), content.length);
+
+        // Assert
+        ArgumentCaptor<CompleteMultipartUploadRequest> captor =
+                ArgumentCaptor.forClass(CompleteMultipartUploadRequest.class);
+        verify(s3Client).completeMultipartUpload(captor.capture());
+        List<CompletedPart> parts = captor.getValue().multipartUpload().parts();
+        assertEquals(3, parts.size());
+        for (int i = 0; i < parts.size(); i++) {
+            assertEquals(i + 1, parts.get(i).partNumber());
+            assertEquals("etag-" + (i + 1), parts.get(i).eTag());
+        }
+        verify(s3Client, never()).abortMultipartUpload(any(AbortMultipartUploadRequest.class));
+    }
+
+    @Test
+    void testPartsCarryCrc32cChecksums() throws Exception {
+        // Arrange
+        byte[] content = new byte[PART_SIZE + 99];
+        new Random(7).nextBytes(content);
+        when(s3Client.uploadPart(any(UploadPartRequest.class), any(RequestBody.class)))
+                .thenAnswer(invocation -> {
+                    UploadPartRequest request = invocation.getArgument(0);
+                    return UploadPartResponse.builder().eTag("etag-" + request.partNumber()).build();
+                });
+
+        // Act
+        uploader.upload("test-bucket", "big-key", null, new ByteArrayInputStream(content), content.length);
+
+        // Assert
+        ArgumentCaptor<CreateMultipartUploadRequest> create = ArgumentCaptor.forClass(CreateMultipartUploadRequest.class);
+        verify(s3Client).createMultipartUpload(create.capture());
+        assertEquals(ChecksumAlgorithm.CRC32_C, create.getValue().checksumAlgorithm());
+        ArgumentCaptor<UploadPartRequest> uploads = ArgumentCaptor.forClass(UploadPartRequest.class);
+        verify(s3Client, times(2)).uploadPart(uploads.capture(), any(RequestBody.class));
+        ArgumentCaptor<CompleteMultipartUploadRequest> complete =
+                ArgumentCaptor.forClass(CompleteMultipartUploadRequest.class);
+        verify(s3Client).completeMultipartUpload(complete.capture());
+        List<CompletedPart> parts = complete.getValue().multipartUpload().parts();
+        String first = Checksums.checksum(ChecksumAlgorithm.CRC32_C, content, 0, PART_SIZE);
+        String second = Checksums.checksum(ChecksumAlgorithm.CRC32_C, content, PART_SIZE, 99);
+        assertEquals(first, parts.get(0).checksumCRC32C());
+        assertEquals(second, parts.get(1).checksumCRC32C());
+        for (UploadPartRequest upload : uploads.getAllValues()) {
+            assertEquals(upload.partNumber() == 1 ? first : second, upload.checksumCRC32C());
+        }
+    }
+
+    @Test
+    void testUploadAbortsWhenPartFails() {
+        // Arrange
+        byte[] content = new byte[PART_SIZE + 1];
+        when(s3Client.uploadPart(any(UploadPartRequest.class), any(RequestBody.class)))
+                .thenThrow(S3Exception.builder().message("boom").build());
+
+        // Act & Assert
+        assertThrows(S3Exception.class, () -> uploader.upload("test-bucket", "big-key", null,
+                new ByteArrayInputStream(content), content.length));
+        verify(s3Client).abortMultipartUpload(any(AbortMultipartUploadRequest.class));
+        verify(s3Client, never()).completeMultipartUpload(any(CompleteMultipartUploadRequest.class));
+    }
+    @Test
+    void testFailedPartStopsReadingTheSource() {
+        // Arrange
+        long length = PART_SIZE * 40L;
+        AtomicLong read = new AtomicLong();
+        InputStream source = new InputStream() {
+            @Override
+            public int read() {
+                return read(new byte[1], 0, 1) < 0 ? -1 : 0;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) {
+                int n = (int) Math.min(len, length - read.get());
+                if (n <= 0) {
+                    return -1;
+                }
+                read.addAndGet(n);
+                return n;
+            }
+        };
+        when(s3Client.uploadPart(any(UploadPartRequest.class), any(RequestBody.class)))
+                .thenThrow(S3Exception.builder().message("boom").build());
+
+        // Act
+        assertThrows(S3Exception.class, () -> uploader.upload("test-bucket", "big-key", null, source, length));
+
+        // Assert
+        assertTrue(read.get() < length / 2, "read " + read.get() + " of " + length + " bytes");
+        verify(s3Client).abortMultipartUpload(any(AbortMultipartUploadRequest.class));
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.s3demo.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.util.unit.DataSize;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.ChecksumAlgorithm;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ObjectCacheTest {
+
+    @Mock
+    private S3Client s3Client;
+
+    @TempDir
+    private Path cacheDir;
+
+    private ObjectCache cache(Duration ttl) {
+        return new ObjectCache(new RequestCoalescer(s3Client, new SimpleMeterRegistry(), false, DataSize.ofMegabytes(8)),
+                new SimpleMeterRegistry(), true, ttl, DataSize.ofKilobytes(64),
+                DataSize.ofBytes(16), DataSize.ofMegabytes(1), DataSize.ofKilobytes(64), cacheDir);
+    }
+
+    private static ResponseInputStream<GetObjectResponse> object(byte[] content, String eTag) {
+        return new ResponseInputStream<>(
+                GetObjectResponse.builder().contentLength((long) content.length).eTag(eTag).build(),
+                AbortableInputStream.create(new ByteArrayInputStream(content)));
+    }
+
+    private static byte[] read(ResponseInputStream<GetObjectResponse> in) throws Exception {
+        try (InputStream stream = in) {
+            return stream.readAllBytes();
+        }
+    }
+
+    @Test
+    void testSecondReadIsServedFromHeapTier() throws Exception {
+        // Arrange
+        ObjectCache cache = cache(Duration.ofMinutes(5));
+        byte[] content = "small".getBytes();
+        when(s3Client.getObject(any(GetObjectRequest.class))).thenReturn(object(content, "\"e1\""));
+
+        // Act
+        byte[] first = read(cache.open("test-bucket", "k"));
+        byte[] second = read(cache.open("test-bucket", "k"));
+
+        // Assert
+        assertArrayEquals(content, first);
+        assertArrayEquals(content, second);
+        verify(s3Client, times(1)).getObject(any(GetObjectRequest.class));
+    }
+
+    @Test
+    void testLargerObjectsAreServedFromDiskTier() throws Exception {
+        // Arrange
+        ObjectCache cache = cache(Duration.ofMinutes(5));
+        byte[] content = new byte[4096];
+        content[4095] = 7;
+        when(s3Client.getObject(any(GetObjectRequest.class))).thenReturn(object(content, "\"e1\""));
+
+        // Act
+        read(cache.open("test-bucket", "big"));
+        byte[] cached = read(cache.open("test-bucket", "big"));
+
+        // Assert
+        assertArrayEquals(content, cached);
+        verify(s3Client, times(1)).getObject(any(GetObjectRequest.class));
+    }
+
+    @Test
+    void testStaleEntryIsRevalidatedWithETag() throws Exception {
+        // Arrange
+        ObjectCache cache = cache(Duration.ZERO);
+        byte[] content = "small".getBytes();
+        when(s3Client.getObject(any(GetObjectRequest.class)))
+                .thenReturn(object(content, "\"e1\""))
+                .thenThrow(S3Exception.builder().statusCode(304).build());
+
+        // Act
+        read(cache.open("test-bucket", "k"));
+        byte[] revalidated = read(cache.open("test-bucket", "k"));
+
+        // Assert
+        assertArrayEquals(content, revalidated);
+        verify(s3Client).getObject(Checksums.withChecksumMode(
+                GetObjectRequest.builder().bucket("test-bucket").key("k").ifNoneMatch("\"e1\"").build()));
+    }
+
+    @Test
+    void testInvalidateForcesRefetch() throws Exception {
+        // Arrange
+        ObjectCache cache = cache(Duration.ofMinutes(5));
+        when(s3Client.getObject(any(GetObjectRequest.class)))
+                .thenReturn(object("old".getBytes(), "\"e1\""))
+                .thenReturn(object("new".getBytes(), "\"e2\""));
+
+        // Act
+        read(cache.open("test-bucket", "k"));
+        cache.invalidate("test-bucket", "k");
+        byte[] refreshed = read(cache.open("test-bucket", "k"));
+
+        // Assert
+        assertEquals("new", new String(refreshed));
+        verify(s3Client, times(2)).getObject(any(GetObjectRequest.class));
+    }
+
+    @Test
+    void testCorruptBodyFailsTheReadAndIsNotCached() throws Exception {
+        // Arrange
+        ObjectCache cache = cache(Duration.ofMinutes(5));
+        byte[] content = "small".getBytes();
+        String stored = Checksums.checksum(ChecksumAlgorithm.CRC32_C, "smalL".getBytes(), 0, content.length);
+        when(s3Client.getObject(any(GetObjectRequest.class))).thenAnswer(invocation -> new ResponseInputStream<>(
+                GetObjectResponse.builder().contentLength((long) content.length).eTag("\"e1\"")
+                        .checksumCRC32C(stored).build(),
+                AbortableInputStream.create(new ByteArrayInputStream(content))));
+
+        // Act / Assert
+        assertThrows(ChecksumMismatchException.class, () -> read(cache.open("test-bucket", "k")));
+        assertThrows(ChecksumMismatchException.class, () -> read(cache.open("test-bucket", "k")));
+        ArgumentCaptor<GetObjectRequest> request = ArgumentCaptor.forClass(GetObjectRequest.class);
+        verify(s3Client, times(2)).getObject(request.capture());
+        assertEquals(List.of("ENABLED"),
+                request.getValue().overrideConfiguration().orElseThrow().headers().get("x-amz-checksum-mode"));
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.s3demo.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.util.unit.DataSize;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.ChecksumAlgorithm;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ObjectCompressorTest {
+
+    @Mock
+    private S3Client s3Client;
+
+    @Mock
+    private MultipartUploader multipartUploader;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    private ObjectCompressor compressor(String codec, int singlePutLimit) {
+        return new ObjectCompressor(s3Client, multipartUploader, meterRegistry, true, codec, DataSize.ofKilobytes(1),
+                List.of("text/*", "application/json"), DataSize.ofBytes(singlePutLimit));
+    }
+
+    @Test
+    void testCodecChosenByContentTypeAndSize() {
+        // Arrange
+        ObjectCompressor compressor = compressor("zstd", 1024 * 1024);
+
+        // Act & Assert
+        assertEquals(Optional.of(CompressionCodec.ZSTD), compressor.codecFor("application/json; charset=UTF-8", 4096));
+        assertEquals(Optional.of(CompressionCodec.ZSTD), compressor.codecFor("text/csv", 4096));
+        assertEquals(Optional.empty(), compressor.codecFor("image/png", 4096));
+        assertEquals(Optional.empty(), compressor.codecFor("text/plain", 100));
+        assertEquals(Optional.empty(), compressor.codecFor("not a type", 4096));
+    }
+
+    @Test
+    void testSmallSourceIsStoredWithSinglePut() throws IOException {
+        // Arrange
+        ObjectCompressor compressor = compressor("gzip", 1024 * 1024);
+        byte[] content = "{\"id\":1,\"name\":\"row\"}\n".repeat(2000).getBytes(StandardCharsets.UTF_8);
+        when(s3Client.putObject(any(PutObjectRequest.class), any(RequestBody.class)))
+                .thenReturn(PutObjectResponse.builder().eTag("\"e\"").build());
+        when(multipartUploader.checksumAlgorithm()).thenReturn(Optional.of(ChecksumAlgorithm.CRC32_C));
+
+        // Act
+        compressor.upload("test-bucket", "rows.json", "application/json", new ByteArrayInputStream(content),
+                content.length, CompressionCodec.GZIP);
+
+        // Assert
+        ArgumentCaptor<PutObjectRequest> request = ArgumentCaptor.forClass(PutObjectRequest.class);
+        ArgumentCaptor<RequestBody> body = ArgumentCaptor.forClass(RequestBody.class);
+        verify(s3Client).putObject(request.capture(), body.capture());
+        assertEquals("gzip", request.getValue().contentEncoding());
+        assertEquals(ChecksumAlgorithm.CRC32_C, request.getValue().checksumAlgorithm());
+        assertEquals(Map.of("codec", "gzip", "uncompressed-length", Long.toString(content.length)),
+                request.getValue().metadata());
+        long stored = body.getValue().optionalContentLength().orElseThrow();
+        assertTrue(stored < content.length / 10);
+        assertArrayEquals(content, decode(CompressionCodec.GZIP, body.getValue().contentStreamProvider().newStream()));
+        verifyNoMoreInteractions(multipartUploader);
+        assertEquals(content.length, meterRegistry.get("s3.compression.bytes")
+                .tags("operation", "compress", "form", "uncompressed").counter().count());
+        assertEquals(stored, meterRegistry.get("s3.compression.bytes")
+                .tags("operation", "compress", "form", "compressed").counter().count());
+    }
+
+    @Test
+    void testLargeSourceStreamsThroughMultipartUpload() throws IOException {
+        // Arrange
+        ObjectCompressor compressor = compressor("zstd", 4096);
+        byte[] content = new byte[64 * 1024];
+        new Random(7).nextBytes(content);
+        ByteArrayOutputStream uploaded = new ByteArrayOutputStream();
+        when(multipartUploader.upload(eq("test-bucket"), eq("blob.txt"), eq("text/plain"), eq("zstd"), anyMap(),
+                any(InputStream.class), eq((long) content.length))).thenAnswer(invocation -> {
+                    invocation.getArgument(5, InputStream.class).transferTo(uploaded);
+                    return "upload-1";
+                });
+
+        // Act
+        compressor.upload("test-bucket", "blob.txt", "text/plain", new ByteArrayInputStream(content), content.length,
+                CompressionCodec.ZSTD);
+
+        // Assert
+        verify(s3Client, never()).putObject(any(PutObjectRequest.class), any(RequestBody.class));
+        assertArrayEquals(content, decode(CompressionCodec.ZSTD, new ByteArrayInputStream(uploaded.toByteArray())));
+    }
+
+    @Test
+    void testDecompressRecordsCodecMetrics() throws IOException {
+        // Arrange
+        ObjectCompressor compressor = compressor("gzip", 1024 * 1024);
+        byte[] content = "hello hello hello hello".getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+        try (var out = CompressionCodec.GZIP.encoder(encoded)) {
+            out.write(content);
+        }
+
+        // Act
+        byte[] decoded;
+        try (InputStream in = compressor.decompress(new ByteArrayInputStream(encoded.toByteArray()),
+                CompressionCodec.GZIP)) {
+            decoded = in.readAllBytes();
+        }
+
+        // Assert
+        assertArrayEquals(content, decoded);
+        assertEquals(content.length, meterRegistry.get("s3.compression.bytes")
+                .tags("operation", "decompress", "form", "uncompressed").counter().count());
+        assertEquals(1, meterRegistry.get("s3.compression.cpu").tags("operation", "decompress").timer().count());
+    }
+
+    @Test
+    void testAcceptEncodingParsing() {
+        // Act & Assert
+        assertTrue(CompressionCodec.GZIP.isAcceptedBy("gzip, deflate, br"));
+        assertTrue(CompressionCodec.ZSTD.isAcceptedBy("br;q=1.0, *;q=0.5"));
+        assertFalse(CompressionCodec.GZIP.isAcceptedBy("gzip;q=0, *"));
+        assertFalse(CompressionCodec.ZSTD.isAcceptedBy("gzip, deflate"));
+        assertFalse(CompressionCodec.GZIP.isAcceptedBy(null));
+        assertEquals(Optional.of(CompressionCodec.ZSTD), CompressionCodec.of(" ZSTD "));
+    }
+
+    private static byte[] decode(CompressionCodec codec, InputStream in) throws IOException {
+        try (InputStream decoder = codec.decoder(in)) {
+            return decoder.readAllBytes();
+        }
+    }
+}
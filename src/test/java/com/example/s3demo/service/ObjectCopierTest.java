@@ -0,0 +1,164 @@
+package com.example.s3demo.service;
+
+import com.example.s3demo.model.CopyOutcome;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.util.unit.DataSize;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.*;
+import software.amazon.awssdk.services.s3.paginators.ListObjectsV2Iterable;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ObjectCopierTest {
+
+    private static final long PART_SIZE = 5L * 1024 * 1024;
+
+    @Mock
+    private S3Client s3Client;
+
+    private ObjectCopier copier;
+
+    @BeforeEach
+    void setUp() {
+        copier = new ObjectCopier(s3Client, DataSize.ofMegabytes(12), DataSize.ofBytes(PART_SIZE), 2, 2, 3);
+    }
+
+    @AfterEach
+    void tearDown() {
+        copier.shutdown();
+    }
+
+    @Test
+    void testSmallObjectUsesSingleConditionalCopy() throws Exception {
+        // Arrange
+        when(s3Client.headObject(any(HeadObjectRequest.class)))
+                .thenReturn(HeadObjectResponse.builder().contentLength(1024L).eTag("\"src\"").build());
+        when(s3Client.copyObject(any(CopyObjectRequest.class))).thenReturn(CopyObjectResponse.builder()
+                .copyObjectResult(CopyObjectResult.builder().eTag("\"dst\"").build()).build());
+
+        // Act
+        String eTag = copier.copy("test-bucket", "a.txt", "other-bucket", "b.txt");
+
+        // Assert
+        assertEquals("\"dst\"", eTag);
+        ArgumentCaptor<CopyObjectRequest> captor = ArgumentCaptor.forClass(CopyObjectRequest.class);
+        verify(s3Client).copyObject(captor.capture());
+        assertEquals("test-bucket", captor.getValue().sourceBucket());
+        assertEquals("b.txt", captor.getValue().destinationKey());
+        assertEquals("\"src\"", captor.getValue().copySourceIfMatch());
+        verify(s3Client, never()).createMultipartUpload(any(CreateMultipartUploadRequest.class));
+    }
+
+    @Test
+    void testLargeObjectIsCopiedInRangedParts() throws Exception {
+        // Arrange
+        long size = PART_SIZE * 2 + PART_SIZE / 2;
+        when(s3Client.headObject(any(HeadObjectRequest.class))).thenReturn(HeadObjectResponse.builder()
+                .contentLength(size).eTag("\"src\"").contentType("video/mp4").metadata(Map.of("owner", "me")).build());
+        when(s3Client.createMultipartUpload(any(CreateMultipartUploadRequest.class)))
+                .thenReturn(CreateMultipartUploadResponse.builder().uploadId("upload-1").build());
+        List<UploadPartCopyRequest> parts = new ArrayList<>();
+        when(s3Client.uploadPartCopy(any(UploadPartCopyRequest.class))).thenAnswer(invocation -> {
+            UploadPartCopyRequest request = invocation.getArgument(0);
+            synchronized (parts) {
+                parts.add(request);
+            }
+            return UploadPartCopyResponse.builder()
+                    .copyPartResult(CopyPartResult.builder().eTag("etag-" + request.partNumber()).build()).build();
+        });
+        when(s3Client.completeMultipartUpload(any(CompleteMultipartUploadRequest.class)))
+                .thenReturn(CompleteMultipartUploadResponse.builder().eTag("\"dst-3\"").build());
+
+        // Act
+        String eTag = copier.copy("test-bucket", "big.mp4", "test-bucket", "copy.mp4");
+
+        // Assert
+        assertEquals("\"dst-3\"", eTag);
+        parts.sort(Comparator.comparing(UploadPartCopyRequest::partNumber));
+        assertEquals(List.of("bytes=0-5242879", "bytes=5242880-10485759", "bytes=10485760-13107199"),
+                parts.stream().map(UploadPartCopyRequest::copySourceRange).toList());
+        assertTrue(parts.stream().allMatch(part -> "\"src\"".equals(part.copySourceIfMatch())));
+        ArgumentCaptor<CreateMultipartUploadRequest> create = ArgumentCaptor.forClass(CreateMultipartUploadRequest.class);
+        verify(s3Client).createMultipartUpload(create.capture());
+        assertEquals("video/mp4", create.getValue().contentType());
+        assertEquals(Map.of("owner", "me"), create.getValue().metadata());
+        ArgumentCaptor<CompleteMultipartUploadRequest> complete =
+                ArgumentCaptor.forClass(CompleteMultipartUploadRequest.class);
+        verify(s3Client).completeMultipartUpload(complete.capture());
+        assertEquals(List.of("etag-1", "etag-2", "etag-3"), complete.getValue().multipartUpload().parts().stream()
+                .map(CompletedPart::eTag).toList());
+        verify(s3Client, never()).copyObject(any(CopyObjectRequest.class));
+    }
+
+    @Test
+    void testFailedPartAbortsMultipartCopy() {
+        // Arrange
+        when(s3Client.headObject(any(HeadObjectRequest.class)))
+                .thenReturn(HeadObjectResponse.builder().contentLength(PART_SIZE * 3).eTag("\"src\"").build());
+        when(s3Client.createMultipartUpload(any(CreateMultipartUploadRequest.class)))
+                .thenReturn(CreateMultipartUploadResponse.builder().uploadId("upload-1").build());
+        when(s3Client.uploadPartCopy(any(UploadPartCopyRequest.class)))
+                .thenThrow(S3Exception.builder().message("PreconditionFailed").statusCode(412).build());
+
+        // Act & Assert
+        assertThrows(S3Exception.class, () -> copier.copy("test-bucket", "big", "test-bucket", "copy"));
+        verify(s3Client).abortMultipartUpload(any(AbortMultipartUploadRequest.class));
+        verify(s3Client, never()).completeMultipartUpload(any(CompleteMultipartUploadRequest.class));
+    }
+
+    @Test
+    void testMovePrefixDeletesOnlyCopiedSources() throws Exception {
+        // Arrange
+        ListObjectsV2Iterable listing = mock(ListObjectsV2Iterable.class);
+        when(listing.contents()).thenReturn(() -> List.of(
+                S3Object.builder().key("logs/a").size(10L).eTag("\"a\"").build(),
+                S3Object.builder().key("logs/b").size(20L).eTag("\"b\"").build()).iterator());
+        when(s3Client.listObjectsV2Paginator(any(ListObjectsV2Request.class))).thenReturn(listing);
+        when(s3Client.copyObject(any(CopyObjectRequest.class))).thenAnswer(invocation -> {
+            CopyObjectRequest request = invocation.getArgument(0);
+            if (request.sourceKey().equals("logs/b")) {
+                throw S3Exception.builder().message("denied").statusCode(403).build();
+            }
+            return CopyObjectResponse.builder()
+                    .copyObjectResult(CopyObjectResult.builder().eTag("\"copy\"").build()).build();
+        });
+        List<CopyOutcome> outcomes = new ArrayList<>();
+
+        // Act
+        copier.copyPrefix("test-bucket", "logs/", "test-bucket", "archive/", true, outcomes::addAll);
+
+        // Assert
+        outcomes.sort(Comparator.comparing(CopyOutcome::sourceKey));
+        assertEquals(2, outcomes.size());
+        assertTrue(outcomes.get(0).copied());
+        assertEquals("archive/a", outcomes.get(0).destinationKey());
+        assertFalse(outcomes.get(1).copied());
+        ArgumentCaptor<DeleteObjectRequest> deleted = ArgumentCaptor.forClass(DeleteObjectRequest.class);
+        verify(s3Client).deleteObject(deleted.capture());
+        assertEquals("logs/a", deleted.getValue().key());
+        verify(s3Client, never()).headObject(any(HeadObjectRequest.class));
+    }
+
+    @Test
+    void testOverlappingPrefixIsRejected() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class,
+                () -> copier.copyPrefix("test-bucket", "logs/", "test-bucket", "logs/old/", false, outcomes -> { }));
+        assertFalse(ObjectCopier.overlaps("test-bucket", "logs/", "other-bucket", "logs/old/"));
+        verifyNoInteractions(s3Client);
+    }
+}
@@ -0,0 +1,178 @@
+package com.example.s3demo.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.util.unit.DataSize;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ParallelDownloaderTest {
+
+    private static final int CHUNK_SIZE = 1024;
+
+    @Mock
+    private S3Client s3Client;
+
+    private ParallelDownloader downloader;
+    private byte[] content;
+
+    @BeforeEach
+    void setUp() {
+        downloader = new ParallelDownloader(s3Client, new SimpleMeterRegistry(), true, DataSize.ofBytes(CHUNK_SIZE), 3,
+                DataSize.ofBytes(2048), 3, true);
+        content = new byte[CHUNK_SIZE * 5 + 17];
+        new Random(42).nextBytes(content);
+    }
+
+    private void stubRangedGets() {
+        when(s3Client.getObject(any(GetObjectRequest.class))).thenAnswer(invocation -> {
+            GetObjectRequest request = invocation.getArgument(0);
+            String[] bounds = request.range().substring("bytes=".length()).split("-");
+            int start = Integer.parseInt(bounds[0]);
+            int end = Integer.parseInt(bounds[1]);
+            return new ResponseInputStream<>(GetObjectResponse.builder().build(),
+                    AbortableInputStream.create(new ByteArrayInputStream(content, start, end - start + 1)));
+        });
+    }
+
+    private void stubAttributes(GetObjectAttributesResponse attributes) {
+        when(s3Client.getObjectAttributes(any(GetObjectAttributesRequest.class))).thenReturn(attributes);
+    }
+
+    private GetObjectAttributesResponse partChecksums(int... partSizes) {
+        List<ObjectPart> parts = new ArrayList<>();
+        int offset = 0;
+        for (int i = 0; i < partSizes.length; i++) {
+            parts.add(ObjectPart.builder()
+                    .partNumber(i + 1)
+                    .size((long) partSizes[i])
+                    .checksumCRC32C(Checksums.checksum(ChecksumAlgorithm.CRC32_C, content, offset, partSizes[i]))
+                    .build());
+            offset += partSizes[i];
+        }
+        return GetObjectAttributesResponse.builder()
+                .eTag("etag")
+                .objectSize((long) content.length)
+                .objectParts(GetObjectAttributesParts.builder()
+                        .totalPartsCount(parts.size())
+                        .isTruncated(false)
+                        .parts(parts)
+                        .build())
+                .build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        downloader.shutdown();
+    }
+
+    @Test
+    void testDownloadToReassemblesChunksInOrder() throws Exception {
+        // Arrange
+        stubRangedGets();
+        stubAttributes(GetObjectAttributesResponse.builder().eTag("etag").objectSize((long) content.length).build());
+        HeadObjectResponse head = HeadObjectResponse.builder()
+                .contentLength((long) content.length)
+                .eTag("\"etag\"")
+                .build();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        downloader.downloadTo("test-bucket", "big-key", head.contentLength(), head.eTag(), out);
+
+        // Assert
+        assertArrayEquals(content, out.toByteArray());
+        verify(s3Client, times(6)).getObject(any(GetObjectRequest.class));
+    }
+
+    @Test
+    void testDownloadToFollowsPartBoundariesAndVerifiesEachPart() throws Exception {
+        // Arrange
+        stubRangedGets();
+        stubAttributes(partChecksums(1024, 1024, 1024, 1024, 1024, content.length - 5120));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        downloader.downloadTo("test-bucket", "big-key", content.length, "\"etag\"", out);
+
+        // Assert
+        assertArrayEquals(content, out.toByteArray());
+        verify(s3Client).getObject(argThat((GetObjectRequest request) -> "bytes=2048-3071".equals(request.range())));
+        verify(s3Client, times(6)).getObject(any(GetObjectRequest.class));
+    }
+
+    @Test
+    void testDownloadToChecksPartsLargerThanAChunkInOrder() {
+        // Arrange
+        stubRangedGets();
+        GetObjectAttributesResponse attributes = partChecksums(2048, 2048, content.length - 4096);
+        content[3000] ^= 1;
+        stubAttributes(attributes);
+
+        // Act
+        ChecksumMismatchException e = assertThrows(ChecksumMismatchException.class,
+                () -> downloader.downloadTo("test-bucket", "big-key", content.length, "\"etag\"",
+                        new ByteArrayOutputStream()));
+
+        // Assert
+        assertEquals(2, e.partNumber());
+        verify(s3Client, never()).getObject(argThat((GetObjectRequest request) -> "bytes=2048-4095".equals(request.range())));
+    }
+
+    @Test
+    void testDownloadToFailsOnCorruptPart() {
+        // Arrange
+        stubRangedGets();
+        GetObjectAttributesResponse attributes = partChecksums(1024, 1024, 1024, 1024, 1024, content.length - 5120);
+        content[3000] ^= 1;
+        stubAttributes(attributes);
+
+        // Act
+        ChecksumMismatchException e = assertThrows(ChecksumMismatchException.class,
+                () -> downloader.downloadTo("test-bucket", "big-key", content.length, "\"etag\"",
+                        new ByteArrayOutputStream()));
+
+        // Assert
+        assertEquals(3, e.partNumber());
+    }
+
+    @Test
+    void testDownloadToFailsOnWholeObjectChecksumMismatch() {
+        // Arrange
+        stubRangedGets();
+        stubAttributes(GetObjectAttributesResponse.builder()
+                .eTag("etag")
+                .objectSize((long) content.length)
+                .checksum(Checksum.builder().checksumCRC32C("AAAAAA==").build())
+                .build());
+
+        // Act / Assert
+        assertThrows(ChecksumMismatchException.class,
+                () -> downloader.downloadTo("test-bucket", "big-key", content.length, "\"etag\"",
+                        new ByteArrayOutputStream()));
+    }
+
+    @Test
+    void testThresholdGatesParallelPath() {
+        assertFalse(downloader.shouldParallelize(1000));
+        assertTrue(downloader.shouldParallelize(content.length));
+    }
+}
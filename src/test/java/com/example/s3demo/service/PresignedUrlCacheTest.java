@@ -0,0 +1,89 @@
+package com.example.s3demo.service;
+
+import com.example.s3demo.model.PresignedUrl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
+import software.amazon.awssdk.services.s3.presigner.model.PutObjectPresignRequest;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class PresignedUrlCacheTest {
+
+    private S3Presigner s3Presigner;
+
+    @BeforeEach
+    void setUp() {
+        s3Presigner = spy(S3Presigner.builder()
+                .region(Region.US_EAST_1)
+                .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create("key", "secret")))
+                .build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        s3Presigner.close();
+    }
+
+    @Test
+    void testHotKeyIsSignedOnce() {
+        // Arrange
+        PresignedUrlCache cache = new PresignedUrlCache(s3Presigner, new SimpleMeterRegistry(),
+                Duration.ofMinutes(15), true, Duration.ofMinutes(2), 100);
+
+        // Act
+        PresignedUrl first = cache.presignGet("test-bucket", "hot-key", null);
+        PresignedUrl second = cache.presignGet("test-bucket", "hot-key", null);
+        PresignedUrl version = cache.presignGet("test-bucket", "hot-key", "v1");
+        PresignedUrl upload = cache.presignPut("test-bucket", "hot-key", null);
+
+        // Assert
+        assertSame(first, second);
+        assertNotEquals(first.url(), version.url());
+        assertTrue(version.url().contains("versionId=v1"));
+        assertEquals("PUT", upload.method());
+        verify(s3Presigner, times(2)).presignGetObject(any(GetObjectPresignRequest.class));
+        verify(s3Presigner, times(1)).presignPutObject(any(PutObjectPresignRequest.class));
+        assertTrue(first.url().contains("X-Amz-Expires=900"));
+        assertTrue(first.expiresAt().isAfter(Instant.now().plus(Duration.ofMinutes(14))));
+    }
+
+    @Test
+    void testDisabledCacheSignsEveryCall() {
+        // Arrange
+        PresignedUrlCache cache = new PresignedUrlCache(s3Presigner, new SimpleMeterRegistry(),
+                Duration.ofMinutes(10), false, Duration.ofMinutes(2), 100);
+
+        // Act
+        cache.presignGet("test-bucket", "key", null);
+        cache.presignGet("test-bucket", "key", null);
+
+        // Assert
+        verify(s3Presigner, times(2)).presignGetObject(any(GetObjectPresignRequest.class));
+    }
+
+    @Test
+    void testMarginAtLeastExpiryDisablesReuse() {
+        // Arrange
+        PresignedUrlCache cache = new PresignedUrlCache(s3Presigner, new SimpleMeterRegistry(),
+                Duration.ofMinutes(1), true, Duration.ofMinutes(1), 100);
+
+        // Act
+        cache.presignPut("test-bucket", "key", "text/plain");
+        cache.presignPut("test-bucket", "key", "text/plain");
+
+        // Assert
+        verify(s3Presigner, times(2)).presignPutObject(any(PutObjectPresignRequest.class));
+    }
+}
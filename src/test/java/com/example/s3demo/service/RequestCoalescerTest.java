@@ -0,0 +1,211 @@
+package com.example.s3demo.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.util.unit.DataSize;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class RequestCoalescerTest {
+
+    @Mock
+    private S3Client s3Client;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private RequestCoalescer coalescer(DataSize maxBuffer) {
+        return new RequestCoalescer(s3Client, meterRegistry, true, maxBuffer);
+    }
+
+    private static byte[] content(int size) {
+        byte[] content = new byte[size];
+        for (int i = 0; i < size; i++) {
+            content[i] = (byte) (i * 31);
+        }
+        return content;
+    }
+
+    private void serve(byte[] content) {
+        when(s3Client.getObject(any(GetObjectRequest.class))).thenAnswer(invocation -> {
+            GetObjectRequest request = invocation.getArgument(0);
+            int first = request.range() == null ? 0
+                    : Integer.parseInt(request.range().substring("bytes=".length(), request.range().indexOf('-')));
+            return new ResponseInputStream<>(GetObjectResponse.builder().eTag("\"v1\"").build(),
+                    AbortableInputStream.create(new ByteArrayInputStream(content, first, content.length - first)));
+        });
+    }
+
+    @Test
+    void testConcurrentGetsShareOneCall() throws Exception {
+        // Arrange
+        RequestCoalescer coalescer = coalescer(DataSize.ofMegabytes(8));
+        byte[] content = content(200_000);
+        serve(content);
+        GetObjectRequest request = GetObjectRequest.builder().bucket("bucket").key("key").build();
+
+        // Act
+        byte[] first;
+        byte[] second;
+        try (InputStream a = coalescer.getObject(request);
+             InputStream b = coalescer.getObject(GetObjectRequest.builder().bucket("bucket").key("key").build())) {
+            second = b.readAllBytes();
+            first = a.readAllBytes();
+        }
+
+        // Assert
+        assertArrayEquals(content, first);
+        assertArrayEquals(content, second);
+        verify(s3Client, times(1)).getObject(any(GetObjectRequest.class));
+        assertEquals(1.0, meterRegistry.counter("s3.coalesce.joined", "operation", "GetObject").count());
+    }
+
+    @Test
+    void testSlowSubscriberFallsBackToRangedGet() throws Exception {
+        // Arrange
+        RequestCoalescer coalescer = coalescer(DataSize.ofKilobytes(64));
+        byte[] content = content(512 * 1024);
+        serve(content);
+        GetObjectRequest request = GetObjectRequest.builder().bucket("bucket").key("key").build();
+
+        // Act
+        byte[] fast;
+        byte[] slow;
+        try (InputStream a = coalescer.getObject(request); InputStream b = coalescer.getObject(request)) {
+            byte[] head = b.readNBytes(1000);
+            fast = a.readAllBytes();
+            byte[] rest = b.readAllBytes();
+            slow = Arrays.copyOf(head, head.length + rest.length);
+            System.arraycopy(rest, 0, slow, head.length, rest.length);
+        }
+
+        // Assert
+        assertArrayEquals(content, fast);
+        assertArrayEquals(content, slow);
+        ArgumentCaptor<GetObjectRequest> requestCaptor = ArgumentCaptor.forClass(GetObjectRequest.class);
+        verify(s3Client, times(2)).getObject(requestCaptor.capture());
+        GetObjectRequest fallback = requestCaptor.getAllValues().get(1);
+        assertEquals("bytes=1000-", fallback.range());
+        assertEquals("\"v1\"", fallback.ifMatch());
+        assertEquals(1.0, meterRegistry.counter("s3.coalesce.fallbacks").count());
+    }
+
+    @Test
+    void testLoneSubscriberReadsStraightFromTheSource() throws Exception {
+        // Arrange
+        RequestCoalescer coalescer = coalescer(DataSize.ofMegabytes(8));
+        byte[] content = content(200_000);
+        serve(content);
+        GetObjectRequest request = GetObjectRequest.builder().bucket("bucket").key("key").build();
+        byte[] read = new byte[content.length];
+
+        // Act
+        int first;
+        int second;
+        try (InputStream in = coalescer.getObject(request)) {
+            first = in.read(read, 0, read.length);
+            second = in.read(read, first, read.length - first);
+        }
+
+        // Assert
+        assertEquals(64 * 1024, first);
+        assertEquals(content.length - first, second);
+        assertArrayEquals(content, read);
+    }
+
+    @Test
+    void testConcurrentHeadsShareOneCall() throws Exception {
+        // Arrange
+        RequestCoalescer coalescer = coalescer(DataSize.ofMegabytes(8));
+        HeadObjectResponse response = HeadObjectResponse.builder().eTag("\"v1\"").build();
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(s3Client.headObject(any(HeadObjectRequest.class))).thenAnswer(invocation -> {
+            entered.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return response;
+        });
+        HeadObjectRequest request = HeadObjectRequest.builder().bucket("bucket").key("key").build();
+
+        // Act
+        Future<HeadObjectResponse> first = executor.submit(() -> coalescer.headObject(request));
+        entered.await(5, TimeUnit.SECONDS);
+        Future<HeadObjectResponse> second = executor.submit(() -> coalescer.headObject(request));
+        awaitJoined("HeadObject", 1);
+        release.countDown();
+
+        // Assert
+        assertSame(response, first.get(5, TimeUnit.SECONDS));
+        assertSame(response, second.get(5, TimeUnit.SECONDS));
+        verify(s3Client, times(1)).headObject(any(HeadObjectRequest.class));
+    }
+
+    @Test
+    void testForgetStartsFreshCallAfterWrite() throws Exception {
+        // Arrange
+        RequestCoalescer coalescer = coalescer(DataSize.ofMegabytes(8));
+        HeadObjectResponse before = HeadObjectResponse.builder().eTag("\"v1\"").build();
+        HeadObjectResponse after = HeadObjectResponse.builder().eTag("\"v2\"").build();
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(s3Client.headObject(any(HeadObjectRequest.class))).thenAnswer(invocation -> {
+            entered.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return before;
+        }).thenReturn(after);
+        HeadObjectRequest request = HeadObjectRequest.builder().bucket("bucket").key("key").build();
+
+        // Act
+        Future<HeadObjectResponse> inFlight = executor.submit(() -> coalescer.headObject(request));
+        entered.await(5, TimeUnit.SECONDS);
+        coalescer.forget("bucket", "key");
+        HeadObjectResponse fresh = coalescer.headObject(request);
+        release.countDown();
+
+        // Assert
+        assertSame(after, fresh);
+        assertSame(before, inFlight.get(5, TimeUnit.SECONDS));
+        verify(s3Client, times(2)).headObject(any(HeadObjectRequest.class));
+        assertTrue(meterRegistry.find("s3.coalesce.joined").counters().isEmpty());
+    }
+
+    private void awaitJoined(String operation, double count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.counter("s3.coalesce.joined", "operation", operation).count() < count
+                && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+}
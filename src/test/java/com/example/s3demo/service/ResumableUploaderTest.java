@@ -0,0 +1,113 @@
+package com.example.s3demo.service;
+
+import com.example.s3demo.model.ResumableUpload;
+import com.example.s3demo.model.UploadedPart;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.*;
+import software.amazon.awssdk.services.s3.paginators.ListMultipartUploadsIterable;
+
+import java.io.ByteArrayInputStream;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ResumableUploaderTest {
+
+    @Mock
+    private S3Client s3Client;
+
+    @TempDir
+    private Path directory;
+
+    private ResumableUploader uploader(UploadCheckpointStore store) {
+        return new ResumableUploader(s3Client, store, "test-bucket", Duration.ofHours(24), true);
+    }
+
+    @Test
+    void testPartsSurviveRestartAndCompleteInOrder() {
+        // Arrange
+        when(s3Client.createMultipartUpload(any(CreateMultipartUploadRequest.class)))
+                .thenReturn(CreateMultipartUploadResponse.builder().uploadId("upload/1+x").build());
+        when(s3Client.uploadPart(any(UploadPartRequest.class), any(RequestBody.class)))
+                .thenAnswer(invocation -> {
+                    UploadPartRequest request = invocation.getArgument(0);
+                    return UploadPartResponse.builder().eTag("etag-" + request.partNumber()).build();
+                });
+        ResumableUploader before = uploader(new UploadCheckpointStore(directory));
+        String uploadId = before.initiate("test-bucket", "big-key", "video/mp4").uploadId();
+        before.uploadPart(uploadId, 2, new ByteArrayInputStream(new byte[3]), 3);
+        before.uploadPart(uploadId, 1, new ByteArrayInputStream(new byte[5]), 5);
+
+        // Act
+        ResumableUploader after = uploader(new UploadCheckpointStore(directory));
+        ResumableUpload status = after.status(uploadId).orElseThrow();
+        Optional<ResumableUpload> completed = after.complete(uploadId);
+
+        // Assert
+        assertEquals("big-key", status.key());
+        assertEquals(List.of(new UploadedPart(1, "etag-1", 5), new UploadedPart(2, "etag-2", 3)), status.parts());
+        assertTrue(completed.isPresent());
+        ArgumentCaptor<CompleteMultipartUploadRequest> captor =
+                ArgumentCaptor.forClass(CompleteMultipartUploadRequest.class);
+        verify(s3Client).completeMultipartUpload(captor.capture());
+        assertEquals(List.of(1, 2), captor.getValue().multipartUpload().parts().stream()
+                .map(CompletedPart::partNumber).toList());
+        assertTrue(after.status(uploadId).isEmpty());
+        assertTrue(uploader(new UploadCheckpointStore(directory)).status(uploadId).isEmpty());
+    }
+
+    @Test
+    void testUnknownUploadIsEmpty() {
+        // Arrange
+        ResumableUploader uploader = uploader(new UploadCheckpointStore(directory));
+
+        // Act
+        Optional<UploadedPart> part = uploader.uploadPart("missing", 1, new ByteArrayInputStream(new byte[1]), 1);
+
+        // Assert
+        assertTrue(part.isEmpty());
+        assertFalse(uploader.abort("missing"));
+        verify(s3Client, never()).uploadPart(any(UploadPartRequest.class), any(RequestBody.class));
+    }
+
+    @Test
+    void testSweepAbortsIdleAndOrphanedUploads() {
+        // Arrange
+        when(s3Client.createMultipartUpload(any(CreateMultipartUploadRequest.class)))
+                .thenReturn(CreateMultipartUploadResponse.builder().uploadId("tracked").build());
+        ResumableUploader uploader = uploader(new UploadCheckpointStore(directory));
+        uploader.initiate("test-bucket", "tracked-key", null);
+        Instant cutoff = Instant.now().plusSeconds(1);
+        ListMultipartUploadsIterable listing = mock(ListMultipartUploadsIterable.class);
+        when(listing.uploads()).thenReturn(() -> List.of(
+                MultipartUpload.builder().key("orphan").uploadId("orphan-1").initiated(cutoff.minusSeconds(3600)).build(),
+                MultipartUpload.builder().key("fresh").uploadId("fresh-1").initiated(cutoff.plusSeconds(60)).build())
+                .iterator());
+        when(s3Client.listMultipartUploadsPaginator(any(ListMultipartUploadsRequest.class))).thenReturn(listing);
+
+        // Act
+        int aborted = uploader.sweep(cutoff);
+
+        // Assert
+        assertEquals(2, aborted);
+        ArgumentCaptor<AbortMultipartUploadRequest> captor = ArgumentCaptor.forClass(AbortMultipartUploadRequest.class);
+        verify(s3Client, times(2)).abortMultipartUpload(captor.capture());
+        assertEquals(List.of("tracked", "orphan-1"), captor.getAllValues().stream()
+                .map(AbortMultipartUploadRequest::uploadId).toList());
+        assertTrue(uploader.status("tracked").isEmpty());
+    }
+}
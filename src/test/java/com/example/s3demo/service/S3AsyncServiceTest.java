@@ -0,0 +1,136 @@
+package com.example.s3demo.service;
+
+import com.example.s3demo.model.ObjectPage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.multipart.MultipartFile;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.*;
+
+import java.io.ByteArrayInputStream;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class S3AsyncServiceTest {
+
+    @Mock
+    private S3AsyncClient s3AsyncClient;
+
+    @Mock
+    private S3Service s3Service;
+
+    @Mock
+    private MultipartUploader multipartUploader;
+
+    @Mock
+    private MultipartFile multipartFile;
+
+    private S3AsyncService s3AsyncService;
+
+    @BeforeEach
+    void setUp() {
+        s3AsyncService = new S3AsyncService(s3AsyncClient, s3Service, multipartUploader, 1);
+        ReflectionTestUtils.setField(s3AsyncService, "defaultBucketName", "test-bucket");
+    }
+
+    @AfterEach
+    void tearDown() {
+        s3AsyncService.shutdown();
+    }
+
+    @Test
+    void testListBuckets() {
+        // Arrange
+        when(s3AsyncClient.listBuckets()).thenReturn(CompletableFuture.completedFuture(
+                ListBucketsResponse.builder().buckets(Bucket.builder().name("test-bucket").build()).build()));
+
+        // Act
+        List<String> bucketNames = s3AsyncService.listBuckets().join();
+
+        // Assert
+        assertEquals(List.of("test-bucket"), bucketNames);
+    }
+
+    @Test
+    void testUploadObjectStreamsWithKnownLength() throws Exception {
+        // Arrange
+        byte[] content = "test-content".getBytes();
+        AtomicBoolean closed = new AtomicBoolean();
+        when(multipartFile.getInputStream()).thenReturn(new ByteArrayInputStream(content) {
+            @Override
+            public void close() {
+                closed.set(true);
+            }
+        });
+        when(multipartUploader.checksumAlgorithm()).thenReturn(Optional.of(ChecksumAlgorithm.CRC32_C));
+        when(multipartFile.getSize()).thenReturn((long) content.length);
+        when(s3AsyncClient.putObject(any(PutObjectRequest.class), any(AsyncRequestBody.class)))
+                .thenReturn(CompletableFuture.completedFuture(PutObjectResponse.builder().build()));
+
+        // Act
+        String result = s3AsyncService.uploadObject("test-key", multipartFile).join();
+
+        // Assert
+        ArgumentCaptor<PutObjectRequest> requestCaptor = ArgumentCaptor.forClass(PutObjectRequest.class);
+        ArgumentCaptor<AsyncRequestBody> bodyCaptor = ArgumentCaptor.forClass(AsyncRequestBody.class);
+        verify(s3AsyncClient).putObject(requestCaptor.capture(), bodyCaptor.capture());
+        assertEquals(content.length, bodyCaptor.getValue().contentLength().orElseThrow());
+        assertEquals(ChecksumAlgorithm.CRC32_C, requestCaptor.getValue().checksumAlgorithm());
+        assertEquals("File uploaded successfully: test-key", result);
+        assertTrue(closed.get());
+        verify(s3Service).written("test-bucket", "test-key");
+    }
+
+    @Test
+    void testDeleteObjectInvalidatesReadPaths() {
+        // Arrange
+        when(s3AsyncClient.deleteObject(any(DeleteObjectRequest.class)))
+                .thenReturn(CompletableFuture.completedFuture(DeleteObjectResponse.builder().build()));
+
+        // Act
+        s3AsyncService.deleteObject("test-key").join();
+
+        // Assert
+        verify(s3Service).deleted("test-bucket", "test-key");
+    }
+
+    @Test
+    void testListObjectsReturnsOnePage() {
+        // Arrange
+        when(s3AsyncClient.listObjectsV2(any(ListObjectsV2Request.class))).thenReturn(CompletableFuture.completedFuture(
+                ListObjectsV2Response.builder()
+                        .contents(S3Object.builder().key("logs/a.txt").size(3L).build())
+                        .commonPrefixes(CommonPrefix.builder().prefix("logs/2024/").build())
+                        .isTruncated(true)
+                        .nextContinuationToken("token-2")
+                        .build()));
+
+        // Act
+        ObjectPage page = s3AsyncService.listObjects("logs/", "/", 1, "token-1").join();
+
+        // Assert
+        ArgumentCaptor<ListObjectsV2Request> requestCaptor = ArgumentCaptor.forClass(ListObjectsV2Request.class);
+        verify(s3AsyncClient).listObjectsV2(requestCaptor.capture());
+        assertEquals("token-1", requestCaptor.getValue().continuationToken());
+        assertEquals(1, requestCaptor.getValue().maxKeys());
+        assertEquals("logs/a.txt", page.objects().get(0).key());
+        assertEquals(List.of("logs/2024/"), page.commonPrefixes());
+        assertEquals("token-2", page.nextContinuationToken());
+        assertTrue(page.truncated());
+    }
+}
@@ -1,5 +1,7 @@
 package com.example.s3demo.service;
 
+import com.example.s3demo.model.ObjectPage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -7,20 +9,37 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.web.multipart.MultipartFile;
+import software.amazon.awssdk.core.ResponseInputStream;
 import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.http.AbortableInputStream;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.model.Bucket;
+import software.amazon.awssdk.services.s3.model.CommonPrefix;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
 import software.amazon.awssdk.services.s3.model.ListBucketsResponse;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
-import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.s3.model.S3Object;
+import software.amazon.awssdk.services.s3.paginators.ListObjectsV2Iterable;
 
 import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
@@ -31,7 +50,16 @@ public class S3ServiceTest {
     private S3Client s3Client;
 
     @Mock
-    private S3Presigner s3Presigner;
+    private PresignedUrlCache presignedUrlCache;
+
+    @Mock
+    private ObjectCache objectCache;
+
+    @Mock
+    private ResumableUploader resumableUploader;
+
+    @Mock
+    private ObjectCopier objectCopier;
 
     @Mock
     private MultipartFile multipartFile;
@@ -40,7 +68,18 @@ public class S3ServiceTest {
 
     @BeforeEach
     void setUp() {
-        s3Service = new S3Service(s3Client, s3Presigner);
+        MultipartUploader multipartUploader = new MultipartUploader(s3Client, new SimpleMeterRegistry(), DataSize.ofMegabytes(5), 2, 2, "crc32c");
+        RequestCoalescer requestCoalescer = new RequestCoalescer(s3Client, new SimpleMeterRegistry(), true, DataSize.ofMegabytes(8));
+        ObjectLister objectLister = new ObjectLister(s3Client, requestCoalescer, 1000, 2);
+        s3Service = new S3Service(s3Client, presignedUrlCache, multipartUploader,
+                new ParallelDownloader(s3Client, new SimpleMeterRegistry(), true, DataSize.ofMegabytes(8), 2, DataSize.ofMegabytes(64), 2, false),
+                objectLister, objectCache, new BatchDeleter(s3Client, 2),
+                new BulkUploader(s3Client, multipartUploader, 2, 2, DataSize.ofMegabytes(16), DataSize.ofMegabytes(8)),
+                resumableUploader, objectCopier, new ObjectCompressor(s3Client, multipartUploader,
+                        new SimpleMeterRegistry(), false, "gzip", DataSize.ofKilobytes(1), List.of("text/*"),
+                        DataSize.ofMegabytes(1)),
+                new MetadataIndex(s3Client, requestCoalescer, objectLister, new SimpleMeterRegistry(), false, 100, 100, ""),
+                requestCoalescer, new ChecksumVerifier(s3Client, 2));
         ReflectionTestUtils.setField(s3Service, "defaultBucketName", "test-bucket");
     }
 
@@ -66,7 +105,7 @@ public class S3ServiceTest {
         // Arrange
         String key = "test-key";
         byte[] content = "test-content".getBytes();
-        when(multipartFile.getBytes()).thenReturn(content);
+        when(multipartFile.getSize()).thenReturn((long) content.length);
         when(multipartFile.getContentType()).thenReturn("text/plain");
 
         // Act
@@ -74,7 +113,150 @@ public class S3ServiceTest {
 
         // Assert
         ArgumentCaptor<PutObjectRequest> requestCaptor = ArgumentCaptor.forClass(PutObjectRequest.class);
-        verify(s3Client).putObject(requestCaptor.capture(), any(RequestBody.class));
+        ArgumentCaptor<RequestBody> bodyCaptor = ArgumentCaptor.forClass(RequestBody.class);
+        verify(s3Client).putObject(requestCaptor.capture(), bodyCaptor.capture());
         assertEquals(key, requestCaptor.getValue().key());
+        assertEquals(content.length, bodyCaptor.getValue().optionalContentLength().orElseThrow());
+        verify(multipartFile, never()).getBytes();
+        verify(objectCache).invalidate("test-bucket", key);
+    }
+
+    @Test
+    void testDownloadObjectDecompressesStoredCodec() throws IOException {
+        // Arrange
+        byte[] content = "{\"compressed\":true}".getBytes();
+        ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(gzipped)) {
+            out.write(content);
+        }
+        GetObjectResponse response = GetObjectResponse.builder()
+                .contentEncoding("gzip")
+                .metadata(Map.of("codec", "gzip"))
+                .build();
+        when(s3Client.getObject(any(GetObjectRequest.class))).thenReturn(new ResponseInputStream<>(response,
+                AbortableInputStream.create(new ByteArrayInputStream(gzipped.toByteArray()))));
+
+        // Act
+        byte[] downloaded = s3Service.downloadObject("data.json");
+
+        // Assert
+        assertArrayEquals(content, downloaded);
+    }
+
+    @Test
+    void testSmallDownloadIsOneGetWithoutHead() throws IOException {
+        // Arrange
+        byte[] content = "small object".getBytes();
+        when(s3Client.getObject(any(GetObjectRequest.class))).thenReturn(new ResponseInputStream<>(
+                GetObjectResponse.builder().contentLength((long) content.length).eTag("\"e\"").build(),
+                AbortableInputStream.create(new ByteArrayInputStream(content))));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        s3Service.downloadObject("small-key", s3Service.openObject("small-key", null), out);
+
+        // Assert
+        assertArrayEquals(content, out.toByteArray());
+        verify(s3Client).getObject(any(GetObjectRequest.class));
+        verify(s3Client, never()).headObject(any(HeadObjectRequest.class));
+    }
+
+    @Test
+    void testOpenObjectPassesRangeThrough() {
+        // Arrange
+        ResponseInputStream<GetObjectResponse> stream = new ResponseInputStream<>(
+                GetObjectResponse.builder().contentRange("bytes 0-9/100").build(),
+                AbortableInputStream.create(new ByteArrayInputStream(new byte[10])));
+        when(s3Client.getObject(any(GetObjectRequest.class))).thenReturn(stream);
+
+        // Act
+        ResponseInputStream<GetObjectResponse> result = s3Service.openObject("test-key", "bytes=0-9");
+
+        // Assert
+        ArgumentCaptor<GetObjectRequest> requestCaptor = ArgumentCaptor.forClass(GetObjectRequest.class);
+        verify(s3Client).getObject(requestCaptor.capture());
+        assertEquals("bytes=0-9", requestCaptor.getValue().range());
+        assertEquals("bytes 0-9/100", result.response().contentRange());
+    }
+
+    @Test
+    void testListObjectsReturnsPageWithContinuationToken() {
+        // Arrange
+        when(s3Client.listObjectsV2(any(ListObjectsV2Request.class))).thenReturn(ListObjectsV2Response.builder()
+                .contents(S3Object.builder().key("logs/a.txt").size(3L).build())
+                .commonPrefixes(CommonPrefix.builder().prefix("logs/2024/").build())
+                .isTruncated(true)
+                .nextContinuationToken("token-2")
+                .build());
+
+        // Act
+        ObjectPage page = s3Service.listObjects("logs/", "/", 1, "token-1");
+
+        // Assert
+        ArgumentCaptor<ListObjectsV2Request> requestCaptor = ArgumentCaptor.forClass(ListObjectsV2Request.class);
+        verify(s3Client).listObjectsV2(requestCaptor.capture());
+        assertEquals("token-1", requestCaptor.getValue().continuationToken());
+        assertEquals(1, requestCaptor.getValue().maxKeys());
+        assertEquals("logs/a.txt", page.objects().get(0).key());
+        assertEquals(List.of("logs/2024/"), page.commonPrefixes());
+        assertEquals("token-2", page.nextContinuationToken());
+        assertTrue(page.truncated());
+    }
+
+    @Test
+    void testStreamObjectsWalksAllPages() throws IOException {
+        // Arrange
+        when(s3Client.listObjectsV2Paginator(any(ListObjectsV2Request.class)))
+                .thenAnswer(invocation -> new ListObjectsV2Iterable(s3Client, invocation.getArgument(0)));
+        when(s3Client.listObjectsV2(any(ListObjectsV2Request.class))).thenAnswer(invocation -> {
+            ListObjectsV2Request request = invocation.getArgument(0);
+            if (request.continuationToken() == null) {
+                return ListObjectsV2Response.builder()
+                        .contents(S3Object.builder().key("a").build(), S3Object.builder().key("b").build())
+                        .isTruncated(true)
+                        .nextContinuationToken("next")
+                        .build();
+            }
+            return ListObjectsV2Response.builder()
+                    .contents(S3Object.builder().key("c").build())
+                    .isTruncated(false)
+                    .build();
+        });
+        List<String> keys = new ArrayList<>();
+
+        // Act
+        s3Service.streamObjects(null, false, page -> page.forEach(summary -> keys.add(summary.key())));
+
+        // Assert
+        assertEquals(List.of("a", "b", "c"), keys);
+    }
+
+    @Test
+    void testStreamObjectsParallelFansOutAcrossPrefixes() throws IOException {
+        // Arrange
+        when(s3Client.listObjectsV2Paginator(any(ListObjectsV2Request.class)))
+                .thenAnswer(invocation -> new ListObjectsV2Iterable(s3Client, invocation.getArgument(0)));
+        when(s3Client.listObjectsV2(any(ListObjectsV2Request.class))).thenAnswer(invocation -> {
+            ListObjectsV2Request request = invocation.getArgument(0);
+            if ("/".equals(request.delimiter())) {
+                return ListObjectsV2Response.builder()
+                        .contents(S3Object.builder().key("root.txt").build())
+                        .commonPrefixes(CommonPrefix.builder().prefix("a/").build(),
+                                CommonPrefix.builder().prefix("b/").build())
+                        .isTruncated(false)
+                        .build();
+            }
+            return ListObjectsV2Response.builder()
+                    .contents(S3Object.builder().key(request.prefix() + "1.txt").build())
+                    .isTruncated(false)
+                    .build();
+        });
+        List<String> keys = Collections.synchronizedList(new ArrayList<>());
+
+        // Act
+        s3Service.streamObjects(null, true, page -> page.forEach(summary -> keys.add(summary.key())));
+
+        // Assert
+        assertEquals(List.of("a/1.txt", "b/1.txt", "root.txt"), keys.stream().sorted().toList());
     }
 }